@@ -4,6 +4,10 @@
 -- ============================================================
 
 -- Rimuove le tabelle se già esistono (ordine inverso rispetto alle FK)
+-- La tabella delle migrazioni va azzerata insieme allo schema, così
+-- all'avvio l'applicazione riapplica gli script in src/main/resources/db/migration
+DROP TABLE IF EXISTS schema_versione   CASCADE;
+DROP TABLE IF EXISTS chef_month_stats  CASCADE;
 DROP TABLE IF EXISTS Notifica          CASCADE;
 DROP TABLE IF EXISTS Ricetta_Ingrediente CASCADE;
 DROP TABLE IF EXISTS Ricetta           CASCADE;
@@ -157,6 +161,16 @@ CREATE TABLE Notifica (
 	)
 );
 
+-- ============================================================
+--  INDICI PER I REPORT
+--  I report filtrano per chef e per intervallo di date
+--  (Data >= inizio AND Data < fine): gli indici composti
+--  (ID_Corso, Data) evitano la scansione completa delle sessioni.
+-- ============================================================
+CREATE INDEX idx_sessioneonline_corso_data  ON SessioneOnline  (ID_Corso, Data);
+CREATE INDEX idx_sessionepratica_corso_data ON SessionePratica (ID_Corso, Data);
+CREATE INDEX idx_corso_chef                 ON Corso (ID_Chef);
+
 /* ============================================================
    POPOLAMENTO
    ============================================================ */
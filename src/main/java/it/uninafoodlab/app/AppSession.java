@@ -1,9 +1,12 @@
 package it.uninafoodlab.app;
 
+import it.uninafoodlab.dao.MappaIdentita;
 import it.uninafoodlab.model.domain.Chef;
 
 /**
  * Singleton per gestire la sessione dell'utente loggato.
+ * La {@link MappaIdentita} dei DAO vive quanto la sessione: viene svuotata al logout
+ * e all'inizio del login, prima di caricare i corsi dello chef (vedi AuthController).
  */
 public class AppSession {
     
@@ -29,5 +32,6 @@ public class AppSession {
     
     public void clear() {
         this.loggedChef = null;
+        MappaIdentita.svuotaTutte();
     }
 }
\ No newline at end of file
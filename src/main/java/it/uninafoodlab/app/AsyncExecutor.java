@@ -0,0 +1,242 @@
+package it.uninafoodlab.app;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import it.uninafoodlab.view.BasePanel;
+
+/**
+ * Esecuzione asincrona del lavoro sul database, fuori dall'Event Dispatch Thread.
+ *
+ * Il lavoro gira su un executor in background (virtual thread se la JVM li supporta,
+ * altrimenti un piccolo pool di thread daemon); il risultato viene consegnato sull'EDT.
+ * Ogni richiesta ha una chiave logica (es. "report", "dettaglio-corso"): una nuova
+ * richiesta con la stessa chiave rende obsoleta la precedente, il cui risultato
+ * viene scartato anche se arriva dopo.
+ *
+ * Il lavoro speculativo (prefetch) usa invece un unico thread a bassa priorità,
+ * così non sottrae risorse alle richieste dell'utente.
+ */
+public final class AsyncExecutor {
+
+    private static final int THREAD_FALLBACK = 4;
+
+    private static final ExecutorService EXECUTOR = creaExecutor();
+    private static final ExecutorService PREFETCH = creaExecutorPrefetch();
+
+    private static final Map<String, Richiesta> correnti = new ConcurrentHashMap<>();
+    private static final Map<String, Prefetch>  prefetchCorrenti = new ConcurrentHashMap<>();
+
+    /**
+     * Richiesta in corso per una chiave, con il pannello che ne mostra il caricamento.
+     */
+    private static class Richiesta {
+        private final BasePanel pannello;
+        private final AtomicBoolean conclusa = new AtomicBoolean(false);
+        private volatile Future<?> future;
+
+        Richiesta(BasePanel pannello) {
+            this.pannello = pannello;
+        }
+
+        /** Toglie l'indicatore di caricamento una sola volta, sull'EDT. */
+        void concludi() {
+            if (!conclusa.compareAndSet(false, true) || pannello == null) return;
+            if (SwingUtilities.isEventDispatchThread()) pannello.setLoading(false);
+            else SwingUtilities.invokeLater(() -> pannello.setLoading(false));
+        }
+
+        /** Impedisce l'avvio se ancora in coda; se già in esecuzione il risultato verrà scartato. */
+        void annulla() {
+            if (future != null) future.cancel(false);
+            concludi();
+        }
+    }
+
+    /**
+     * Prefetch in corso per una chiave: i passi non ancora eseguiti vengono saltati se annullato.
+     */
+    private static class Prefetch {
+        private final AtomicBoolean annullato = new AtomicBoolean(false);
+        private volatile Future<?> future;
+
+        void annulla() {
+            annullato.set(true);
+            if (future != null) future.cancel(false);
+        }
+    }
+
+    private AsyncExecutor() {}
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Esegue il lavoro in background; gli errori vengono mostrati sul pannello.
+     *
+     * @param chiave     chiave logica della richiesta
+     * @param pannello   pannello che mostra l'indicatore di caricamento e gli errori (può essere null)
+     * @param lavoro     lavoro da eseguire fuori dall'EDT
+     * @param onSuccesso callback eseguita sull'EDT con il risultato
+     */
+    public static <T> void esegui(String chiave, BasePanel pannello,
+                                  Callable<T> lavoro, Consumer<T> onSuccesso) {
+        esegui(chiave, pannello, lavoro, onSuccesso, errore -> {
+            if (pannello != null) {
+                pannello.showError("Operazione non riuscita: " + errore.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Esegue il lavoro in background con una gestione degli errori personalizzata.
+     *
+     * @param chiave     chiave logica della richiesta
+     * @param pannello   pannello che mostra l'indicatore di caricamento (può essere null)
+     * @param lavoro     lavoro da eseguire fuori dall'EDT
+     * @param onSuccesso callback eseguita sull'EDT con il risultato
+     * @param onErrore   callback eseguita sull'EDT se il lavoro lancia un'eccezione
+     */
+    public static <T> void esegui(String chiave, BasePanel pannello,
+                                  Callable<T> lavoro, Consumer<T> onSuccesso,
+                                  Consumer<Throwable> onErrore) {
+        Richiesta richiesta = new Richiesta(pannello);
+        Richiesta precedente = correnti.put(chiave, richiesta);
+        if (precedente != null) {
+            precedente.annulla();
+        }
+
+        if (pannello != null) pannello.setLoading(true);
+
+        richiesta.future = EXECUTOR.submit(() -> {
+            T risultato = null;
+            Throwable errore = null;
+            try {
+                risultato = lavoro.call();
+            } catch (Throwable t) {
+                errore = t;
+            }
+
+            final T r = risultato;
+            final Throwable err = errore;
+            SwingUtilities.invokeLater(() -> {
+                richiesta.concludi();
+
+                // Scarta i risultati di richieste superate o annullate
+                if (!correnti.remove(chiave, richiesta)) return;
+
+                if (err != null) {
+                    System.err.println("Errore operazione asincrona [" + chiave + "]: " + err.getMessage());
+                    err.printStackTrace();
+                    onErrore.accept(err);
+                } else {
+                    onSuccesso.accept(r);
+                }
+            });
+        });
+    }
+
+    /**
+     * Esegue in background, a bassa priorità e uno alla volta, passi il cui risultato
+     * non serve subito (tipicamente riempire una cache). Un nuovo prefetch con la stessa
+     * chiave annulla il precedente: i passi non ancora iniziati non vengono eseguiti.
+     * Gli errori vengono solo registrati, non mostrati all'utente.
+     *
+     * @param chiave chiave logica del prefetch
+     * @param passi  lavori da eseguire in ordine fuori dall'EDT
+     */
+    public static void prefetch(String chiave, Runnable... passi) {
+        Prefetch prefetch = new Prefetch();
+        Prefetch precedente = prefetchCorrenti.put(chiave, prefetch);
+        if (precedente != null) {
+            precedente.annulla();
+        }
+
+        prefetch.future = PREFETCH.submit(() -> {
+            try {
+                for (Runnable passo : passi) {
+                    if (prefetch.annullato.get()) return;
+                    passo.run();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Errore prefetch [" + chiave + "]: " + e.getMessage());
+            } finally {
+                prefetchCorrenti.remove(chiave, prefetch);
+            }
+        });
+    }
+
+    /**
+     * Annulla il prefetch in corso per la chiave (quello già iniziato termina il passo corrente).
+     */
+    public static void annullaPrefetch(String chiave) {
+        Prefetch p = prefetchCorrenti.remove(chiave);
+        if (p != null) {
+            p.annulla();
+        }
+    }
+
+    /**
+     * Annulla la richiesta in corso per la chiave: il suo risultato non verrà consegnato.
+     */
+    public static void annulla(String chiave) {
+        Richiesta r = correnti.remove(chiave);
+        if (r != null) {
+            r.annulla();
+        }
+    }
+
+    /**
+     * Annulla tutte le richieste in corso (es. al logout).
+     */
+    public static void annullaTutte() {
+        for (String chiave : correnti.keySet()) {
+            annulla(chiave);
+        }
+        for (String chiave : prefetchCorrenti.keySet()) {
+            annullaPrefetch(chiave);
+        }
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Usa Executors.newVirtualThreadPerTaskExecutor() quando disponibile (JDK 21+);
+     * la chiamata è riflessiva perché il progetto compila anche con JDK 17.
+     */
+    private static ExecutorService creaExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger contatore = new AtomicInteger();
+            return Executors.newFixedThreadPool(THREAD_FALLBACK, r -> {
+                Thread t = new Thread(r, "async-db-" + contatore.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Un solo thread daemon a priorità minima: i prefetch non competono fra loro
+     * né con le richieste dell'utente per le connessioni al database.
+     */
+    private static ExecutorService creaExecutorPrefetch() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "async-prefetch");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+}
@@ -7,7 +7,10 @@ import javax.swing.UIManager;
 import com.formdev.flatlaf.FlatLightLaf;
 
 import it.uninafoodlab.app.AppSession;
+import it.uninafoodlab.dao.DatabaseConnection;
 import it.uninafoodlab.dao.NotificaDAO;
+import it.uninafoodlab.dao.ReportDAO;
+import it.uninafoodlab.dao.SchemaMigrator;
 import it.uninafoodlab.controller.AuthController;
 import it.uninafoodlab.controller.CorsoController;
 import it.uninafoodlab.controller.NewCourseController;
@@ -19,6 +22,20 @@ import it.uninafoodlab.view.MainFrame;
 public class Main {
 
     public static void main(String[] args) {
+        // Chiude le connessioni del pool all'uscita dell'applicazione
+        Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::closeConnection));
+
+        // Allinea lo schema applicando le migrazioni non ancora eseguite
+        if (SchemaMigrator.migra() >= 0) {
+            // Controlla in background la tabella riassuntiva dei report e la ripara se è andata fuori allineamento
+            AsyncExecutor.prefetch("verifica-rollup", () -> {
+                int riparate = ReportDAO.verificaRollup();
+                if (riparate >= 0) {
+                    System.out.println("Verifica chef_month_stats: " + riparate + " righe riallineate");
+                }
+            });
+        }
+
         SwingUtilities.invokeLater(() -> {
 
             try {
@@ -32,14 +49,15 @@ public class Main {
             HomePanel  homePanel  = new HomePanel();
 
             AuthController      authController      = new AuthController(frame, homePanel, loginPanel);
-            CorsoController     corsoController     = new CorsoController(homePanel, homePanel.getDettagliCorsoPanel());
+            CorsoController     corsoController     = new CorsoController(homePanel, homePanel.getDettagliCorsoPanel(),
+                                                                          authController::refreshDashboard);
             NewCourseController newCourseController = new NewCourseController();
             ReportController    reportController    = new ReportController(homePanel.getReportPanel());
 
             // ── Notifiche: loader ─────────────────────────────────────────
-            homePanel.getNotificaPanel().setLoader(() -> {
+            homePanel.getNotificaPanel().setLoader((cursore, dimensione) -> {
                 int idChef = AppSession.getInstance().getLoggedChef().getIdChef();
-                return NotificaDAO.getByChef(idChef);
+                return NotificaDAO.getPaginaByChef(idChef, cursore, dimensione);
             });
 
             // ── Logout ────────────────────────────────────────────────────
@@ -58,21 +76,27 @@ public class Main {
             homePanel.getDashboardPanel().setDettagliAction(corsoController::mostraDettaglioCorso);
 
             // ── SessionConfig: conferma ───────────────────────────────────
-            homePanel.getSessionConfigPanel().setConfermaAction(sessions -> {
-                boolean ok = newCourseController.confirmCourseWithSessions(sessions);
-                if (ok) {
-                    homePanel.getNewCoursePanel().clearFields();
-                    homePanel.showPanel("DASHBOARD");
-                    authController.refreshDashboard();
-                    JOptionPane.showMessageDialog(frame,
-                        "Corso creato con successo!", "Successo",
-                        JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(frame,
+            // Corso, sessioni e ricette in un'unica transazione, fuori dall'EDT
+            homePanel.getSessionConfigPanel().setConfermaAction(sessions ->
+                AsyncExecutor.esegui("crea-corso", homePanel.getSessionConfigPanel(),
+                    () -> newCourseController.confirmCourseWithSessions(sessions),
+                    ok -> {
+                        if (ok) {
+                            homePanel.getNewCoursePanel().clearFields();
+                            homePanel.showPanel("DASHBOARD");
+                            authController.refreshDashboard();
+                            JOptionPane.showMessageDialog(frame,
+                                "Corso creato con successo!", "Successo",
+                                JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(frame,
+                                "Errore nella creazione del corso", "Errore",
+                                JOptionPane.ERROR_MESSAGE);
+                        }
+                    },
+                    errore -> JOptionPane.showMessageDialog(frame,
                         "Errore nella creazione del corso", "Errore",
-                        JOptionPane.ERROR_MESSAGE);
-                }
-            });
+                        JOptionPane.ERROR_MESSAGE)));
 
             // ── SessionConfig: annulla ────────────────────────────────────
             homePanel.getSessionConfigPanel().setAnnullaAction(() -> {
@@ -2,17 +2,23 @@ package it.uninafoodlab.controller;
 
 import java.util.List;
 
+import javax.swing.SwingUtilities;
+
 import it.uninafoodlab.app.AppSession;
+import it.uninafoodlab.app.AsyncExecutor;
 import it.uninafoodlab.dao.ChefDAO;
 import it.uninafoodlab.dao.CorsoDAO;
+import it.uninafoodlab.dao.CorsoDAO.RiepilogoCorso;
+import it.uninafoodlab.dao.MappaIdentita;
+import it.uninafoodlab.dao.NotificaListener;
 import it.uninafoodlab.model.domain.Chef;
-import it.uninafoodlab.model.domain.Corso;
 import it.uninafoodlab.view.HomePanel;
 import it.uninafoodlab.view.LoginPanel;
 import it.uninafoodlab.view.MainFrame;
 
 /**
  * Controller per gestire l'autenticazione degli chef.
+ * Per la durata della sessione tiene attivo il {@link NotificaListener} dello chef loggato.
  */
 public class AuthController {
 
@@ -20,6 +26,11 @@ public class AuthController {
     private final HomePanel homePanel;
     private final LoginPanel loginPanel;
 
+    private NotificaListener notificaListener;
+
+    /** Esito del login: chef autenticato (null se credenziali errate) e i riepiloghi dei suoi corsi. */
+    private record Accesso(Chef chef, List<RiepilogoCorso> corsi) {}
+
     public AuthController(MainFrame frame, HomePanel homePanel, LoginPanel loginPanel) {
         this.frame = frame;
         this.homePanel = homePanel;
@@ -30,27 +41,33 @@ public class AuthController {
      * Gestisce il login dello chef.
      */
     public void login(String email, String password) {
-        //Chiamata diretta a metodo static (NO istanza DAO)
-        Chef chef = ChefDAO.login(email, password);
+        // Nuova sessione: la mappa d'identità si svuota prima che il caricamento la riempia
+        MappaIdentita.svuotaTutte();
 
-        if (chef == null) {
-            loginPanel.showInvalidCredentials();
-            loginPanel.clearFields();
-            return;
-        }
+        // Autenticazione e corsi dello chef vengono caricati fuori dall'EDT
+        AsyncExecutor.esegui("login", loginPanel, () -> {
+            Chef chef = ChefDAO.login(email, password);
+            if (chef == null) return new Accesso(null, List.of());
+            return new Accesso(chef, CorsoDAO.getRiepiloghiByChef(chef.getIdChef()));
+        }, accesso -> {
+            if (accesso.chef() == null) {
+                loginPanel.showInvalidCredentials();
+                loginPanel.clearFields();
+                return;
+            }
+
+            // Salva chef in sessione
+            AppSession.getInstance().setLoggedChef(accesso.chef());
+
+            // Aggiorna HomePanel
+            homePanel.showChef(accesso.chef(), accesso.corsi());
+
+            avviaNotifiche(accesso.chef().getIdChef());
 
-        // Salva chef in sessione
-        AppSession.getInstance().setLoggedChef(chef);
-
-        // Carica corsi dello chef
-        List<Corso> corsi = CorsoDAO.getByChef(chef.getIdChef());
-        
-        // Aggiorna HomePanel
-        homePanel.showChef(chef, corsi);
-        
-        // Passa a fullscreen e mostra HOME
-        frame.goFullscreen();
-        frame.showView("HOME");
+            // Passa a fullscreen e mostra HOME
+            frame.goFullscreen();
+            frame.showView("HOME");
+        });
     }
     
     
@@ -58,6 +75,10 @@ public class AuthController {
      * Esegue il logout: pulisce la sessione, torna alla login in finestra normale.
      */
     public void logout() {
+        // I caricamenti ancora in corso appartengono allo chef uscente
+        AsyncExecutor.annullaTutte();
+        fermaNotifiche();
+        homePanel.resetNotifiche();
         AppSession.getInstance().clear();
         // Torna alla dimensione originale (non fullscreen)
         frame.goLoginSize();
@@ -65,14 +86,39 @@ public class AuthController {
         loginPanel.clearFields();
     }
     
+    /**
+     * Ascolta le nuove notifiche dello chef e le consegna a HomePanel sull'EDT.
+     */
+    private void avviaNotifiche(int idChef) {
+        fermaNotifiche();
+        NotificaListener listener = new NotificaListener(idChef, nuove ->
+            SwingUtilities.invokeLater(() -> {
+                // Scarta le consegne arrivate dopo il logout o destinate a uno chef precedente
+                Chef loggato = AppSession.getInstance().getLoggedChef();
+                if (loggato != null && loggato.getIdChef() == idChef) {
+                    homePanel.notificheRicevute(nuove);
+                }
+            }));
+        notificaListener = listener;
+        listener.avvia();
+    }
+
+    private void fermaNotifiche() {
+        if (notificaListener != null) {
+            notificaListener.ferma();
+            notificaListener = null;
+        }
+    }
+
     /**
      * Ricarica la dashboard (dopo creazione nuovo corso).
      */
     public void refreshDashboard() {
         Chef chef = AppSession.getInstance().getLoggedChef();
         if (chef != null) {
-            List<Corso> corsi = CorsoDAO.getByChef(chef.getIdChef());
-            homePanel.showChef(chef, corsi);
+            AsyncExecutor.esegui("dashboard", homePanel,
+                () -> CorsoDAO.getRiepiloghiByChef(chef.getIdChef()),
+                corsi -> homePanel.showChef(chef, corsi));
         }
     }
 }
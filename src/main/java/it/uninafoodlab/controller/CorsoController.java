@@ -1,20 +1,17 @@
 package it.uninafoodlab.controller;
 
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import javax.swing.JOptionPane;
 
-import it.uninafoodlab.app.AppSession;
+import it.uninafoodlab.app.AsyncExecutor;
 import it.uninafoodlab.dao.*;
+import it.uninafoodlab.dao.DettaglioCorsoDAO.DettaglioCorso;
 import it.uninafoodlab.model.domain.*;
-import it.uninafoodlab.model.enums.TipoModifica;
 import it.uninafoodlab.view.DettagliCorsoPanel;
 import it.uninafoodlab.view.DettagliCorsoPanel.*;
 import it.uninafoodlab.view.HomePanel;
-import it.uninafoodlab.view.IngredienteSelectionDialog.IngredienteQuantita;
-import it.uninafoodlab.view.RicetteConfigDialog.RicettaData;
 
 /**
  * Controller per la gestione dei corsi.
@@ -25,45 +22,58 @@ import it.uninafoodlab.view.RicetteConfigDialog.RicettaData;
  *   - Eliminazione di una sessione    + notifica opzionale
  *   - Aggiunta ricette a sessione pratica
  *
- * Il panel viene ricaricato dal DB dopo ogni operazione.
+ * Dopo la modifica o l'eliminazione di una sessione il panel aggiorna solo la sua card;
+ * dopo l'aggiunta di ricette viene ricaricato dal DB. In tutti e tre i casi vengono
+ * ricaricati anche i riepiloghi della dashboard (conteggi e prossima sessione).
+ * Caricamento e scritture avvengono in background ({@link AsyncExecutor}); lasciare la
+ * schermata di dettaglio annulla il caricamento, non le scritture già avviate.
  */
 public class CorsoController {
 
     private final HomePanel          homePanel;
     private final DettagliCorsoPanel dettaglioPanel;
+    private final Runnable           aggiornaDashboard;
 
-    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String CHIAVE_DETTAGLIO = "dettaglio-corso";
+    private static final String CHIAVE_MODIFICA  = "modifica-sessione";
+    private static final String CHIAVE_ELIMINA   = "elimina-sessione";
+    private static final String CHIAVE_RICETTE   = "aggiungi-ricette";
 
-    public CorsoController(HomePanel homePanel, DettagliCorsoPanel dettaglioPanel) {
-        this.homePanel      = homePanel;
-        this.dettaglioPanel = dettaglioPanel;
+    /**
+     * @param aggiornaDashboard ricarica i riepiloghi della dashboard dopo una modifica riuscita
+     */
+    public CorsoController(HomePanel homePanel, DettagliCorsoPanel dettaglioPanel, Runnable aggiornaDashboard) {
+        this.homePanel         = homePanel;
+        this.dettaglioPanel    = dettaglioPanel;
+        this.aggiornaDashboard = aggiornaDashboard;
 
         // Wiring callback view → controller
         dettaglioPanel.setOnModifica(this::gestisciModifica);
         dettaglioPanel.setOnElimina(this::gestisciElimina);
         dettaglioPanel.setOnAggiungiRicette(this::gestisciAggiungiRicette);
+
+        // Un caricamento del dettaglio non deve riportare l'utente su una schermata che ha lasciato
+        homePanel.addNavigationListener(panel -> {
+            if (!"DETTAGLIO".equals(panel)) AsyncExecutor.annulla(CHIAVE_DETTAGLIO);
+        });
     }
 
     // ── Caricamento ──────────────────────────────────────────────────────────
 
     public void mostraDettaglioCorso(Corso corso) {
-        try {
-            List<SessioneOnline>  online   = SessioneOnlineDAO.getByCorso(corso.getIdCorso());
-            List<SessionePratica> pratiche = SessionePraticaDAO.getByCorso(corso.getIdCorso());
-            List<Ricetta>         ricette  = RicettaDAO.getByCorso(corso.getIdCorso());
-
-            for (Ricetta r : ricette) {
-                r.setIngredienti(RicettaIngredienteDAO.getByRicetta(r.getIdRicetta()));
+        // Sessioni, ricette con ingredienti e iscritti in un numero costante di query
+        AsyncExecutor.esegui(CHIAVE_DETTAGLIO, homePanel, () -> {
+            DettaglioCorso dettaglio = DettaglioCorsoDAO.getByCorso(corso.getIdCorso());
+            if (dettaglio == null) {
+                throw new IllegalStateException("impossibile caricare il corso «" + corso.getTitolo() + "»");
             }
-            int numIscritti = IscrizioneDAO.countByCorso(corso.getIdCorso());
-
-            dettaglioPanel.loadCorso(corso, online, pratiche, ricette, numIscritti);
+            return dettaglio;
+        }, dettaglio -> {
+            dettaglioPanel.loadCorso(corso,
+                dettaglio.getSessioniOnline(), dettaglio.getSessioniPratiche(),
+                dettaglio.getRicette(), dettaglio.getNumIscritti());
             homePanel.showPanel("DETTAGLIO");
-
-        } catch (Exception e) {
-            System.err.println("Errore caricamento dettagli corso: " + e.getMessage());
-            e.printStackTrace();
-        }
+        });
     }
 
     /** Ricarica il panel con i dati aggiornati. */
@@ -73,134 +83,102 @@ public class CorsoController {
 
     // ── Modifica sessione ────────────────────────────────────────────────────
 
+    /**
+     * Modifica, eventuale notifica e lettura dei valori precedenti avvengono in un'unica
+     * istruzione ({@link ModificaSessioneDAO}), fuori dall'EDT; il panel aggiorna solo la card della sessione.
+     */
     private void gestisciModifica(ModificaSessioneRequest req) {
-        boolean ok;
-
         if ("ONLINE".equals(req.tipo())) {
-            SessioneOnline s = SessioneOnlineDAO.getById(req.idSessione());
-            if (s == null) return;
-            boolean dataChanged = !s.getData().equals(req.nuovaData());
-            boolean oraChanged  = !java.util.Objects.equals(s.getOra(), req.nuovaOra());
-            s.setData(req.nuovaData());
-            s.setOra(req.nuovaOra());
-            ok = SessioneOnlineDAO.update(s);
-            if (ok) JOptionPane.showMessageDialog(null,
-            	    "Sessione modificata con successo.", "Operazione completata",
-            	    JOptionPane.INFORMATION_MESSAGE);
-            	else JOptionPane.showMessageDialog(null,
-            	    "Errore durante la modifica della sessione.", "Errore",
-            	    JOptionPane.ERROR_MESSAGE);
-            if (ok && req.inviaNotifica()) {
-                inserisciNotifica(req.corso(), req.notificaGlobale(),
-                    determinaTipo(dataChanged, oraChanged),
-                    buildMsgModifica(req.corso().getTitolo(), "online",
-                        req.nuovaData(), req.nuovaOra(), dataChanged, oraChanged));
-            }
+            AsyncExecutor.esegui(CHIAVE_MODIFICA, dettaglioPanel,
+                () -> ModificaSessioneDAO.modificaDataOraOnline(
+                    req.idSessione(), req.nuovaData(), req.nuovaOra(), req.inviaNotifica(), req.notificaGlobale()),
+                esito -> {
+                    if (esito != null) {
+                        dettaglioPanel.aggiornaSessione(esito.sessione());
+                        aggiornaDashboard.run();
+                    }
+                    esitoModifica(esito != null);
+                },
+                errore -> esitoModifica(false));
         } else {
-            SessionePratica s = SessionePraticaDAO.getById(req.idSessione());
-            if (s == null) return;
-            boolean dataChanged = !s.getData().equals(req.nuovaData());
-            boolean oraChanged  = !java.util.Objects.equals(s.getOra(), req.nuovaOra());
-            s.setData(req.nuovaData());
-            s.setOra(req.nuovaOra());
-            ok = SessionePraticaDAO.update(s);
-            if (ok) JOptionPane.showMessageDialog(null,
-            	    "Sessione modificata con successo.", "Operazione completata",
-            	    JOptionPane.INFORMATION_MESSAGE);
-            	else JOptionPane.showMessageDialog(null,
-            	    "Errore durante la modifica della sessione.", "Errore",
-            	    JOptionPane.ERROR_MESSAGE);
-            if (ok && req.inviaNotifica()) {
-                inserisciNotifica(req.corso(), req.notificaGlobale(),
-                    determinaTipo(dataChanged, oraChanged),
-                    buildMsgModifica(req.corso().getTitolo(), "pratica",
-                        req.nuovaData(), req.nuovaOra(), dataChanged, oraChanged));
-            }
+            AsyncExecutor.esegui(CHIAVE_MODIFICA, dettaglioPanel,
+                () -> ModificaSessioneDAO.modificaDataOraPratica(
+                    req.idSessione(), req.nuovaData(), req.nuovaOra(), req.inviaNotifica(), req.notificaGlobale()),
+                esito -> {
+                    if (esito != null) {
+                        dettaglioPanel.aggiornaSessione(esito.sessione());
+                        aggiornaDashboard.run();
+                    }
+                    esitoModifica(esito != null);
+                },
+                errore -> esitoModifica(false));
         }
+    }
 
-        ricarica(req.corso());
+    private void esitoModifica(boolean ok) {
+        if (ok) JOptionPane.showMessageDialog(null,
+        	    "Sessione modificata con successo.", "Operazione completata",
+        	    JOptionPane.INFORMATION_MESSAGE);
+        else JOptionPane.showMessageDialog(null,
+        	    "Errore durante la modifica della sessione.", "Errore",
+        	    JOptionPane.ERROR_MESSAGE);
     }
 
     // ── Elimina sessione ─────────────────────────────────────────────────────
 
+    /**
+     * Eliminazione ed eventuale notifica in un'unica istruzione ({@link ModificaSessioneDAO}),
+     * fuori dall'EDT; il panel toglie solo la card della sessione.
+     */
     private void gestisciElimina(EliminaSessioneRequest req) {
-        String dataStr = "";
-
-        if ("ONLINE".equals(req.tipo())) {
-            SessioneOnline s = SessioneOnlineDAO.getById(req.idSessione());
-            if (s != null) dataStr = s.getData().format(FMT);
-            SessioneOnlineDAO.delete(req.idSessione());
-        } else {
-            SessionePratica s = SessionePraticaDAO.getById(req.idSessione());
-            if (s != null) dataStr = s.getData().format(FMT);
-            SessionePraticaDAO.delete(req.idSessione());
-        }
+        boolean online = "ONLINE".equals(req.tipo());
+
+        AsyncExecutor.esegui(CHIAVE_ELIMINA, dettaglioPanel, () -> online
+                ? ModificaSessioneDAO.eliminaOnline(req.idSessione(), req.inviaNotifica(), req.notificaGlobale())
+                : ModificaSessioneDAO.eliminaPratica(req.idSessione(), req.inviaNotifica(), req.notificaGlobale()),
+            esito -> {
+                if (esito != null) {
+                    if (online) dettaglioPanel.rimuoviSessioneOnline(req.idSessione());
+                    else dettaglioPanel.rimuoviSessionePratica(req.idSessione());
+                    aggiornaDashboard.run();
+                }
+                esitoEliminazione(esito != null);
+            },
+            errore -> esitoEliminazione(false));
+    }
 
-        if (req.inviaNotifica()) {
-            String tipo = "ONLINE".equals(req.tipo()) ? "online" : "pratica";
-            inserisciNotifica(req.corso(), req.notificaGlobale(),
-                TipoModifica.CANCELLAZIONE,
-                "La sessione " + tipo + " del " + dataStr
-                + " del corso «" + req.corso().getTitolo() + "» è stata cancellata.");
-        }
-        
-        JOptionPane.showMessageDialog(null,
+    private void esitoEliminazione(boolean ok) {
+        if (ok) JOptionPane.showMessageDialog(null,
         	    "Sessione eliminata.", "Operazione completata",
         	    JOptionPane.INFORMATION_MESSAGE);
-        ricarica(req.corso());
+        else JOptionPane.showMessageDialog(null,
+        	    "Errore durante l'eliminazione della sessione.", "Errore",
+        	    JOptionPane.ERROR_MESSAGE);
     }
 
     // ── Aggiungi ricette ─────────────────────────────────────────────────────
 
     private void gestisciAggiungiRicette(AggiungiRicetteRequest req) {
-        for (RicettaData rd : req.ricette()) {
-            Ricetta ricetta = new Ricetta(rd.getNome(), req.idSessionePratica());
-            int idRicetta = RicettaDAO.insert(ricetta);
-            if (idRicetta == -1) continue;
-
-            for (IngredienteQuantita iq : rd.getIngredienti()) {
-                RicettaIngrediente ri = new RicettaIngrediente(
-                    idRicetta,
-                    iq.getIngrediente().getIdIngrediente(),
-                    iq.getQuantita()
-                );
-                RicettaIngredienteDAO.insert(ri);
-            }
+        List<Ricetta> ricette = NewCourseController.creaRicette(req.ricette());
+        for (Ricetta r : ricette) {
+            r.setIdSessionePratica(req.idSessionePratica());
         }
-        JOptionPane.showMessageDialog(null,
-        	    req.ricette().size() + " ricetta/e aggiunta/e con successo.", "Operazione completata",
-        	    JOptionPane.INFORMATION_MESSAGE);
-        ricarica(req.corso());
-    }
-
-    // ── Utility notifiche ────────────────────────────────────────────────────
-
-    private void inserisciNotifica(Corso corso, boolean globale,
-                                   TipoModifica tipo, String messaggio) {
-        int idChef = AppSession.getInstance().getLoggedChef().getIdChef();
-        Integer idCorso = globale ? null : corso.getIdCorso();
-        String titolo = "[" + tipo.getDisplayName() + "] " + corso.getTitolo()
-            + (globale ? " — tutti i corsi" : "");
-        NotificaDAO.insert(new Notifica(idChef, idCorso, titolo, messaggio, tipo, globale));
-    }
-
-    private TipoModifica determinaTipo(boolean dataChanged, boolean oraChanged) {
-        if (dataChanged) return TipoModifica.CAMBIO_DATA;
-        if (oraChanged)  return TipoModifica.CAMBIO_ORA;
-        return TipoModifica.ALTRO;
+        AsyncExecutor.esegui(CHIAVE_RICETTE, dettaglioPanel, () -> RicettaDAO.insertAll(ricette), ok -> {
+            if (!ok) {
+                erroreRicette();
+                return;
+            }
+            JOptionPane.showMessageDialog(null,
+            	    req.ricette().size() + " ricetta/e aggiunta/e con successo.", "Operazione completata",
+            	    JOptionPane.INFORMATION_MESSAGE);
+            ricarica(req.corso());
+            aggiornaDashboard.run();
+        }, errore -> erroreRicette());
     }
 
-    private String buildMsgModifica(String titoloCorso, String tipoSess,
-                                    java.time.LocalDate nuovaData, java.time.LocalTime nuovaOra,
-                                    boolean dataChanged, boolean oraChanged) {
-        StringBuilder sb = new StringBuilder("Sessione ").append(tipoSess)
-            .append(" del corso «").append(titoloCorso).append("»: ");
-        if (dataChanged)
-            sb.append("nuova data ").append(nuovaData.format(FMT)).append(". ");
-        if (oraChanged && nuovaOra != null)
-            sb.append("nuovo orario ")
-              .append(String.format("%02d:%02d", nuovaOra.getHour(), nuovaOra.getMinute()))
-              .append(".");
-        return sb.toString();
+    private void erroreRicette() {
+        JOptionPane.showMessageDialog(null,
+            "Errore durante il salvataggio delle ricette.", "Errore",
+            JOptionPane.ERROR_MESSAGE);
     }
-}
\ No newline at end of file
+}
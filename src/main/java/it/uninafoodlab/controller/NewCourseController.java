@@ -1,6 +1,6 @@
 package it.uninafoodlab.controller;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 import it.uninafoodlab.app.AppSession;
@@ -15,10 +15,12 @@ import it.uninafoodlab.view.SessionConfigPanel.SessionType;
 /**
  * Controller per la creazione di nuovi corsi.
  * AGGIORNATO per gestire ingredienti separati.
+ * Corso, sessioni, ricette e ingredienti vengono salvati in un'unica transazione.
  */
 public class NewCourseController {
     
-    private CourseData tempCourseData;
+    // Impostato sull'EDT, letto dal salvataggio in background
+    private volatile CourseData tempCourseData;
     
     /**
      * Step 1: Salva i dati del corso temporaneamente.
@@ -51,78 +53,42 @@ public class NewCourseController {
                 AppSession.getInstance().getLoggedChef().getIdChef()
             );
             
-            int idCorso = CorsoDAO.insert(nuovoCorso);
+            // 2. Prepara sessioni e ricette (le FK vengono assegnate dal DAO)
+            List<SessioneOnline>  sessioniOnline     = new ArrayList<>();
+            List<SessionePratica> sessioniPratiche   = new ArrayList<>();
+            List<List<Ricetta>>   ricettePerSessione = new ArrayList<>();
             
-            if (idCorso == -1) {
-                System.err.println("Errore creazione corso");
-                return false;
-            }
-            
-            // 2. Crea le sessioni
             for (SessionData sessionData : sessionsData) {
                 
                 if (sessionData.getType() == SessionType.ONLINE) {
-                    // Sessione Online
-                    SessioneOnline sessione = new SessioneOnline(
+                    sessioniOnline.add(new SessioneOnline(
                         sessionData.getData(),
                         sessionData.getOra(),
                         120, // Durata default 2 ore
                         sessionData.getLink(),
-                        idCorso
-                    );
-                    SessioneOnlineDAO.insert(sessione);
+                        0
+                    ));
                     
                 } else {
-                    // Sessione Pratica
-                    SessionePratica sessione = new SessionePratica(
+                    sessioniPratiche.add(new SessionePratica(
                         sessionData.getData(),
                         sessionData.getOra(),
                         180, // Durata default 3 ore
                         sessionData.getLuogo(),
-                        idCorso
-                    );
-                    int idSessionePratica = SessionePraticaDAO.insert(sessione);
-                    
-                    if (idSessionePratica == -1) {
-                        System.err.println("Errore creazione sessione pratica");
-                        continue;
-                    }
-                    
-                    // 3. Crea le ricette con ingredienti
-                    if (sessionData.getRicette() != null && !sessionData.getRicette().isEmpty()) {
-                        for (RicettaData ricettaData : sessionData.getRicette()) {
-                            // 3a. Crea la ricetta (solo nome)
-                            Ricetta ricetta = new Ricetta(
-                                ricettaData.getNome(),
-                                idSessionePratica
-                            );
-                            int idRicetta = RicettaDAO.insert(ricetta);
-                            
-                            if (idRicetta == -1) {
-                                System.err.println("Errore creazione ricetta: " + ricettaData.getNome());
-                                continue;
-                            }
-                            
-                            // 3b. Associa gli ingredienti alla ricetta
-                            for (IngredienteQuantita iq : ricettaData.getIngredienti()) {
-                                RicettaIngrediente ri = new RicettaIngrediente(
-                                    idRicetta,
-                                    iq.getIngrediente().getIdIngrediente(),
-                                    iq.getQuantita()
-                                );
-                                
-                                boolean success = RicettaIngredienteDAO.insert(ri);
-                                if (!success) {
-                                    System.err.println("Errore aggiunta ingrediente: " + 
-                                                     iq.getIngrediente().getNome() + 
-                                                     " alla ricetta " + ricettaData.getNome());
-                                }
-                            }
-                        }
-                    }
+                        0
+                    ));
+                    ricettePerSessione.add(creaRicette(sessionData.getRicette()));
                 }
             }
             
+            // 3. Salva tutto in un'unica transazione
+            int idCorso = CorsoDAO.insertConSessioni(nuovoCorso, sessioniOnline, sessioniPratiche, ricettePerSessione);
+            
+            if (idCorso == -1) {
+                System.err.println("Errore creazione corso");
+                return false;
+            }
+            
             // Reset temp data
             tempCourseData = null;
             return true;
@@ -134,6 +100,30 @@ public class NewCourseController {
         }
     }
     
+    /**
+     * Converte le ricette configurate nel wizard in oggetti di dominio con i relativi ingredienti.
+     * 
+     * @param ricetteData ricette della sessione (può essere null)
+     * @return lista di Ricetta senza ID
+     */
+    static List<Ricetta> creaRicette(List<RicettaData> ricetteData) {
+        List<Ricetta> ricette = new ArrayList<>();
+        if (ricetteData == null) return ricette;
+        
+        for (RicettaData ricettaData : ricetteData) {
+            Ricetta ricetta = new Ricetta(ricettaData.getNome(), 0);
+            for (IngredienteQuantita iq : ricettaData.getIngredienti()) {
+                ricetta.addIngrediente(new RicettaIngrediente(
+                    0,
+                    iq.getIngrediente().getIdIngrediente(),
+                    iq.getQuantita()
+                ));
+            }
+            ricette.add(ricetta);
+        }
+        return ricette;
+    }
+    
     /**
      * Annulla la creazione del corso.
      */
@@ -1,11 +1,17 @@
 package it.uninafoodlab.controller;
 
 import java.time.YearMonth;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import it.uninafoodlab.app.AppSession;
+import it.uninafoodlab.app.AsyncExecutor;
+import it.uninafoodlab.dao.ReportCache;
 import it.uninafoodlab.dao.ReportDAO;
 import it.uninafoodlab.dao.ReportDAO.ReportMensile;
+import it.uninafoodlab.dao.ReportDAO.SerieMensile;
 import it.uninafoodlab.view.ReportPanel;
 
 /**
@@ -13,11 +19,22 @@ import it.uninafoodlab.view.ReportPanel;
  *
  * Collega il bottone "Aggiorna Report" del {@link ReportPanel}
  * ai metodi del {@link ReportDAO}, iniettando i dati nella vista.
+ * I report passano da {@link ReportCache}: i mesi già chiusi non vengono ricalcolati.
+ * Un aggiornamento legge con una sola query tutte le metriche degli anni a confronto;
+ * il report del mese selezionato viene ricavato dalla stessa serie.
+ *
+ * Dopo ogni caricamento le serie degli anni vicini vengono lette in anticipo a bassa
+ * priorità, così anche passare da gennaio a dicembre (o cambiare anno) trova i dati in cache.
  */
 public class ReportController {
 
+    private static final String CHIAVE_PREFETCH = "report-prefetch";
+
     private final ReportPanel reportPanel;
 
+    /** Dati caricati in background per un aggiornamento del report. */
+    private record DatiReport(ReportMensile report, SerieMensile serie) {}
+
     public ReportController(ReportPanel reportPanel) {
         this.reportPanel = reportPanel;
 
@@ -27,19 +44,34 @@ public class ReportController {
     }
 
     /**
-     * Carica e mostra il report per il mese/anno indicati.
-     * Legge l'idChef dalla sessione corrente.
+     * Carica in background e mostra il report per il mese/anno indicati.
+     * Legge l'idChef dalla sessione corrente; una nuova selezione annulla la precedente.
      *
      * @param yearMonth mese e anno selezionati dal filtro
-     * @param anno      anno selezionato (per il grafico annuale a barre)
+     * @param anno      anno selezionato (ultimo anno del confronto annuale)
      */
     public void caricaReport(YearMonth yearMonth, int anno) {
         int idChef = AppSession.getInstance().getLoggedChef().getIdChef();
 
-        ReportMensile         report       = ReportDAO.getReportMensile(idChef, yearMonth);
-        Map<Integer, int[]>   datiAnnuali  = ReportDAO.getSessioniPerMese(idChef, anno);
+        // La selezione è cambiata: il prefetch della precedente non serve più
+        AsyncExecutor.annullaPrefetch(CHIAVE_PREFETCH);
 
-        reportPanel.updateData(report, datiAnnuali, anno);
+        AsyncExecutor.esegui("report", reportPanel, () -> {
+            SerieMensile serie = ReportCache.getSerieMensile(idChef, anno - ReportPanel.ANNI_CONFRONTO + 1, anno);
+            if (serie == null) {
+                throw new IllegalStateException("impossibile calcolare il report dell'anno " + anno);
+            }
+            ReportMensile report = serie.contiene(yearMonth)
+                ? serie.getReportMensile(yearMonth)
+                : ReportCache.getReportMensile(idChef, yearMonth);
+            if (report == null) {
+                throw new IllegalStateException("impossibile calcolare il report di " + yearMonth);
+            }
+            return new DatiReport(report, serie);
+        }, dati -> {
+            reportPanel.updateData(dati.report(), dati.serie(), anno);
+            prefetchPeriodiVicini(idChef, yearMonth, anno);
+        });
     }
 
     /**
@@ -50,4 +82,29 @@ public class ReportController {
         YearMonth now = YearMonth.now();
         caricaReport(now, now.getYear());
     }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Mette in cache le serie che servirebbero spostandosi di un mese o di un anno.
+     * I mesi vicini dello stesso anno sono già nella serie appena caricata.
+     */
+    private void prefetchPeriodiVicini(int idChef, YearMonth yearMonth, int anno) {
+        Set<Integer> anni = new LinkedHashSet<>();
+        anni.add(yearMonth.minusMonths(1).getYear());
+        anni.add(yearMonth.plusMonths(1).getYear());
+        anni.add(anno - 1);
+        anni.add(anno + 1);
+        anni.remove(anno);
+
+        int ultimoAnno = YearMonth.now().getYear();
+        List<Runnable> passi = new ArrayList<>();
+        for (int a : anni) {
+            if (a < ReportPanel.PRIMO_ANNO || a > ultimoAnno) continue;
+            passi.add(() -> ReportCache.getSerieMensile(idChef, a - ReportPanel.ANNI_CONFRONTO + 1, a));
+        }
+        if (!passi.isEmpty()) {
+            AsyncExecutor.prefetch(CHIAVE_PREFETCH, passi.toArray(new Runnable[0]));
+        }
+    }
 }
\ No newline at end of file
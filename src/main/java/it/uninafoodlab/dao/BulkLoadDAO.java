@@ -0,0 +1,429 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Ingrediente;
+import it.uninafoodlab.model.domain.Iscrizione;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Data Access Object per il caricamento massivo di ingredienti e iscrizioni.
+ *
+ * Le righe vengono inviate con il protocollo COPY del driver PostgreSQL in una tabella
+ * temporanea di appoggio (eliminata al commit) e poi fuse nella tabella definitiva con
+ * un'unica istruzione INSERT ... ON CONFLICT, tutto nella stessa transazione.
+ * Le righe non valide non fanno fallire il caricamento: vengono contate come conflitti.
+ */
+public class BulkLoadDAO {
+
+    // Dimensione del buffer accumulato prima di ogni invio al COPY
+    private static final int BUFFER_COPY = 64 * 1024;
+
+    // ==================== CLASSE INTERNA ====================
+
+    /**
+     * Classe interna con l'esito di un caricamento massivo.
+     */
+    public static class EsitoCaricamento {
+        private final int totale;
+        private final int inseriti;
+        private final int aggiornati;
+        private final int saltati;
+        private final int conflitti;
+
+        public EsitoCaricamento(int totale, int inseriti, int aggiornati, int saltati, int conflitti) {
+            this.totale     = totale;
+            this.inseriti   = inseriti;
+            this.aggiornati = aggiornati;
+            this.saltati    = saltati;
+            this.conflitti  = conflitti;
+        }
+
+        /** Righe ricevute. */
+        public int getTotale()     { return totale; }
+        /** Righe nuove inserite. */
+        public int getInseriti()   { return inseriti; }
+        /** Righe in conflitto che hanno aggiornato un record esistente. */
+        public int getAggiornati() { return aggiornati; }
+        /** Righe già presenti (nel database o ripetute nel file) e quindi ignorate. */
+        public int getSaltati()    { return saltati; }
+        /** Righe non valide o in contrasto con i dati esistenti. */
+        public int getConflitti()  { return conflitti; }
+
+        @Override
+        public String toString() {
+            return String.format("Caricamento[totale=%d, inseriti=%d, aggiornati=%d, saltati=%d, conflitti=%d]",
+                    totale, inseriti, aggiornati, saltati, conflitti);
+        }
+    }
+
+    // ==================== QUERY ====================
+
+    private static final String SQL_TMP_INGREDIENTE =
+        "CREATE TEMP TABLE tmp_ingrediente ( " +
+        "  Nome TEXT, Categoria TEXT, UnitaMisura TEXT " +
+        ") ON COMMIT DROP";
+
+    /**
+     * Fusione degli ingredienti: a parità di nome viene tenuta una sola riga.
+     * Un nome già presente con categoria o unità diverse è un conflitto e, se richiesto
+     * dal parametro, aggiorna il record esistente.
+     */
+    private static final String SQL_MERGE_INGREDIENTI =
+        "WITH Valide AS ( " +
+        "  SELECT DISTINCT ON (TRIM(Nome)) TRIM(Nome) AS Nome, TRIM(Categoria) AS Categoria, TRIM(UnitaMisura) AS UnitaMisura " +
+        "  FROM tmp_ingrediente " +
+        "  WHERE TRIM(Nome) <> '' AND LENGTH(TRIM(Nome)) <= 150 " +
+        "    AND TRIM(Categoria) <> '' AND LENGTH(TRIM(Categoria)) <= 100 " +
+        "    AND TRIM(UnitaMisura) <> '' AND LENGTH(TRIM(UnitaMisura)) <= 20 " +
+        "  ORDER BY TRIM(Nome) " +
+        "), Confronto AS ( " +
+        "  SELECT V.Nome, V.Categoria, V.UnitaMisura, I.ID_Ingrediente, " +
+        "         (I.ID_Ingrediente IS NOT NULL " +
+        "          AND (I.Categoria, I.UnitaMisura) IS DISTINCT FROM (V.Categoria, V.UnitaMisura)) AS Diverso " +
+        "  FROM Valide V LEFT JOIN Ingrediente I ON I.Nome = V.Nome " +
+        "), Inseriti AS ( " +
+        "  INSERT INTO Ingrediente (Nome, Categoria, UnitaMisura) " +
+        "  SELECT Nome, Categoria, UnitaMisura FROM Confronto WHERE ID_Ingrediente IS NULL " +
+        "  ON CONFLICT (Nome) DO NOTHING " +
+        "  RETURNING 1 " +
+        "), Aggiornati AS ( " +
+        "  UPDATE Ingrediente I SET Categoria = C.Categoria, UnitaMisura = C.UnitaMisura " +
+        "  FROM Confronto C " +
+        "  WHERE ? AND C.Diverso AND I.ID_Ingrediente = C.ID_Ingrediente " +
+        "  RETURNING 1 " +
+        ") " +
+        "SELECT (SELECT COUNT(*) FROM tmp_ingrediente) AS Totale, " +
+        "       (SELECT COUNT(*) FROM Valide)          AS Valide, " +
+        "       (SELECT COUNT(*) FROM Inseriti)        AS Inseriti, " +
+        "       (SELECT COUNT(*) FROM Confronto WHERE Diverso) AS Diversi, " +
+        "       (SELECT COUNT(*) FROM Aggiornati)      AS Aggiornati";
+
+    private static final String SQL_TMP_ISCRIZIONE =
+        "CREATE TEMP TABLE tmp_iscrizione ( " +
+        "  ID_Studente TEXT, Matricola TEXT, ID_Corso TEXT " +
+        ") ON COMMIT DROP";
+
+    /**
+     * Fusione delle iscrizioni: lo studente è indicato per ID oppure per matricola.
+     * Le righe con studente o corso inesistenti sono conflitti, quelle già iscritte vengono saltate.
+     * Restituisce anche gli chef dei corsi che hanno ricevuto nuove iscrizioni.
+     */
+    private static final String SQL_MERGE_ISCRIZIONI =
+        "WITH Righe AS ( " +
+        "  SELECT CASE WHEN TRIM(T.ID_Studente) ~ '^[0-9]{1,9}$' THEN TRIM(T.ID_Studente)::INTEGER END AS ID_Studente, " +
+        "         NULLIF(TRIM(T.Matricola), '') AS Matricola, " +
+        "         CASE WHEN TRIM(T.ID_Corso) ~ '^[0-9]{1,9}$' THEN TRIM(T.ID_Corso)::INTEGER END AS ID_Corso " +
+        "  FROM tmp_iscrizione T " +
+        "), Risolte AS ( " +
+        "  SELECT COALESCE(S1.ID_Studente, S2.ID_Studente) AS ID_Studente, C.ID_Corso " +
+        "  FROM Righe R " +
+        "  LEFT JOIN Studente S1 ON S1.ID_Studente = R.ID_Studente " +
+        "  LEFT JOIN Studente S2 ON R.ID_Studente IS NULL AND S2.Matricola = R.Matricola " +
+        "  JOIN Corso C ON C.ID_Corso = R.ID_Corso " +
+        "  WHERE COALESCE(S1.ID_Studente, S2.ID_Studente) IS NOT NULL " +
+        "), Inserite AS ( " +
+        "  INSERT INTO Iscrizione (ID_Studente, ID_Corso) " +
+        "  SELECT DISTINCT ID_Studente, ID_Corso FROM Risolte " +
+        "  ON CONFLICT (ID_Studente, ID_Corso) DO NOTHING " +
+        "  RETURNING ID_Corso " +
+        ") " +
+        "SELECT (SELECT COUNT(*) FROM Righe)    AS Totale, " +
+        "       (SELECT COUNT(*) FROM Risolte)  AS Valide, " +
+        "       (SELECT COUNT(*) FROM Inserite) AS Inseriti, " +
+        "       ARRAY(SELECT DISTINCT C.ID_Chef FROM Inserite I JOIN Corso C ON C.ID_Corso = I.ID_Corso) AS Chef";
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Carica un catalogo di ingredienti.
+     *
+     * @param ingredienti       ingredienti da caricare (l'ID viene ignorato)
+     * @param aggiornaEsistenti se true, un nome già presente con dati diversi aggiorna il record esistente
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento caricaIngredienti(Iterable<Ingrediente> ingredienti, boolean aggiornaEsistenti) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                creaTabella(conn, SQL_TMP_INGREDIENTE);
+
+                try (RigheCopy righe = new RigheCopy(copyManager(conn).copyIn(
+                        "COPY tmp_ingrediente (Nome, Categoria, UnitaMisura) FROM STDIN"))) {
+                    for (Ingrediente i : ingredienti) {
+                        righe.riga(i.getNome(), i.getCategoria(), i.getUnitaMisura());
+                    }
+                    righe.fine();
+                }
+
+                EsitoCaricamento esito = fondiIngredienti(conn, aggiornaEsistenti);
+                conn.commit();
+                IngredienteCache.invalida();
+                return esito;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore caricamento massivo ingredienti: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Carica un catalogo di ingredienti da testo CSV senza intestazione.
+     *
+     * @param csv               righe CSV
+     * @param colonne           colonne del CSV nell'ordine del file (Nome, Categoria, UnitaMisura)
+     * @param separatore        separatore di campo
+     * @param aggiornaEsistenti se true, un nome già presente con dati diversi aggiorna il record esistente
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento caricaIngredientiCsv(Reader csv, List<String> colonne, char separatore,
+                                                        boolean aggiornaEsistenti) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                creaTabella(conn, SQL_TMP_INGREDIENTE);
+                copyManager(conn).copyIn(sqlCopyCsv("tmp_ingrediente", colonne, separatore), csv);
+
+                EsitoCaricamento esito = fondiIngredienti(conn, aggiornaEsistenti);
+                conn.commit();
+                IngredienteCache.invalida();
+                return esito;
+
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Errore importazione CSV ingredienti: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Carica un insieme di iscrizioni (la data di iscrizione è impostata dal DB).
+     *
+     * @param iscrizioni iscrizioni da caricare
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento caricaIscrizioni(Iterable<Iscrizione> iscrizioni) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                creaTabella(conn, SQL_TMP_ISCRIZIONE);
+
+                try (RigheCopy righe = new RigheCopy(copyManager(conn).copyIn(
+                        "COPY tmp_iscrizione (ID_Studente, ID_Corso) FROM STDIN"))) {
+                    for (Iscrizione i : iscrizioni) {
+                        righe.riga(String.valueOf(i.getIdStudente()), String.valueOf(i.getIdCorso()));
+                    }
+                    righe.fine();
+                }
+
+                Set<Integer> chef = new HashSet<>();
+                EsitoCaricamento esito = fondiIscrizioni(conn, chef);
+                conn.commit();
+                invalidaRiepiloghi(chef);
+                return esito;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore caricamento massivo iscrizioni: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Carica iscrizioni da testo CSV senza intestazione.
+     *
+     * @param csv        righe CSV
+     * @param colonne    colonne del CSV nell'ordine del file (ID_Studente oppure Matricola, e ID_Corso)
+     * @param separatore separatore di campo
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento caricaIscrizioniCsv(Reader csv, List<String> colonne, char separatore) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                creaTabella(conn, SQL_TMP_ISCRIZIONE);
+                copyManager(conn).copyIn(sqlCopyCsv("tmp_iscrizione", colonne, separatore), csv);
+
+                Set<Integer> chef = new HashSet<>();
+                EsitoCaricamento esito = fondiIscrizioni(conn, chef);
+                conn.commit();
+                invalidaRiepiloghi(chef);
+                return esito;
+
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Errore importazione CSV iscrizioni: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static EsitoCaricamento fondiIngredienti(Connection conn, boolean aggiornaEsistenti) throws SQLException {
+        analizza(conn, "tmp_ingrediente");
+        try (PreparedStatement ps = conn.prepareStatement(SQL_MERGE_INGREDIENTI)) {
+            ps.setBoolean(1, aggiornaEsistenti);
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+
+            int totale     = rs.getInt("Totale");
+            int inseriti   = rs.getInt("Inseriti");
+            int diversi    = rs.getInt("Diversi");
+            int aggiornati = rs.getInt("Aggiornati");
+            int nonValide  = totale - rs.getInt("Valide");
+            int diversiNonAggiornati = diversi - aggiornati;
+
+            int conflitti = nonValide + diversiNonAggiornati;
+            return new EsitoCaricamento(totale, inseriti, aggiornati,
+                                        totale - inseriti - aggiornati - conflitti, conflitti);
+        }
+    }
+
+    /**
+     * @param chef riceve gli ID degli chef dei corsi con nuove iscrizioni
+     */
+    private static EsitoCaricamento fondiIscrizioni(Connection conn, Set<Integer> chef) throws SQLException {
+        analizza(conn, "tmp_iscrizione");
+        try (PreparedStatement ps = conn.prepareStatement(SQL_MERGE_ISCRIZIONI)) {
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+
+            int totale    = rs.getInt("Totale");
+            int inseriti  = rs.getInt("Inseriti");
+            int conflitti = totale - rs.getInt("Valide");
+            for (Integer id : (Integer[]) rs.getArray("Chef").getArray()) chef.add(id);
+            return new EsitoCaricamento(totale, inseriti, 0, totale - inseriti - conflitti, conflitti);
+        }
+    }
+
+    /**
+     * I conteggi di iscritti dei riepiloghi sono cambiati: il gruppo dei corsi di ogni chef
+     * toccato viene dimenticato, così la prossima lettura passa dal database.
+     */
+    private static void invalidaRiepiloghi(Set<Integer> chef) {
+        for (int idChef : chef) {
+            MappaIdentita.CORSI.rimuoviGruppo(idChef);
+        }
+    }
+
+    private static void creaTabella(Connection conn, String ddl) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(ddl);
+        }
+    }
+
+    /**
+     * Le tabelle temporanee non hanno statistiche: senza ANALYZE il planner
+     * le stima minuscole e sceglie nested loop anche con centinaia di migliaia di righe.
+     */
+    private static void analizza(Connection conn, String tabella) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE " + tabella);
+        }
+    }
+
+    /**
+     * La connessione del pool è un proxy: unwrap() arriva alla connessione fisica del driver.
+     */
+    private static CopyManager copyManager(Connection conn) throws SQLException {
+        return conn.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /**
+     * I nomi di colonna arrivano già validati dal chiamante ({@link ImportatoreCsv}).
+     */
+    private static String sqlCopyCsv(String tabella, List<String> colonne, char separatore) {
+        String delimitatore = separatore == '\'' ? "''''" : "'" + separatore + "'";
+        return "COPY " + tabella + " (" + String.join(", ", colonne) + ") FROM STDIN " +
+               "WITH (FORMAT csv, DELIMITER " + delimitatore + ")";
+    }
+
+    /**
+     * Scrive righe nel formato testo di COPY (campi separati da tab, \N per NULL),
+     * inviandole al server a blocchi. Se non si arriva a fine(), close() annulla il COPY
+     * così la transazione può essere annullata normalmente.
+     */
+    private static class RigheCopy implements AutoCloseable {
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_COPY + 1024);
+
+        RigheCopy(CopyIn copy) {
+            this.copy = copy;
+        }
+
+        void riga(String... campi) throws SQLException {
+            for (int i = 0; i < campi.length; i++) {
+                if (i > 0) buffer.append('\t');
+                appendCampo(campi[i]);
+            }
+            buffer.append('\n');
+            if (buffer.length() >= BUFFER_COPY) invia();
+        }
+
+        void fine() throws SQLException {
+            invia();
+            copy.endCopy();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (copy.isActive()) copy.cancelCopy();
+        }
+
+        private void invia() throws SQLException {
+            if (buffer.length() == 0) return;
+            byte[] dati = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(dati, 0, dati.length);
+            buffer.setLength(0);
+        }
+
+        private void appendCampo(String valore) {
+            if (valore == null) {
+                buffer.append("\\N");
+                return;
+            }
+            for (int i = 0; i < valore.length(); i++) {
+                char c = valore.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default   -> buffer.append(c);
+                }
+            }
+        }
+    }
+}
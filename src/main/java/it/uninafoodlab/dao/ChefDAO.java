@@ -9,6 +9,10 @@ import java.sql.*;
  */
 public class ChefDAO {
     
+    private static final MapperRighe<Chef> MAPPER = MapperRighe.di(r -> new Chef(
+            r.intero(0), r.testo(1), r.testo(2), r.testo(3), r.intero(4), r.intero(5)),
+        "ID_Chef", "Nome", "Email", "Password", "AnniEsperienza", "NumeroSpecializzazioni");
+    
     /**
      * Autentica uno chef tramite email e password.
      * 
@@ -17,7 +21,7 @@ public class ChefDAO {
      * @return oggetto Chef se le credenziali sono corrette, null altrimenti
      */
     public static Chef login(String email, String password) {
-        String sql = "SELECT * FROM Chef WHERE Email = ? AND Password = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Chef WHERE Email = ? AND Password = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -28,7 +32,7 @@ public class ChefDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createChefFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -46,7 +50,7 @@ public class ChefDAO {
      * @return oggetto Chef se trovato, null altrimenti
      */
     public static Chef getById(int idChef) {
-        String sql = "SELECT * FROM Chef WHERE ID_Chef = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Chef WHERE ID_Chef = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -55,7 +59,7 @@ public class ChefDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createChefFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -92,22 +96,4 @@ public class ChefDAO {
         
         return false;
     }
-    
-    /**
-     * Crea un oggetto Chef da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati dello chef
-     * @return oggetto Chef creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static Chef createChefFromResultSet(ResultSet rs) throws SQLException {
-        return new Chef(
-            rs.getInt("ID_Chef"),
-            rs.getString("Nome"),
-            rs.getString("Email"),
-            rs.getString("Password"),
-            rs.getInt("AnniEsperienza"),
-            rs.getInt("NumeroSpecializzazioni")
-        );
-    }
 }
\ No newline at end of file
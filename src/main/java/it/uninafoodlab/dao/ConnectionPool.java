@@ -0,0 +1,302 @@
+package it.uninafoodlab.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool di connessioni JDBC a dimensione limitata.
+ *
+ * Le connessioni restituite da {@link #getConnection()} sono proxy "in prestito":
+ * la chiamata a close() (tipicamente dal try-with-resources dei DAO) le rimette
+ * nel pool invece di chiudere la connessione fisica.
+ * Le connessioni rimaste inattive troppo a lungo vengono validate prima del riuso.
+ * Ogni connessione fisica mantiene una {@link StatementCache} dei PreparedStatement.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final Properties connectionProps;
+
+    private final int  maxSize;
+    private final long timeoutMs;
+    private final int  validationTimeoutSec;
+    private final long idleValidationMs;
+    private final int  statementCacheSize;
+
+    private final Semaphore permessi;
+    private final Deque<ConnessioneFisica> inattive = new ArrayDeque<>();
+    private volatile boolean chiuso = false;
+
+    // ── Statistiche ──
+    private final AtomicLong create     = new AtomicLong();
+    private final AtomicLong prestiti   = new AtomicLong();
+    private final AtomicLong timeout    = new AtomicLong();
+    private final AtomicLong scartate   = new AtomicLong();
+
+    /**
+     * Connessione fisica con l'istante dell'ultimo rilascio nel pool.
+     */
+    private static class ConnessioneFisica {
+        private final Connection connection;
+        private final StatementCache cache;
+        private long ultimoRilascio;
+
+        ConnessioneFisica(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.cache = statementCacheSize > 0 ? new StatementCache(connection, statementCacheSize) : null;
+            this.ultimoRilascio = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Fotografia dello stato del pool.
+     */
+    public record Statistiche(int maxSize, int inUso, int inattive,
+                              long create, long prestiti, long timeout, long scartate,
+                              long statementHit, long statementMiss) {
+        @Override
+        public String toString() {
+            return String.format("Pool[max=%d, inUso=%d, inattive=%d, create=%d, prestiti=%d, timeout=%d, scartate=%d, " +
+                                 "statementHit=%d, statementMiss=%d]",
+                    maxSize, inUso, inattive, create, prestiti, timeout, scartate, statementHit, statementMiss);
+        }
+    }
+
+    /**
+     * @param url                  URL JDBC del database
+     * @param user                 utente del database
+     * @param password             password del database
+     * @param maxSize              numero massimo di connessioni fisiche aperte
+     * @param timeoutMs            attesa massima di chi richiede una connessione a pool esaurito
+     * @param validationTimeoutSec timeout di Connection.isValid durante la validazione
+     * @param idleValidationMs     inattività oltre la quale una connessione viene validata prima del prestito
+     * @param statementCacheSize   PreparedStatement tenuti in cache per connessione (0 = cache disattivata)
+     * @param prepareThreshold     esecuzioni dopo cui il driver usa un prepared statement lato server
+     */
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, long timeoutMs, int validationTimeoutSec, long idleValidationMs,
+                          int statementCacheSize, int prepareThreshold) {
+        this.url = url;
+        this.connectionProps = new Properties();
+        this.connectionProps.setProperty("user", user);
+        this.connectionProps.setProperty("password", password);
+        this.connectionProps.setProperty("prepareThreshold", String.valueOf(prepareThreshold));
+        // I batch di INSERT senza chiavi generate diventano INSERT multi-riga
+        this.connectionProps.setProperty("reWriteBatchedInserts", "true");
+        this.statementCacheSize = statementCacheSize;
+        this.maxSize = Math.max(1, maxSize);
+        this.timeoutMs = timeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.idleValidationMs = idleValidationMs;
+        this.permessi = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * Prende in prestito una connessione dal pool, aprendone una nuova se necessario.
+     *
+     * @return connessione in prestito (close() la restituisce al pool)
+     * @throws SQLException se il pool è chiuso, se scade il timeout di attesa o se l'apertura fallisce
+     */
+    public Connection getConnection() throws SQLException {
+        if (chiuso) {
+            throw new SQLException("Pool di connessioni chiuso");
+        }
+
+        try {
+            if (!permessi.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                timeout.incrementAndGet();
+                throw new SQLException("Timeout in attesa di una connessione libera (" + timeoutMs + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa connessione interrotta", e);
+        }
+
+        try {
+            ConnessioneFisica fisica = prendiInattivaValida();
+            if (fisica == null) {
+                fisica = new ConnessioneFisica(DriverManager.getConnection(url, connectionProps), statementCacheSize);
+                create.incrementAndGet();
+            }
+            prestiti.incrementAndGet();
+            return creaProxy(fisica);
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Apre una connessione fisica fuori dal pool, con gli stessi parametri, per chi la
+     * tiene occupata a lungo (es. un LISTEN): non sottrae posti ai prestiti e va chiusa
+     * dal chiamante.
+     *
+     * @return nuova connessione, non in prestito
+     * @throws SQLException se il pool è chiuso o se l'apertura fallisce
+     */
+    public Connection apriConnessioneDedicata() throws SQLException {
+        if (chiuso) {
+            throw new SQLException("Pool di connessioni chiuso");
+        }
+        return DriverManager.getConnection(url, connectionProps);
+    }
+
+    /**
+     * Chiude tutte le connessioni inattive e rifiuta i prestiti successivi.
+     * Le connessioni ancora in prestito vengono chiuse al momento della restituzione.
+     */
+    public void chiudi() {
+        chiuso = true;
+        synchronized (inattive) {
+            for (ConnessioneFisica f : inattive) {
+                chiudiFisica(f);
+            }
+            inattive.clear();
+        }
+    }
+
+    public Statistiche getStatistiche() {
+        int numInattive;
+        synchronized (inattive) {
+            numInattive = inattive.size();
+        }
+        return new Statistiche(maxSize, maxSize - permessi.availablePermits(), numInattive,
+                               create.get(), prestiti.get(), timeout.get(), scartate.get(),
+                               StatementCache.HIT.get(), StatementCache.MISS.get());
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Estrae la connessione inattiva usata più di recente, validandola se è ferma da troppo tempo.
+     * Le connessioni non più valide vengono chiuse e scartate.
+     */
+    private ConnessioneFisica prendiInattivaValida() {
+        while (true) {
+            ConnessioneFisica f;
+            synchronized (inattive) {
+                f = inattive.pollFirst();
+            }
+            if (f == null) return null;
+
+            boolean daValidare = System.currentTimeMillis() - f.ultimoRilascio > idleValidationMs;
+            try {
+                if (!f.connection.isClosed() && (!daValidare || f.connection.isValid(validationTimeoutSec))) {
+                    return f;
+                }
+            } catch (SQLException e) {
+                System.err.println("Validazione connessione fallita: " + e.getMessage());
+            }
+            scartate.incrementAndGet();
+            chiudiFisica(f);
+        }
+    }
+
+    /**
+     * Rimette nel pool una connessione restituita, ripristinandone lo stato di default.
+     */
+    private void restituisci(ConnessioneFisica f) {
+        try {
+            if (chiuso || f.connection.isClosed()) {
+                chiudiFisica(f);
+                return;
+            }
+            if (!f.connection.getAutoCommit()) {
+                f.connection.rollback();
+                f.connection.setAutoCommit(true);
+            }
+            if (f.connection.isReadOnly()) {
+                f.connection.setReadOnly(false);
+            }
+            f.connection.clearWarnings();
+            f.ultimoRilascio = System.currentTimeMillis();
+            synchronized (inattive) {
+                inattive.addFirst(f);
+            }
+        } catch (SQLException e) {
+            System.err.println("Connessione scartata al rilascio: " + e.getMessage());
+            scartate.incrementAndGet();
+            chiudiFisica(f);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    private void chiudiFisica(ConnessioneFisica f) {
+        try {
+            f.connection.close();
+        } catch (SQLException e) {
+            System.err.println("Errore chiusura connessione: " + e.getMessage());
+        }
+    }
+
+    private Connection creaProxy(ConnessioneFisica fisica) {
+        return (Connection) Proxy.newProxyInstance(
+            ConnectionPool.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ConnessioneInPrestito(fisica));
+    }
+
+    /**
+     * Handler del proxy: inoltra tutto alla connessione fisica tranne close()/isClosed(),
+     * che agiscono solo sul prestito, e prepareStatement(sql[, autoGeneratedKeys]),
+     * servito dalla cache degli statement.
+     */
+    private class ConnessioneInPrestito implements InvocationHandler {
+        private final ConnessioneFisica fisica;
+        private boolean restituita = false;
+
+        ConnessioneInPrestito(ConnessioneFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!restituita) {
+                        restituita = true;
+                        restituisci(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return restituita || fisica.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConnessioneInPrestito[" + fisica.connection + "]";
+                default:
+                    if (restituita) {
+                        throw new SQLException("Connessione già restituita al pool");
+                    }
+                    if (fisica.cache != null && method.getName().equals("prepareStatement")) {
+                        if (args.length == 1) {
+                            return fisica.cache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                        }
+                        if (args.length == 2 && args[1] instanceof Integer keys) {
+                            return fisica.cache.prepare((String) args[0], keys);
+                        }
+                    }
+                    try {
+                        return method.invoke(fisica.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
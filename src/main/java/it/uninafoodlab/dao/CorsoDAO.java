@@ -1,17 +1,121 @@
 package it.uninafoodlab.dao;
 
 import it.uninafoodlab.model.domain.Corso;
+import it.uninafoodlab.model.domain.Ricetta;
+import it.uninafoodlab.model.domain.SessioneOnline;
+import it.uninafoodlab.model.domain.SessionePratica;
 import it.uninafoodlab.model.enums.Categoria;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Data Access Object per la gestione dei Corsi nel database.
+ * I corsi letti e scritti passano da {@link MappaIdentita#CORSI}: una sola istanza per corso
+ * nella sessione, e i corsi di uno chef già letti vengono restituiti dalla memoria.
  */
 public class CorsoDAO {
     
+    private static final MapperRighe<Corso> MAPPER = MapperRighe.di(r -> new Corso(
+            r.intero(0), r.testo(1), Categoria.fromString(r.testo(2)), r.data(3),
+            r.intero(4), r.intero(5), r.intero(6)),
+        "ID_Corso", "Titolo", "Categoria", "DataInizio", "Frequenza", "NumeroSessioni", "ID_Chef");
+    
+    /**
+     * Corso con le statistiche mostrate nella dashboard.
+     */
+    public static class RiepilogoCorso {
+        private final Corso     corso;
+        private final int       numIscritti;
+        private final int       numSessioniOnline;
+        private final int       numSessioniPratiche;
+        private final int       numRicette;
+        private final LocalDate prossimaData;
+        private final LocalTime prossimaOra;
+        private final boolean   prossimaOnline;
+
+        public RiepilogoCorso(Corso corso, int numIscritti, int numSessioniOnline, int numSessioniPratiche,
+                              int numRicette, LocalDate prossimaData, LocalTime prossimaOra, boolean prossimaOnline) {
+            this.corso               = corso;
+            this.numIscritti         = numIscritti;
+            this.numSessioniOnline   = numSessioniOnline;
+            this.numSessioniPratiche = numSessioniPratiche;
+            this.numRicette          = numRicette;
+            this.prossimaData        = prossimaData;
+            this.prossimaOra         = prossimaOra;
+            this.prossimaOnline      = prossimaOnline;
+        }
+
+        public Corso     getCorso()               { return corso; }
+        public int       getNumIscritti()         { return numIscritti; }
+        public int       getNumSessioniOnline()   { return numSessioniOnline; }
+        public int       getNumSessioniPratiche() { return numSessioniPratiche; }
+        public int       getNumRicette()          { return numRicette; }
+        /** @return data della prossima sessione, null se non ce ne sono in programma */
+        public LocalDate getProssimaData()        { return prossimaData; }
+        /** @return ora della prossima sessione (può essere null anche se la data è nota) */
+        public LocalTime getProssimaOra()         { return prossimaOra; }
+        public boolean   isProssimaOnline()       { return prossimaOnline; }
+        public boolean   hasProssimaSessione()    { return prossimaData != null; }
+
+        /** @return stesso riepilogo riferito a un'altra istanza dello stesso corso */
+        RiepilogoCorso conCorso(Corso altro) {
+            if (altro == corso) return this;
+            return new RiepilogoCorso(altro, numIscritti, numSessioniOnline, numSessioniPratiche,
+                                      numRicette, prossimaData, prossimaOra, prossimaOnline);
+        }
+    }
+    
+    /*
+     * Sessioni online e pratiche in un'unica relazione: i conteggi sono aggregati per corso,
+     * la prossima sessione è la prima per data e ora tra quelle non ancora iniziate
+     * (ROW_NUMBER per corso, ora mancante in fondo come nel dettaglio corso).
+     */
+    private static final String SQL_RIEPILOGHI =
+        "WITH Corsi AS ( " +
+        "  SELECT " + MAPPER.colonne() + " FROM Corso WHERE ID_Chef = ? " +
+        "), Sessioni AS ( " +
+        "  SELECT S.ID_Corso, S.Data, S.Ora, TRUE AS Online " +
+        "  FROM SessioneOnline S JOIN Corsi C ON C.ID_Corso = S.ID_Corso " +
+        "  UNION ALL " +
+        "  SELECT S.ID_Corso, S.Data, S.Ora, FALSE " +
+        "  FROM SessionePratica S JOIN Corsi C ON C.ID_Corso = S.ID_Corso " +
+        "), ConteggioSessioni AS ( " +
+        "  SELECT ID_Corso, " +
+        "         COUNT(*) FILTER (WHERE Online)     AS NumSessioniOnline, " +
+        "         COUNT(*) FILTER (WHERE NOT Online) AS NumSessioniPratiche " +
+        "  FROM Sessioni GROUP BY ID_Corso " +
+        "), Prossime AS ( " +
+        "  SELECT ID_Corso, Data, Ora, Online, " +
+        "         ROW_NUMBER() OVER (PARTITION BY ID_Corso ORDER BY Data, Ora NULLS LAST) AS Posizione " +
+        "  FROM Sessioni " +
+        "  WHERE Data > CURRENT_DATE OR (Data = CURRENT_DATE AND (Ora IS NULL OR Ora >= LOCALTIME)) " +
+        "), ConteggioRicette AS ( " +
+        "  SELECT S.ID_Corso, COUNT(*) AS NumRicette " +
+        "  FROM Ricetta R JOIN SessionePratica S ON S.ID_SessionePratica = R.ID_SessionePratica " +
+        "  JOIN Corsi C ON C.ID_Corso = S.ID_Corso " +
+        "  GROUP BY S.ID_Corso " +
+        "), ConteggioIscritti AS ( " +
+        "  SELECT I.ID_Corso, COUNT(*) AS NumIscritti " +
+        "  FROM Iscrizione I JOIN Corsi C ON C.ID_Corso = I.ID_Corso " +
+        "  GROUP BY I.ID_Corso " +
+        ") " +
+        "SELECT " + MAPPER.colonne("C") + ", " +
+        "       COALESCE(CI.NumIscritti, 0)         AS NumIscritti, " +
+        "       COALESCE(CS.NumSessioniOnline, 0)   AS NumSessioniOnline, " +
+        "       COALESCE(CS.NumSessioniPratiche, 0) AS NumSessioniPratiche, " +
+        "       COALESCE(CR.NumRicette, 0)          AS NumRicette, " +
+        "       P.Data AS ProssimaData, P.Ora AS ProssimaOra, P.Online AS ProssimaOnline " +
+        "FROM Corsi C " +
+        "LEFT JOIN ConteggioIscritti CI ON CI.ID_Corso = C.ID_Corso " +
+        "LEFT JOIN ConteggioSessioni CS ON CS.ID_Corso = C.ID_Corso " +
+        "LEFT JOIN ConteggioRicette  CR ON CR.ID_Corso = C.ID_Corso " +
+        "LEFT JOIN Prossime          P  ON P.ID_Corso  = C.ID_Corso AND P.Posizione = 1 " +
+        "ORDER BY C.DataInizio DESC";
+    
     /**
      * Inserisce un nuovo corso nel database.
      * 
@@ -37,6 +141,8 @@ public class CorsoDAO {
             if (affectedRows > 0) {
                 ResultSet generatedKeys = ps.getGeneratedKeys();
                 if (generatedKeys.next()) {
+                    // L'oggetto non riceve l'ID: i corsi dello chef vanno riletti
+                    MappaIdentita.CORSI.rimuoviGruppo(corso.getIdChef());
                     return generatedKeys.getInt(1);
                 }
             }
@@ -49,6 +155,117 @@ public class CorsoDAO {
         return -1;
     }
     
+    /**
+     * Inserisce un corso completo (sessioni online, sessioni pratiche, ricette e ingredienti)
+     * in un'unica transazione, usando un batch JDBC per ciascuna tabella.
+     * In caso di errore non resta nulla del corso nel database.
+     * 
+     * @param corso              corso da inserire
+     * @param sessioniOnline     sessioni online del corso
+     * @param sessioniPratiche   sessioni pratiche del corso
+     * @param ricettePerSessione ricette di ciascuna sessione pratica, nello stesso ordine di sessioniPratiche
+     * @return ID del corso inserito, -1 in caso di errore
+     */
+    public static int insertConSessioni(Corso corso, List<SessioneOnline> sessioniOnline,
+                                        List<SessionePratica> sessioniPratiche,
+                                        List<List<Ricetta>> ricettePerSessione) {
+        String sqlCorso = "INSERT INTO Corso (Titolo, Categoria, DataInizio, Frequenza, NumeroSessioni, ID_Chef) " +
+                          "VALUES (?, ?::categoria_enum, ?, ?, ?, ?)";
+        String sqlOnline = "INSERT INTO SessioneOnline (Data, Ora, Durata, Link, ID_Corso) VALUES (?, ?, ?, ?, ?)";
+        String sqlPratica = "INSERT INTO SessionePratica (Data, Ora, Durata, Luogo, ID_Corso) VALUES (?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1. Corso
+                int idCorso;
+                try (PreparedStatement ps = conn.prepareStatement(sqlCorso, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, corso.getTitolo());
+                    ps.setString(2, corso.getCategoria().name());
+                    ps.setDate(3, Date.valueOf(corso.getDataInizio()));
+                    ps.setInt(4, corso.getFrequenza());
+                    ps.setInt(5, corso.getNumeroSessioni());
+                    ps.setInt(6, corso.getIdChef());
+                    ps.executeUpdate();
+                    
+                    ResultSet keys = ps.getGeneratedKeys();
+                    if (!keys.next()) {
+                        throw new SQLException("ID non restituito per il corso " + corso.getTitolo());
+                    }
+                    idCorso = keys.getInt(1);
+                }
+                
+                // 2. Sessioni online: nessuna riga figlia, le chiavi non servono
+                if (!sessioniOnline.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(sqlOnline)) {
+                        for (SessioneOnline s : sessioniOnline) {
+                            s.setIdCorso(idCorso);
+                            ps.setDate(1, Date.valueOf(s.getData()));
+                            ps.setTime(2, s.getOra() != null ? Time.valueOf(s.getOra()) : null);
+                            ps.setInt(3, s.getDurata());
+                            ps.setString(4, s.getLink());
+                            ps.setInt(5, idCorso);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                
+                // 3. Sessioni pratiche: le chiavi servono alle ricette
+                List<Ricetta> ricette = new ArrayList<>();
+                if (!sessioniPratiche.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(sqlPratica, Statement.RETURN_GENERATED_KEYS)) {
+                        for (SessionePratica s : sessioniPratiche) {
+                            s.setIdCorso(idCorso);
+                            ps.setDate(1, Date.valueOf(s.getData()));
+                            ps.setTime(2, s.getOra() != null ? Time.valueOf(s.getOra()) : null);
+                            ps.setInt(3, s.getDurata());
+                            ps.setString(4, s.getLuogo());
+                            ps.setInt(5, idCorso);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        
+                        ResultSet keys = ps.getGeneratedKeys();
+                        for (int i = 0; i < sessioniPratiche.size(); i++) {
+                            if (!keys.next()) {
+                                throw new SQLException("ID non restituito per la sessione pratica n. " + (i + 1));
+                            }
+                            int idSessione = keys.getInt(1);
+                            sessioniPratiche.get(i).setIdSessionePratica(idSessione);
+                            
+                            if (i < ricettePerSessione.size() && ricettePerSessione.get(i) != null) {
+                                for (Ricetta r : ricettePerSessione.get(i)) {
+                                    r.setIdSessionePratica(idSessione);
+                                    ricette.add(r);
+                                }
+                            }
+                        }
+                    }
+                }
+                
+                // 4. Ricette e ingredienti
+                RicettaDAO.insertBatch(conn, ricette);
+                
+                conn.commit();
+                corso.setIdCorso(idCorso);
+                ReportCache.invalidaChef(corso.getIdChef());
+                MappaIdentita.CORSI.aggiungiAGruppo(corso.getIdChef(), MappaIdentita.CORSI.unisci(corso));
+                return idCorso;
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore inserimento corso con sessioni: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
     /**
      * Ottiene tutti i corsi di uno chef.
      * 
@@ -56,8 +273,15 @@ public class CorsoDAO {
      * @return lista di corsi dello chef
      */
     public static List<Corso> getByChef(int idChef) {
+        List<Corso> inMemoria = MappaIdentita.CORSI.getGruppo(idChef);
+        if (inMemoria != null) {
+            // Stesso ordine della query: le date possono essere cambiate dopo la lettura
+            inMemoria.sort(Comparator.comparing(Corso::getDataInizio).reversed());
+            return inMemoria;
+        }
+        
         List<Corso> corsi = new ArrayList<>();
-        String sql = "SELECT * FROM Corso WHERE ID_Chef = ? ORDER BY DataInizio DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Corso WHERE ID_Chef = ? ORDER BY DataInizio DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -66,9 +290,12 @@ public class CorsoDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                corsi.add(createCorsoFromResultSet(rs));
+                corsi.add(MAPPER.mappa(rs));
             }
             
+            MappaIdentita.CORSI.unisciTutti(corsi);
+            MappaIdentita.CORSI.registraGruppo(idChef, corsi);
+            
         } catch (SQLException e) {
             System.err.println("Errore recupero corsi chef: " + e.getMessage());
             e.printStackTrace();
@@ -77,6 +304,57 @@ public class CorsoDAO {
         return corsi;
     }
     
+    /**
+     * Ottiene i corsi di uno chef con iscritti, sessioni, ricette e prossima sessione,
+     * con un'unica query. Registra i corsi letti come gruppo dello chef
+     * (vedi {@link #getByChef(int)}); i riepiloghi non vengono tenuti in memoria.
+     * 
+     * @param idChef ID dello chef
+     * @return riepiloghi dei corsi dello chef, ordinati per data di inizio decrescente
+     */
+    public static List<RiepilogoCorso> getRiepiloghiByChef(int idChef) {
+        List<RiepilogoCorso> riepiloghi = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_RIEPILOGHI)) {
+            
+            ps.setInt(1, idChef);
+            ResultSet rs = ps.executeQuery();
+            
+            // Le statistiche seguono le colonne del corso, nell'ordine di SQL_RIEPILOGHI
+            MapperRighe.Riga statistiche = MapperRighe.riga(rs, MAPPER.numeroColonne() + 1);
+            List<Corso> corsi = new ArrayList<>();
+            while (rs.next()) {
+                Corso corso = MAPPER.mappa(rs);
+                corsi.add(corso);
+                
+                riepiloghi.add(new RiepilogoCorso(
+                    corso,
+                    statistiche.intero(0),
+                    statistiche.intero(1),
+                    statistiche.intero(2),
+                    statistiche.intero(3),
+                    statistiche.data(4),
+                    statistiche.ora(5),
+                    statistiche.booleano(6)
+                ));
+            }
+            
+            // Un solo passaggio sull'EDT per tutti i corsi, poi i riepiloghi puntano alle istanze canoniche
+            MappaIdentita.CORSI.unisciTutti(corsi);
+            MappaIdentita.CORSI.registraGruppo(idChef, corsi);
+            for (int i = 0; i < riepiloghi.size(); i++) {
+                riepiloghi.set(i, riepiloghi.get(i).conCorso(corsi.get(i)));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore recupero riepilogo corsi chef: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return riepiloghi;
+    }
+    
     /**
      * Ottiene i corsi di uno chef filtrati per categoria.
      * 
@@ -86,7 +364,7 @@ public class CorsoDAO {
      */
     public static List<Corso> getByChefAndCategoria(int idChef, Categoria categoria) {
         List<Corso> corsi = new ArrayList<>();
-        String sql = "SELECT * FROM Corso WHERE ID_Chef = ? AND Categoria = ?::categoria_enum ORDER BY DataInizio DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Corso WHERE ID_Chef = ? AND Categoria = ?::categoria_enum ORDER BY DataInizio DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -96,8 +374,9 @@ public class CorsoDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                corsi.add(createCorsoFromResultSet(rs));
+                corsi.add(MAPPER.mappa(rs));
             }
+            MappaIdentita.CORSI.unisciTutti(corsi);
             
         } catch (SQLException e) {
             System.err.println("Errore recupero corsi per categoria: " + e.getMessage());
@@ -114,7 +393,10 @@ public class CorsoDAO {
      * @return oggetto Corso se trovato, null altrimenti
      */
     public static Corso getById(int idCorso) {
-        String sql = "SELECT * FROM Corso WHERE ID_Corso = ?";
+        Corso inMemoria = MappaIdentita.CORSI.get(idCorso);
+        if (inMemoria != null) return inMemoria;
+        
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Corso WHERE ID_Corso = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -123,7 +405,7 @@ public class CorsoDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createCorsoFromResultSet(rs);
+                return MappaIdentita.CORSI.unisci(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -154,13 +436,18 @@ public class CorsoDAO {
             ps.setInt(5, corso.getNumeroSessioni());
             ps.setInt(6, corso.getIdCorso());
             
-            return ps.executeUpdate() > 0;
+            if (ps.executeUpdate() > 0) {
+                MappaIdentita.CORSI.unisci(corso);
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Errore aggiornamento corso: " + e.getMessage());
             e.printStackTrace();
         }
         
+        // L'istanza in memoria potrebbe essere stata modificata prima dell'update fallito
+        MappaIdentita.CORSI.rimuovi(corso.getIdCorso());
         return false;
     }
     
@@ -171,13 +458,20 @@ public class CorsoDAO {
      * @return true se eliminazione riuscita, false altrimenti
      */
     public static boolean delete(int idCorso) {
-        String sql = "DELETE FROM Corso WHERE ID_Corso = ?";
+        String sql = "DELETE FROM Corso WHERE ID_Corso = ? RETURNING ID_Chef";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
+            // Le sessioni del corso spariscono con lui (CASCADE): i report dello chef cambiano
             ps.setInt(1, idCorso);
-            return ps.executeUpdate() > 0;
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) return false;
+            ReportCache.invalidaChef(rs.getInt(1));
+            MappaIdentita.CORSI.rimuovi(idCorso);
+            MappaIdentita.SESSIONI_ONLINE.rimuoviSe(s -> s.getIdCorso() == idCorso);
+            MappaIdentita.SESSIONI_PRATICHE.rimuoviSe(s -> s.getIdCorso() == idCorso);
+            return true;
             
         } catch (SQLException e) {
             System.err.println("Errore eliminazione corso: " + e.getMessage());
@@ -186,23 +480,4 @@ public class CorsoDAO {
         
         return false;
     }
-    
-    /**
-     * Crea un oggetto Corso da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati del corso
-     * @return oggetto Corso
-     * @throws SQLException se errore nel ResultSet
-     */
-    private static Corso createCorsoFromResultSet(ResultSet rs) throws SQLException {
-        return new Corso(
-            rs.getInt("ID_Corso"),
-            rs.getString("Titolo"),
-            Categoria.fromString(rs.getString("Categoria")),
-            rs.getDate("DataInizio").toLocalDate(),
-            rs.getInt("Frequenza"),
-            rs.getInt("NumeroSessioni"),
-            rs.getInt("ID_Chef")
-        );
-    }
 }
\ No newline at end of file
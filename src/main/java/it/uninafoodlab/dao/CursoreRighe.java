@@ -0,0 +1,119 @@
+package it.uninafoodlab.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Lettura a flusso di query con molte righe (esportazioni, elaborazioni massive).
+ *
+ * Con l'autocommit attivo il driver PostgreSQL carica in memoria l'intero risultato prima
+ * di restituire la prima riga. Qui la query gira in una transazione di sola lettura con
+ * un fetch size: il driver usa un cursore lato server e ne legge {@link #FETCH_SIZE} righe
+ * alla volta, così la memoria occupata non dipende dal numero di righe.
+ *
+ * Lo statement è preparato fuori da {@link StatementCache}, perché il fetch size resti
+ * legato a questa lettura. Alla chiusura la connessione torna al pool, che chiude la
+ * transazione e ripristina autocommit e sola lettura.
+ */
+final class CursoreRighe {
+
+    /** Righe lette dal server a ogni round trip. */
+    static final int FETCH_SIZE = 500;
+
+    /**
+     * Imposta i parametri della query.
+     */
+    @FunctionalInterface
+    interface Parametri {
+        void imposta(PreparedStatement ps) throws SQLException;
+    }
+
+    static final Parametri NESSUN_PARAMETRO = ps -> {};
+
+    private CursoreRighe() {}
+
+    // ==================== METODI ====================
+
+    /**
+     * Apre un flusso sulle righe della query. Il flusso tiene in prestito una connessione
+     * finché non viene chiuso: va usato con try-with-resources.
+     *
+     * @return flusso di oggetti, vuoto se la query non può essere eseguita
+     */
+    static <T> Stream<T> flusso(String sql, Parametri parametri, MapperRighe<T> mapper) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return Stream.empty();
+
+        PreparedStatement ps = null;
+        try {
+            ps = prepara(conn, sql, parametri);
+            ResultSet rs = ps.executeQuery();
+            PreparedStatement statement = ps;
+            return mapper.flusso(rs).onClose(() -> chiudi(rs, statement, conn));
+
+        } catch (SQLException e) {
+            System.err.println("Errore apertura lettura a flusso: " + e.getMessage());
+            e.printStackTrace();
+            chiudi(null, ps, conn);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Passa al visitatore le righe della query una alla volta.
+     *
+     * @return true se tutte le righe sono state lette, false in caso di errore
+     */
+    static <T> boolean perOgni(String sql, Parametri parametri, MapperRighe<T> mapper,
+                               Consumer<? super T> visitatore) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = prepara(conn, sql, parametri);
+             ResultSet rs = ps.executeQuery()) {
+
+            mapper.perOgni(rs, visitatore);
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Errore lettura a flusso: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static PreparedStatement prepara(Connection conn, String sql, Parametri parametri) throws SQLException {
+        conn.setAutoCommit(false);
+        conn.setReadOnly(true);
+        // Con tipo e concorrenza espliciti il pool non usa la cache degli statement
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            ps.setFetchSize(FETCH_SIZE);
+            parametri.imposta(ps);
+            return ps;
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    private static void chiudi(ResultSet rs, PreparedStatement ps, Connection conn) {
+        try {
+            if (rs != null) rs.close();
+            if (ps != null) ps.close();
+        } catch (SQLException e) {
+            System.err.println("Errore chiusura lettura a flusso: " + e.getMessage());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Errore chiusura connessione: " + e.getMessage());
+            }
+        }
+    }
+}
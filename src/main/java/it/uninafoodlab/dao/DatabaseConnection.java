@@ -3,13 +3,12 @@ package it.uninafoodlab.dao;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 public class DatabaseConnection {
 
-    private static Connection connection = null;
+    private static ConnectionPool pool = null;
     private static Properties dbProperties = null;
 
     private DatabaseConnection() {}
@@ -41,66 +40,149 @@ public class DatabaseConnection {
         return dbProperties;
     }
 
-    public static Connection getConnection() {
+    /**
+     * Crea il pool leggendo URL, credenziali e parametri dal file db.properties.
+     * Chiavi supportate (tutte opzionali):
+     *   db.url, db.user, db.password, db.driver,
+     *   db.pool.maxSize, db.pool.timeoutMs, db.pool.validationTimeoutSec, db.pool.idleValidationMs,
+     *   db.statementCache.size, db.prepareThreshold
+     */
+    private static synchronized ConnectionPool getPool() throws ClassNotFoundException, SQLException {
+        if (pool == null) {
+            Properties props = loadProperties();
+
+            String url = "jdbc:postgresql://localhost:5432/uninafoodlab_app";
+            String user = "postgres";
+            String password = "";
+
+            if (props != null) {
+                url = props.getProperty("db.url", url);
+                user = props.getProperty("db.user", user);
+                password = props.getProperty("db.password", password);
+
+                Class.forName(props.getProperty("db.driver", "org.postgresql.Driver"));
+            } else {
+                // Se il file properties non esiste, carica comunque il driver PostgreSQL
+                Class.forName("org.postgresql.Driver");
+                props = new Properties();
+            }
+
+            pool = new ConnectionPool(url, user, password,
+                leggiIntero(props, "db.pool.maxSize", "10"),
+                leggiLungo(props, "db.pool.timeoutMs", "5000"),
+                leggiIntero(props, "db.pool.validationTimeoutSec", "2"),
+                leggiLungo(props, "db.pool.idleValidationMs", "30000"),
+                leggiIntero(props, "db.statementCache.size", "64"),
+                leggiIntero(props, "db.prepareThreshold", "1"));
+        }
+        return pool;
+    }
+
+    /**
+     * Legge un parametro intero del pool.
+     *
+     * @throws SQLException se il valore non è un intero valido, con la chiave incriminata nel messaggio
+     */
+    private static int leggiIntero(Properties props, String chiave, String predefinito) throws SQLException {
+        String valore = props.getProperty(chiave, predefinito).trim();
         try {
-            if (connection == null || connection.isClosed()) {
-                Properties props = loadProperties();
-
-                String url = "jdbc:postgresql://localhost:5432/uninafoodlab_app";
-                String user = "postgres";
-                String password = "";
-
-                if (props != null) {
-                    url = props.getProperty("db.url", url);
-                    user = props.getProperty("db.user", user);
-                    password = props.getProperty("db.password", password);
-
-                    Class.forName(props.getProperty("db.driver", "org.postgresql.Driver"));
-                } else {
-                    // Se il file properties non esiste, carica comunque il driver PostgreSQL
-                    Class.forName("org.postgresql.Driver");
-                }
+            return Integer.parseInt(valore);
+        } catch (NumberFormatException e) {
+            throw valoreNonValido(chiave, valore, e);
+        }
+    }
 
-                connection = DriverManager.getConnection(url, user, password);
-            }
+    /**
+     * Legge un parametro del pool espresso in millisecondi.
+     *
+     * @throws SQLException se il valore non è un intero valido, con la chiave incriminata nel messaggio
+     */
+    private static long leggiLungo(Properties props, String chiave, String predefinito) throws SQLException {
+        String valore = props.getProperty(chiave, predefinito).trim();
+        try {
+            return Long.parseLong(valore);
+        } catch (NumberFormatException e) {
+            throw valoreNonValido(chiave, valore, e);
+        }
+    }
 
-            return connection;
+    private static SQLException valoreNonValido(String chiave, String valore, NumberFormatException causa) {
+        return new SQLException("Configurazione db.properties non valida: " + chiave + "=\"" + valore + "\" non è un numero intero", causa);
+    }
+
+    /**
+     * Prende in prestito una connessione dal pool.
+     * Chiudere la connessione (anche tramite try-with-resources) la restituisce al pool.
+     *
+     * @return connessione in prestito, null in caso di errore
+     */
+    public static Connection getConnection() {
+        try {
+            return getPool().getConnection();
 
         } catch (ClassNotFoundException e) {
             System.err.println("Driver PostgreSQL non trovato!");
             e.printStackTrace();
             return null;
         } catch (SQLException e) {
-            System.err.println("Errore connessione database");
+            System.err.println("Errore connessione database: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
 
-    public static void closeConnection() {
+    /**
+     * Apre una connessione dedicata, fuori dal pool, per un uso di lunga durata.
+     * Chiuderla la chiude davvero.
+     *
+     * @return connessione dedicata, null in caso di errore
+     */
+    public static Connection getConnessioneDedicata() {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Connessione chiusa");
-            }
-        } catch (SQLException e) {
+            return getPool().apriConnessioneDedicata();
+
+        } catch (ClassNotFoundException e) {
+            System.err.println("Driver PostgreSQL non trovato!");
             e.printStackTrace();
+            return null;
+        } catch (SQLException e) {
+            System.err.println("Errore apertura connessione dedicata: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Restituisce le statistiche del pool, null se il pool non è ancora stato creato.
+     */
+    public static synchronized ConnectionPool.Statistiche getPoolStatistiche() {
+        return pool != null ? pool.getStatistiche() : null;
+    }
+
+    /**
+     * Chiude il pool e tutte le connessioni inattive.
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.chiudi();
+            pool = null;
+            System.out.println("Connessioni chiuse");
         }
     }
 
     public static boolean testConnection() {
-        Connection conn = getConnection();
-        if (conn != null) {
-            try (var stmt = conn.createStatement();
-                 var rs = stmt.executeQuery("SELECT 1")) {
-                if (rs.next()) {
-                    System.out.println("Test connessione riuscito!");
-                    return true;
+        try (Connection conn = getConnection()) {
+            if (conn != null) {
+                try (var stmt = conn.createStatement();
+                     var rs = stmt.executeQuery("SELECT 1")) {
+                    if (rs.next()) {
+                        System.out.println("Test connessione riuscito!");
+                        return true;
+                    }
                 }
-            } catch (SQLException e) {
-                System.err.println("Test connessione fallito!");
-                e.printStackTrace();
             }
+        } catch (SQLException e) {
+            System.err.println("Test connessione fallito!");
+            e.printStackTrace();
         }
         return false;
     }
@@ -0,0 +1,164 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Ingrediente;
+import it.uninafoodlab.model.domain.Ricetta;
+import it.uninafoodlab.model.domain.RicettaIngrediente;
+import it.uninafoodlab.model.domain.SessioneOnline;
+import it.uninafoodlab.model.domain.SessionePratica;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object che carica in blocco il dettaglio di un corso:
+ * sessioni online e pratiche, ricette con ingredienti e numero di iscritti.
+ * Usa due sole query sulla stessa connessione, indipendentemente dal numero di ricette.
+ * Le sessioni lette aggiornano le istanze già note in {@link MappaIdentita}.
+ */
+public class DettaglioCorsoDAO {
+
+    // ==================== CLASSE INTERNA ====================
+
+    /**
+     * Classe interna che raccoglie tutti i dati mostrati nel dettaglio corso.
+     */
+    public static class DettaglioCorso {
+        private final List<SessioneOnline>  sessioniOnline;
+        private final List<SessionePratica> sessioniPratiche;
+        private final List<Ricetta>         ricette;
+        private final int                   numIscritti;
+
+        public DettaglioCorso(List<SessioneOnline> sessioniOnline, List<SessionePratica> sessioniPratiche,
+                              List<Ricetta> ricette, int numIscritti) {
+            this.sessioniOnline   = sessioniOnline;
+            this.sessioniPratiche = sessioniPratiche;
+            this.ricette          = ricette;
+            this.numIscritti      = numIscritti;
+        }
+
+        public List<SessioneOnline>  getSessioniOnline()   { return sessioniOnline; }
+        public List<SessionePratica> getSessioniPratiche() { return sessioniPratiche; }
+        public List<Ricetta>         getRicette()          { return ricette; }
+        public int                   getNumIscritti()      { return numIscritti; }
+    }
+
+    // ==================== QUERY ====================
+
+    // Sessioni online e pratiche escono dalla stessa UNION: stesse colonne, costruttori diversi
+    private static final MapperRighe<SessioneOnline> MAPPER_ONLINE = MapperRighe.di(r -> new SessioneOnline(
+            r.intero(0), r.data(1), r.ora(2), r.intero(3), r.testo(4), r.intero(5)),
+        "ID_Sessione", "Data", "Ora", "Durata", "Dettaglio", "ID_Corso");
+
+    private static final MapperRighe<SessionePratica> MAPPER_PRATICA = MapperRighe.di(r -> new SessionePratica(
+            r.intero(0), r.data(1), r.ora(2), r.intero(3), r.testo(4), r.intero(5)),
+        "ID_Sessione", "Data", "Ora", "Durata", "Dettaglio", "ID_Corso");
+
+    /**
+     * Sessioni online e pratiche unite in un'unica lista, più il numero di iscritti.
+     * Il LEFT JOIN sulla CTE Iscritti garantisce almeno una riga anche senza sessioni.
+     * Colonne: NumIscritti, Tipo, poi quelle dei mapper delle sessioni.
+     */
+    private static final String SQL_SESSIONI =
+        "WITH Iscritti AS ( " +
+        "  SELECT COUNT(*) AS NumIscritti FROM Iscrizione WHERE ID_Corso = ? " +
+        "), Sessioni AS ( " +
+        "  SELECT 'ONLINE' AS Tipo, ID_SessioneOnline AS ID_Sessione, Data, Ora, Durata, Link AS Dettaglio, ID_Corso " +
+        "  FROM SessioneOnline WHERE ID_Corso = ? " +
+        "  UNION ALL " +
+        "  SELECT 'PRATICA', ID_SessionePratica, Data, Ora, Durata, Luogo, ID_Corso " +
+        "  FROM SessionePratica WHERE ID_Corso = ? " +
+        ") " +
+        "SELECT I.NumIscritti, S.Tipo, " + MAPPER_ONLINE.colonne("S") + " " +
+        "FROM Iscritti I LEFT JOIN Sessioni S ON TRUE " +
+        "ORDER BY S.Data, S.Ora";
+
+    /**
+     * Ricette del corso con i relativi ingredienti (una riga per coppia ricetta-ingrediente).
+     * Colonne: quelle della ricetta, Quantita, poi quelle dell'ingrediente (NULL se la ricetta non ne ha).
+     */
+    private static final String SQL_RICETTE =
+        "SELECT " + RicettaDAO.MAPPER.colonne("R") + ", RI.Quantita, " + IngredienteDAO.MAPPER.colonne("I") + " " +
+        "FROM Ricetta R " +
+        "JOIN SessionePratica SP ON R.ID_SessionePratica = SP.ID_SessionePratica " +
+        "LEFT JOIN Ricetta_Ingrediente RI ON RI.ID_Ricetta = R.ID_Ricetta " +
+        "LEFT JOIN Ingrediente I ON I.ID_Ingrediente = RI.ID_Ingrediente " +
+        "WHERE SP.ID_Corso = ? " +
+        "ORDER BY R.Nome, R.ID_Ricetta, I.Nome";
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Carica il dettaglio completo di un corso con un numero costante di round trip.
+     *
+     * @param idCorso ID del corso
+     * @return oggetto DettaglioCorso, null in caso di errore
+     */
+    public static DettaglioCorso getByCorso(int idCorso) {
+        List<SessioneOnline>  online   = new ArrayList<>();
+        List<SessionePratica> pratiche = new ArrayList<>();
+        int numIscritti = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_SESSIONI)) {
+                ps.setInt(1, idCorso);
+                ps.setInt(2, idCorso);
+                ps.setInt(3, idCorso);
+                ResultSet rs = ps.executeQuery();
+                MapperRighe.Riga intestazione = MapperRighe.riga(rs, 1);
+
+                while (rs.next()) {
+                    numIscritti = intestazione.intero(0);
+                    String tipo = intestazione.testo(1);
+                    if (tipo == null) continue;   // corso senza sessioni
+
+                    if ("ONLINE".equals(tipo)) online.add(MAPPER_ONLINE.mappa(rs, 3));
+                    else pratiche.add(MAPPER_PRATICA.mappa(rs, 3));
+                }
+            }
+
+            Map<Integer, Ricetta> ricette = new LinkedHashMap<>();
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_RICETTE)) {
+                ps.setInt(1, idCorso);
+                ResultSet rs = ps.executeQuery();
+                int colonneRicetta = RicettaDAO.MAPPER.numeroColonne();
+                MapperRighe.Riga chiave = MapperRighe.riga(rs, 1);
+                // Quantita seguita dalle colonne dell'ingrediente
+                MapperRighe.Riga ingrediente = MapperRighe.riga(rs, colonneRicetta + 1);
+
+                while (rs.next()) {
+                    int idRicetta = chiave.intero(0);
+                    Ricetta ricetta = ricette.get(idRicetta);
+                    if (ricetta == null) {
+                        ricetta = RicettaDAO.MAPPER.mappa(rs);
+                        ricette.put(idRicetta, ricetta);
+                    }
+
+                    if (ingrediente.interoONull(1) == null) continue;   // ricetta senza ingredienti
+
+                    Ingrediente i = IngredienteDAO.MAPPER.mappa(rs, colonneRicetta + 2);
+                    ricetta.addIngrediente(new RicettaIngrediente(
+                        idRicetta,
+                        i.getIdIngrediente(),
+                        ingrediente.decimale(0),
+                        null,
+                        i
+                    ));
+                }
+            }
+
+            MappaIdentita.SESSIONI_ONLINE.unisciTutti(online);
+            MappaIdentita.SESSIONI_PRATICHE.unisciTutti(pratiche);
+            return new DettaglioCorso(online, pratiche, new ArrayList<>(ricette.values()), numIscritti);
+
+        } catch (SQLException e) {
+            System.err.println("Errore caricamento dettaglio corso: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,117 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.dao.BulkLoadDAO.EsitoCaricamento;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importazione di file CSV tramite {@link BulkLoadDAO}.
+ *
+ * La prima riga del file è l'intestazione: indica le colonne presenti e il loro ordine
+ * (maiuscole/minuscole indifferenti). Il separatore, virgola o punto e virgola,
+ * viene riconosciuto dall'intestazione. Il resto del file è inviato al server così com'è,
+ * senza essere caricato in memoria.
+ *
+ * Colonne ammesse:
+ *   - ingredienti: Nome, Categoria, UnitaMisura
+ *   - iscrizioni:  ID_Studente oppure Matricola, ID_Corso
+ */
+public class ImportatoreCsv {
+
+    private static final List<String> COLONNE_INGREDIENTE = List.of("Nome", "Categoria", "UnitaMisura");
+    private static final List<String> COLONNE_ISCRIZIONE  = List.of("ID_Studente", "Matricola", "ID_Corso");
+
+    /**
+     * Importa un catalogo di ingredienti da file CSV (UTF-8).
+     *
+     * @param file              file CSV con intestazione
+     * @param aggiornaEsistenti se true, un nome già presente con dati diversi aggiorna il record esistente
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento importaIngredienti(Path file, boolean aggiornaEsistenti) {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Intestazione h = leggiIntestazione(in, COLONNE_INGREDIENTE);
+            richiedi(h, "Nome");
+            richiedi(h, "Categoria");
+            richiedi(h, "UnitaMisura");
+            return BulkLoadDAO.caricaIngredientiCsv(in, h.colonne(), h.separatore(), aggiornaEsistenti);
+
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Errore lettura CSV ingredienti " + file + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Importa le iscrizioni di una coorte di studenti da file CSV (UTF-8).
+     *
+     * @param file file CSV con intestazione
+     * @return esito del caricamento, null in caso di errore
+     */
+    public static EsitoCaricamento importaIscrizioni(Path file) {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Intestazione h = leggiIntestazione(in, COLONNE_ISCRIZIONE);
+            if (!h.colonne().contains("ID_Studente") && !h.colonne().contains("Matricola")) {
+                throw new IllegalArgumentException("colonna ID_Studente o Matricola mancante");
+            }
+            richiedi(h, "ID_Corso");
+            return BulkLoadDAO.caricaIscrizioniCsv(in, h.colonne(), h.separatore());
+
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Errore lettura CSV iscrizioni " + file + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private record Intestazione(List<String> colonne, char separatore) {}
+
+    /**
+     * Legge la riga di intestazione e la traduce nei nomi di colonna canonici.
+     * Solo i nomi ammessi finiscono nel comando COPY.
+     */
+    private static Intestazione leggiIntestazione(BufferedReader in, List<String> ammesse) throws IOException {
+        String riga = in.readLine();
+        if (riga == null) {
+            throw new IllegalArgumentException("file vuoto");
+        }
+        if (riga.startsWith("\uFEFF")) {
+            riga = riga.substring(1);   // BOM di Excel
+        }
+
+        long puntiEVirgola = riga.chars().filter(c -> c == ';').count();
+        long virgole       = riga.chars().filter(c -> c == ',').count();
+        char separatore    = puntiEVirgola > virgole ? ';' : ',';
+
+        List<String> colonne = new ArrayList<>();
+        for (String campo : riga.split(String.valueOf(separatore), -1)) {
+            String nome = campo.trim().replace("\"", "");
+            String canonico = ammesse.stream()
+                .filter(a -> a.equalsIgnoreCase(nome))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("colonna non riconosciuta: '" + nome + "'"));
+            if (colonne.contains(canonico)) {
+                throw new IllegalArgumentException("colonna ripetuta: " + canonico);
+            }
+            colonne.add(canonico);
+        }
+
+        return new Intestazione(colonne, separatore);
+    }
+
+    private static void richiedi(Intestazione h, String colonna) {
+        if (!h.colonne().contains(colonna)) {
+            throw new IllegalArgumentException("colonna " + colonna + " mancante");
+        }
+    }
+}
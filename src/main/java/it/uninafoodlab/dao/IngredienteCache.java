@@ -0,0 +1,162 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Ingrediente;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache in memoria del catalogo ingredienti.
+ *
+ * Il catalogo viene letto per intero al primo accesso e servito dalla memoria
+ * fino alla successiva modifica: ogni insert/update/delete di {@link IngredienteDAO}
+ * (e ogni caricamento massivo) incrementa la versione e rende obsoleta la copia in cache.
+ * Una copia caricata mentre era in corso una modifica porta la versione letta
+ * prima della query e viene quindi ricaricata all'accesso successivo.
+ * Per le modifiche fatte da altre istanze dell'applicazione la copia scade comunque dopo {@link #TTL_MS}.
+ *
+ * Gli oggetti Ingrediente restituiti sono condivisi: vanno trattati in sola lettura.
+ */
+public class IngredienteCache {
+
+    private static final long TTL_MS = 5 * 60 * 1000L;
+
+    private static final AtomicLong versione      = new AtomicLong();
+    private static final AtomicLong hit           = new AtomicLong();
+    private static final AtomicLong miss          = new AtomicLong();
+    private static final AtomicLong invalidazioni = new AtomicLong();
+
+    private static volatile Catalogo catalogo;
+
+    /**
+     * Copia immutabile del catalogo con gli indici per ID, nome e categoria.
+     */
+    private static class Catalogo {
+        private final long versione;
+        private final long caricatoIl;
+        private final List<Ingrediente> tutti;
+        private final Map<Integer, Ingrediente> perId = new HashMap<>();
+        private final Map<String, Ingrediente> perNome = new HashMap<>();
+        private final Map<String, List<Ingrediente>> perCategoria = new HashMap<>();
+
+        Catalogo(long versione, List<Ingrediente> ordinatiPerNome) {
+            this.versione = versione;
+            this.caricatoIl = System.currentTimeMillis();
+            this.tutti = Collections.unmodifiableList(ordinatiPerNome);
+
+            Map<String, List<Ingrediente>> categorie = new HashMap<>();
+            for (Ingrediente i : ordinatiPerNome) {
+                perId.put(i.getIdIngrediente(), i);
+                perNome.put(i.getNome(), i);
+                categorie.computeIfAbsent(i.getCategoria(), k -> new ArrayList<>()).add(i);
+            }
+            categorie.forEach((k, v) -> perCategoria.put(k, Collections.unmodifiableList(v)));
+        }
+
+        boolean valido() {
+            return versione == IngredienteCache.versione.get()
+                && System.currentTimeMillis() - caricatoIl < TTL_MS;
+        }
+    }
+
+    /**
+     * Fotografia delle metriche della cache.
+     */
+    public record Statistiche(long hit, long miss, long invalidazioni, long versione, int ingredienti) {
+        public double hitRate() {
+            long totale = hit + miss;
+            return totale == 0 ? 0 : (double) hit / totale;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("IngredienteCache[hit=%d, miss=%d, hitRate=%.1f%%, invalidazioni=%d, versione=%d, ingredienti=%d]",
+                    hit, miss, hitRate() * 100, invalidazioni, versione, ingredienti);
+        }
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * @return tutti gli ingredienti ordinati per nome (lista non modificabile)
+     */
+    public static List<Ingrediente> getAll() {
+        Catalogo c = get();
+        return c != null ? c.tutti : new ArrayList<>();
+    }
+
+    /**
+     * @return ingrediente con l'ID indicato, null se assente
+     */
+    public static Ingrediente getById(int idIngrediente) {
+        Catalogo c = get();
+        return c != null ? c.perId.get(idIngrediente) : null;
+    }
+
+    /**
+     * @return ingrediente con il nome esatto indicato, null se assente
+     */
+    public static Ingrediente getByNome(String nome) {
+        Catalogo c = get();
+        return c != null ? c.perNome.get(nome) : null;
+    }
+
+    /**
+     * @return ingredienti della categoria ordinati per nome (lista non modificabile)
+     */
+    public static List<Ingrediente> getByCategoria(String categoria) {
+        Catalogo c = get();
+        if (c == null) return new ArrayList<>();
+        return c.perCategoria.getOrDefault(categoria, Collections.emptyList());
+    }
+
+    /**
+     * Rende obsoleta la copia in cache: il prossimo accesso rilegge il catalogo.
+     */
+    public static void invalida() {
+        versione.incrementAndGet();
+        invalidazioni.incrementAndGet();
+    }
+
+    public static Statistiche getStatistiche() {
+        Catalogo c = catalogo;
+        return new Statistiche(hit.get(), miss.get(), invalidazioni.get(), versione.get(),
+                               c != null ? c.tutti.size() : 0);
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Restituisce il catalogo valido, ricaricandolo se necessario.
+     * Il caricamento è serializzato: più richieste concorrenti producono una sola query.
+     *
+     * @return catalogo, null se il caricamento dal database fallisce
+     */
+    private static Catalogo get() {
+        Catalogo c = catalogo;
+        if (c != null && c.valido()) {
+            hit.incrementAndGet();
+            return c;
+        }
+
+        synchronized (IngredienteCache.class) {
+            c = catalogo;
+            if (c != null && c.valido()) {
+                hit.incrementAndGet();
+                return c;
+            }
+
+            miss.incrementAndGet();
+            long versioneLettura = versione.get();
+            List<Ingrediente> dalDb = IngredienteDAO.caricaCatalogo();
+            if (dalDb == null) return null;   // errore già segnalato dal DAO, non si mette in cache
+
+            c = new Catalogo(versioneLettura, dalDb);
+            catalogo = c;
+            return c;
+        }
+    }
+}
@@ -4,13 +4,28 @@ import it.uninafoodlab.model.domain.Ingrediente;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object per la gestione degli Ingredienti nel database PostgreSQL.
  * Fornisce metodi CRUD completi per la gestione degli ingredienti delle ricette.
+ * Le letture per ID, nome, categoria e dell'intero catalogo sono servite da {@link IngredienteCache},
+ * che ogni modifica invalida.
  */
 public class IngredienteDAO {
     
+    /** Numero massimo di risultati restituiti da searchByNome. */
+    public static final int LIMITE_RICERCA = 50;
+    
+    // Usato anche dalle query che leggono ingredienti insieme ad altre tabelle
+    static final MapperRighe<Ingrediente> MAPPER = MapperRighe.di(r -> new Ingrediente(
+            r.intero(0), r.testo(1), r.testo(2), r.testo(3)),
+        "ID_Ingrediente", "Nome", "Categoria", "UnitaMisura");
+    
+    private static final String SQL_CATALOGO =
+        "SELECT " + MAPPER.colonne() + " FROM Ingrediente ORDER BY Nome";
+    
     /**
      * Inserisce un nuovo ingrediente nel database.
      * 
@@ -30,6 +45,7 @@ public class IngredienteDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
+                IngredienteCache.invalida();
                 return rs.getInt(1);
             }
             
@@ -42,137 +58,109 @@ public class IngredienteDAO {
     }
     
     /**
-     * Ottiene un ingrediente tramite ID.
+     * Ottiene un ingrediente tramite ID (dalla cache).
      * 
      * @param idIngrediente ID dell'ingrediente da recuperare
      * @return oggetto Ingrediente se trovato, null altrimenti
      */
     public static Ingrediente getById(int idIngrediente) {
-        String sql = "SELECT * FROM Ingrediente WHERE ID_Ingrediente = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setInt(1, idIngrediente);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return createIngredienteFromResultSet(rs);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Errore recupero ingrediente: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        return null;
+        return IngredienteCache.getById(idIngrediente);
     }
     
     /**
-     * Ottiene un ingrediente tramite nome.
+     * Ottiene un ingrediente tramite nome (dalla cache).
      * 
      * @param nome nome dell'ingrediente da cercare
      * @return oggetto Ingrediente se trovato, null altrimenti
      */
     public static Ingrediente getByNome(String nome) {
-        String sql = "SELECT * FROM Ingrediente WHERE Nome = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, nome);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return createIngredienteFromResultSet(rs);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Errore recupero ingrediente per nome: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        return null;
+        return IngredienteCache.getByNome(nome);
     }
     
     /**
-     * Ottiene tutti gli ingredienti dal database.
+     * Ottiene tutti gli ingredienti (dalla cache).
      * 
-     * @return lista di tutti gli ingredienti ordinata per nome
+     * @return lista non modificabile di tutti gli ingredienti ordinata per nome
      */
     public static List<Ingrediente> getAll() {
-        List<Ingrediente> ingredienti = new ArrayList<>();
-        String sql = "SELECT * FROM Ingrediente ORDER BY Nome";
-        
+        return IngredienteCache.getAll();
+    }
+    
+    /**
+     * Legge l'intero catalogo dal database; usato da {@link IngredienteCache} per popolarsi.
+     * 
+     * @return lista di tutti gli ingredienti ordinata per nome, null in caso di errore
+     */
+    static List<Ingrediente> caricaCatalogo() {
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SQL_CATALOGO)) {
             
-            while (rs.next()) {
-                ingredienti.add(createIngredienteFromResultSet(rs));
-            }
+            return MAPPER.mappaTutte(rs);
             
         } catch (SQLException e) {
             System.err.println("Errore recupero ingredienti: " + e.getMessage());
             e.printStackTrace();
         }
         
-        return ingredienti;
+        return null;
+    }
+    
+    /**
+     * Legge l'intero catalogo a flusso direttamente dal database, senza passare da
+     * {@link IngredienteCache} e senza tenerlo tutto in memoria (es. per esportazioni).
+     * Il flusso tiene in prestito una connessione finché non viene chiuso:
+     * va usato con try-with-resources.
+     * 
+     * @return flusso di ingredienti ordinato per nome, vuoto in caso di errore
+     */
+    public static Stream<Ingrediente> flussoTutti() {
+        return CursoreRighe.flusso(SQL_CATALOGO, CursoreRighe.NESSUN_PARAMETRO, MAPPER);
+    }
+    
+    /**
+     * Passa al visitatore tutti gli ingredienti letti dal database, uno alla volta e in ordine di nome.
+     * 
+     * @param visitatore azione eseguita per ogni ingrediente
+     * @return true se tutto il catalogo è stato letto, false in caso di errore
+     */
+    public static boolean perOgni(Consumer<? super Ingrediente> visitatore) {
+        return CursoreRighe.perOgni(SQL_CATALOGO, CursoreRighe.NESSUN_PARAMETRO, MAPPER, visitatore);
     }
     
     /**
-     * Ottiene tutti gli ingredienti di una specifica categoria.
+     * Ottiene tutti gli ingredienti di una specifica categoria (dalla cache).
      * 
      * @param categoria categoria degli ingredienti da recuperare (es: Verdura, Carne, Latticini)
-     * @return lista di ingredienti della categoria specificata
+     * @return lista non modificabile di ingredienti della categoria specificata
      */
     public static List<Ingrediente> getByCategoria(String categoria) {
-        List<Ingrediente> ingredienti = new ArrayList<>();
-        String sql = "SELECT * FROM Ingrediente WHERE Categoria = ? ORDER BY Nome";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, categoria);
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                ingredienti.add(createIngredienteFromResultSet(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Errore recupero ingredienti per categoria: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        return ingredienti;
+        return IngredienteCache.getByCategoria(categoria);
     }
     
     /**
-     * Cerca ingredienti il cui nome contiene la stringa specificata (case-insensitive).
+     * Cerca ingredienti per nome, ignorando maiuscole e accenti e tollerando piccoli errori
+     * di battitura. I risultati sono ordinati per pertinenza (vedi {@link RicercaIngredienti}).
      * 
      * @param searchTerm termine di ricerca
-     * @return lista di ingredienti che contengono il termine cercato nel nome
+     * @return al più {@value #LIMITE_RICERCA} ingredienti, i più pertinenti per primi
      */
     public static List<Ingrediente> searchByNome(String searchTerm) {
+        return searchByNome(searchTerm, LIMITE_RICERCA);
+    }
+    
+    /**
+     * Cerca ingredienti per nome con un numero massimo di risultati.
+     * 
+     * @param searchTerm termine di ricerca
+     * @param limite numero massimo di risultati
+     * @return ingredienti ordinati per pertinenza
+     */
+    public static List<Ingrediente> searchByNome(String searchTerm, int limite) {
         List<Ingrediente> ingredienti = new ArrayList<>();
-        String sql = "SELECT * FROM Ingrediente WHERE LOWER(Nome) LIKE LOWER(?) ORDER BY Nome";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, "%" + searchTerm + "%");
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                ingredienti.add(createIngredienteFromResultSet(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Errore ricerca ingredienti: " + e.getMessage());
-            e.printStackTrace();
+        for (RicercaIngredienti.Risultato r : RicercaIngredienti.cerca(searchTerm, limite)) {
+            ingredienti.add(r.ingrediente());
         }
-        
         return ingredienti;
     }
     
@@ -193,7 +181,9 @@ public class IngredienteDAO {
             ps.setString(3, ingrediente.getUnitaMisura());
             ps.setInt(4, ingrediente.getIdIngrediente());
             
-            return ps.executeUpdate() > 0;
+            boolean ok = ps.executeUpdate() > 0;
+            if (ok) IngredienteCache.invalida();
+            return ok;
             
         } catch (SQLException e) {
             System.err.println("Errore aggiornamento ingrediente: " + e.getMessage());
@@ -216,7 +206,9 @@ public class IngredienteDAO {
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, idIngrediente);
-            return ps.executeUpdate() > 0;
+            boolean ok = ps.executeUpdate() > 0;
+            if (ok) IngredienteCache.invalida();
+            return ok;
             
         } catch (SQLException e) {
             System.err.println("Errore eliminazione ingrediente: " + e.getMessage());
@@ -276,20 +268,4 @@ public class IngredienteDAO {
         
         return false;
     }
-    
-    /**
-     * Crea un oggetto Ingrediente da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati dell'ingrediente
-     * @return oggetto Ingrediente creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static Ingrediente createIngredienteFromResultSet(ResultSet rs) throws SQLException {
-        return new Ingrediente(
-            rs.getInt("ID_Ingrediente"),
-            rs.getString("Nome"),
-            rs.getString("Categoria"),
-            rs.getString("UnitaMisura")
-        );
-    }
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package it.uninafoodlab.dao;
 
 import it.uninafoodlab.model.domain.Iscrizione;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,6 +11,10 @@ import java.util.List;
  */
 public class IscrizioneDAO {
     
+    private static final MapperRighe<Iscrizione> MAPPER = MapperRighe.di(r -> new Iscrizione(
+            r.intero(0), r.intero(1), r.timestamp(2)),
+        "ID_Studente", "ID_Corso", "DataIscrizione");
+    
     /**
      * Inserisce una nuova iscrizione nel database.
      * La data di iscrizione viene impostata automaticamente dal DB (DEFAULT CURRENT_TIMESTAMP).
@@ -46,7 +49,7 @@ public class IscrizioneDAO {
      */
     public static List<Iscrizione> getByStudente(int idStudente) {
         List<Iscrizione> iscrizioni = new ArrayList<>();
-        String sql = "SELECT * FROM Iscrizione WHERE ID_Studente = ? ORDER BY DataIscrizione DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Iscrizione WHERE ID_Studente = ? ORDER BY DataIscrizione DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -55,7 +58,7 @@ public class IscrizioneDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                iscrizioni.add(createIscrizioneFromResultSet(rs));
+                iscrizioni.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -74,7 +77,7 @@ public class IscrizioneDAO {
      */
     public static List<Iscrizione> getByCorso(int idCorso) {
         List<Iscrizione> iscrizioni = new ArrayList<>();
-        String sql = "SELECT * FROM Iscrizione WHERE ID_Corso = ? ORDER BY DataIscrizione";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Iscrizione WHERE ID_Corso = ? ORDER BY DataIscrizione";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -83,7 +86,7 @@ public class IscrizioneDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                iscrizioni.add(createIscrizioneFromResultSet(rs));
+                iscrizioni.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -102,7 +105,7 @@ public class IscrizioneDAO {
      * @return oggetto Iscrizione se trovato, null altrimenti
      */
     public static Iscrizione get(int idStudente, int idCorso) {
-        String sql = "SELECT * FROM Iscrizione WHERE ID_Studente = ? AND ID_Corso = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Iscrizione WHERE ID_Studente = ? AND ID_Corso = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -112,7 +115,7 @@ public class IscrizioneDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createIscrizioneFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -203,22 +206,4 @@ public class IscrizioneDAO {
         
         return 0;
     }
-    
-    /**
-     * Crea un oggetto Iscrizione da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati dell'iscrizione
-     * @return oggetto Iscrizione creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static Iscrizione createIscrizioneFromResultSet(ResultSet rs) throws SQLException {
-        Timestamp timestamp = rs.getTimestamp("DataIscrizione");
-        LocalDateTime dataIscrizione = timestamp != null ? timestamp.toLocalDateTime() : null;
-        
-        return new Iscrizione(
-            rs.getInt("ID_Studente"),
-            rs.getInt("ID_Corso"),
-            dataIscrizione
-        );
-    }
 }
\ No newline at end of file
@@ -0,0 +1,359 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Corso;
+import it.uninafoodlab.model.domain.SessioneOnline;
+import it.uninafoodlab.model.domain.SessionePratica;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import javax.swing.SwingUtilities;
+
+/**
+ * Mappa d'identità degli oggetti di dominio letti dai DAO durante la sessione dello chef.
+ *
+ * Per ogni chiave primaria esiste una sola istanza in memoria: una riga letta di nuovo
+ * aggiorna i campi dell'istanza già nota invece di crearne un'altra, e le modifiche
+ * andate a buon fine nei DAO vengono riportate sulla stessa istanza. Le letture per ID
+ * ({@code getById}) sono servite dalla mappa senza round trip.
+ *
+ * Le istanze canoniche sono lette dai pannelli sull'EDT senza lock, mentre i DAO girano
+ * sui thread di AsyncExecutor: per questo l'aggiornamento dei campi di un'istanza già nota
+ * avviene sempre sull'EDT ({@link #unisci(Object)} attende che sia completato), e fuori
+ * dall'EDT i campi delle istanze restituite vanno considerati in sola lettura.
+ *
+ * Un gruppo (es. i corsi di uno chef) ricorda quali istanze formano una collezione completa,
+ * così la collezione può essere restituita senza interrogare il database finché
+ * tutti i suoi elementi restano in memoria e per al più {@link #TTL_GRUPPI_MS}:
+ * oltre quel tempo la collezione viene riletta, per vedere anche le righe inserite da altri.
+ *
+ * Ogni mappa ha un budget di memoria stimato: oltre il budget vengono scartate le voci
+ * usate meno di recente (e i gruppi che le contenevano). La sessione è quella di
+ * AppSession: login e logout svuotano tutte le mappe con {@link #svuotaTutte()}.
+ *
+ * @param <T> tipo degli oggetti di dominio
+ */
+public class MappaIdentita<T> {
+
+    // Stima grossolana (oggetto, campi, voce della mappa) più i caratteri dei testi
+    private static final long BYTE_BASE = 160;
+
+    /** Durata massima di un gruppo: le righe aggiunte da altri client compaiono entro questo tempo. */
+    static final long TTL_GRUPPI_MS = 60_000;
+
+    public static final MappaIdentita<Corso> CORSI = new MappaIdentita<>(
+        "corsi", 1024 * 1024,
+        Corso::getIdCorso,
+        (da, a) -> {
+            a.setTitolo(da.getTitolo());
+            a.setCategoria(da.getCategoria());
+            a.setDataInizio(da.getDataInizio());
+            a.setFrequenza(da.getFrequenza());
+            a.setNumeroSessioni(da.getNumeroSessioni());
+            a.setIdChef(da.getIdChef());
+        },
+        c -> BYTE_BASE + 2L * lunghezza(c.getTitolo()));
+
+    public static final MappaIdentita<SessioneOnline> SESSIONI_ONLINE = new MappaIdentita<>(
+        "sessioni online", 2 * 1024 * 1024,
+        SessioneOnline::getIdSessioneOnline,
+        (da, a) -> {
+            a.setData(da.getData());
+            a.setOra(da.getOra());
+            a.setDurata(da.getDurata());
+            a.setLink(da.getLink());
+            a.setIdCorso(da.getIdCorso());
+        },
+        s -> BYTE_BASE + 2L * lunghezza(s.getLink()));
+
+    public static final MappaIdentita<SessionePratica> SESSIONI_PRATICHE = new MappaIdentita<>(
+        "sessioni pratiche", 2 * 1024 * 1024,
+        SessionePratica::getIdSessionePratica,
+        (da, a) -> {
+            a.setData(da.getData());
+            a.setOra(da.getOra());
+            a.setDurata(da.getDurata());
+            a.setLuogo(da.getLuogo());
+            a.setIdCorso(da.getIdCorso());
+        },
+        s -> BYTE_BASE + 2L * lunghezza(s.getLuogo()));
+
+    private static final List<MappaIdentita<?>> TUTTE = List.of(CORSI, SESSIONI_ONLINE, SESSIONI_PRATICHE);
+
+    private final String nome;
+    private final long budgetByte;
+    private final ToIntFunction<T> chiave;
+    private final BiConsumer<T, T> copia;
+    private final ToLongFunction<T> stimaByte;
+
+    /** Istanza con la sua dimensione stimata al momento dell'ultimo aggiornamento. */
+    private static class Voce<T> {
+        private final T valore;
+        private long byteStimati;
+
+        Voce(T valore, long byteStimati) {
+            this.valore = valore;
+            this.byteStimati = byteStimati;
+        }
+    }
+
+    // In ordine di accesso: la prima voce è quella usata meno di recente
+    private final LinkedHashMap<Integer, Voce<T>> voci = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Integer, Gruppo> gruppi = new HashMap<>();
+    private long byteUsati = 0;
+
+    /** Chiavi di una collezione completa con l'istante in cui è stata letta. */
+    private static class Gruppo {
+        private final Set<Integer> ids;
+        private final long registratoIl = System.currentTimeMillis();
+
+        Gruppo(Set<Integer> ids) {
+            this.ids = ids;
+        }
+
+        boolean scaduto() {
+            return System.currentTimeMillis() - registratoIl > TTL_GRUPPI_MS;
+        }
+    }
+
+    private long hit = 0;
+    private long miss = 0;
+    private long sfratti = 0;
+
+    /**
+     * Fotografia delle metriche della mappa.
+     */
+    public record Statistiche(String nome, long hit, long miss, long sfratti,
+                              int voci, int gruppi, long byteUsati, long budgetByte) {
+        public double hitRate() {
+            long totale = hit + miss;
+            return totale == 0 ? 0 : (double) hit / totale;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MappaIdentita[%s: hit=%d, miss=%d, hitRate=%.1f%%, sfratti=%d, voci=%d, gruppi=%d, byte=%d/%d]",
+                    nome, hit, miss, hitRate() * 100, sfratti, voci, gruppi, byteUsati, budgetByte);
+        }
+    }
+
+    private MappaIdentita(String nome, long budgetByte, ToIntFunction<T> chiave,
+                          BiConsumer<T, T> copia, ToLongFunction<T> stimaByte) {
+        this.nome = nome;
+        this.budgetByte = budgetByte;
+        this.chiave = chiave;
+        this.copia = copia;
+        this.stimaByte = stimaByte;
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * @return istanza con la chiave indicata, null se non è in memoria
+     */
+    public synchronized T get(int id) {
+        Voce<T> v = voci.get(id);
+        if (v == null) {
+            miss++;
+            return null;
+        }
+        hit++;
+        return v.valore;
+    }
+
+    /**
+     * Rende canonica un'istanza appena letta o scritta: se la chiave è già nota
+     * ne aggiorna i campi (sull'EDT) e restituisce l'istanza esistente, altrimenti registra questa.
+     */
+    public T unisci(T oggetto) {
+        List<T> uno = new ArrayList<>(1);
+        uno.add(oggetto);
+        return unisciTutti(uno).get(0);
+    }
+
+    /**
+     * Applica {@link #unisci(Object)} a ogni elemento, sostituendolo nella lista.
+     * Le copie sulle istanze già note sono eseguite in un solo passaggio sull'EDT.
+     */
+    public List<T> unisciTutti(List<T> oggetti) {
+        List<T> daCopiare = new ArrayList<>();
+        List<T> canoniche = new ArrayList<>();
+
+        synchronized (this) {
+            for (int i = 0; i < oggetti.size(); i++) {
+                T oggetto = oggetti.get(i);
+                Voce<T> v = voci.get(chiave.applyAsInt(oggetto));
+                if (v == null) {
+                    Voce<T> nuova = new Voce<>(oggetto, stimaByte.applyAsLong(oggetto));
+                    voci.put(chiave.applyAsInt(oggetto), nuova);
+                    byteUsati += nuova.byteStimati;
+                } else if (v.valore != oggetto) {
+                    daCopiare.add(oggetto);
+                    canoniche.add(v.valore);
+                    oggetti.set(i, v.valore);
+                }
+            }
+            rispettaBudget();
+        }
+        if (daCopiare.isEmpty()) return oggetti;
+
+        // Fuori dal lock: l'EDT può chiamare la mappa mentre questo thread lo attende
+        sullEdt(() -> {
+            for (int i = 0; i < daCopiare.size(); i++) copia.accept(daCopiare.get(i), canoniche.get(i));
+        });
+
+        synchronized (this) {
+            for (T c : canoniche) {
+                Voce<T> v = voci.get(chiave.applyAsInt(c));
+                if (v == null || v.valore != c) continue;   // scartata nel frattempo
+                long nuoviByte = stimaByte.applyAsLong(c);
+                byteUsati += nuoviByte - v.byteStimati;
+                v.byteStimati = nuoviByte;
+            }
+            rispettaBudget();
+        }
+        return oggetti;
+    }
+
+    public synchronized void rimuovi(int id) {
+        Voce<T> v = voci.remove(id);
+        if (v != null) {
+            byteUsati -= v.byteStimati;
+            togliDaiGruppi(id);
+        }
+    }
+
+    public synchronized void rimuoviSe(Predicate<T> condizione) {
+        Iterator<Map.Entry<Integer, Voce<T>>> it = voci.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Voce<T>> e = it.next();
+            if (condizione.test(e.getValue().valore)) {
+                byteUsati -= e.getValue().byteStimati;
+                it.remove();
+                togliDaiGruppi(e.getKey());
+            }
+        }
+    }
+
+    /**
+     * Registra la collezione completa di un gruppo; gli elementi devono essere già canonici.
+     */
+    public synchronized void registraGruppo(int gruppo, List<T> elementi) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (T e : elementi) ids.add(chiave.applyAsInt(e));
+        gruppi.put(gruppo, new Gruppo(ids));
+    }
+
+    /**
+     * @return elementi del gruppo, null se il gruppo non è noto, è scaduto
+     *         o un suo elemento è stato scartato
+     */
+    public synchronized List<T> getGruppo(int gruppo) {
+        Gruppo g = gruppi.get(gruppo);
+        if (g == null || g.scaduto()) {
+            gruppi.remove(gruppo);
+            miss++;
+            return null;
+        }
+        List<T> elementi = new ArrayList<>(g.ids.size());
+        for (int id : g.ids) {
+            Voce<T> v = voci.get(id);
+            if (v == null) {
+                gruppi.remove(gruppo);
+                miss++;
+                return null;
+            }
+            elementi.add(v.valore);
+        }
+        hit++;
+        return elementi;
+    }
+
+    /** Aggiunge un elemento a un gruppo già noto (un gruppo mai letto resta da caricare). */
+    public synchronized void aggiungiAGruppo(int gruppo, T elemento) {
+        Gruppo g = gruppi.get(gruppo);
+        if (g != null) g.ids.add(chiave.applyAsInt(elemento));
+    }
+
+    /** Dimentica un gruppo: la prossima lettura della collezione passerà dal database. */
+    public synchronized void rimuoviGruppo(int gruppo) {
+        gruppi.remove(gruppo);
+    }
+
+    public synchronized void svuota() {
+        voci.clear();
+        gruppi.clear();
+        byteUsati = 0;
+    }
+
+    public synchronized Statistiche getStatistiche() {
+        return new Statistiche(nome, hit, miss, sfratti, voci.size(), gruppi.size(), byteUsati, budgetByte);
+    }
+
+    /**
+     * Svuota tutte le mappe: da chiamare all'inizio e alla fine della sessione di uno chef.
+     */
+    public static void svuotaTutte() {
+        for (MappaIdentita<?> m : TUTTE) m.svuota();
+    }
+
+    public static List<Statistiche> getStatisticheTutte() {
+        List<Statistiche> s = new ArrayList<>();
+        for (MappaIdentita<?> m : TUTTE) s.add(m.getStatistiche());
+        return s;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /** Scarta le voci usate meno di recente finché la stima rientra nel budget. */
+    private void rispettaBudget() {
+        Iterator<Map.Entry<Integer, Voce<T>>> it = voci.entrySet().iterator();
+        while (byteUsati > budgetByte && it.hasNext()) {
+            Map.Entry<Integer, Voce<T>> eldest = it.next();
+            byteUsati -= eldest.getValue().byteStimati;
+            it.remove();
+            dimenticaGruppiCon(eldest.getKey());
+            sfratti++;
+        }
+    }
+
+    /** Una voce scartata rende incompleti i gruppi che la contenevano. */
+    private void dimenticaGruppiCon(int id) {
+        gruppi.values().removeIf(g -> g.ids.contains(id));
+    }
+
+    /** Una riga eliminata esce dai gruppi, che restano completi. */
+    private void togliDaiGruppi(int id) {
+        for (Gruppo g : gruppi.values()) g.ids.remove(id);
+    }
+
+    /** Esegue l'aggiornamento delle istanze canoniche sull'EDT e ne attende la fine. */
+    private static void sullEdt(Runnable aggiornamento) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            aggiornamento.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(aggiornamento);
+        } catch (InterruptedException e) {
+            // Resta comunque sull'EDT, senza attenderlo
+            Thread.currentThread().interrupt();
+            SwingUtilities.invokeLater(aggiornamento);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Aggiornamento della mappa d'identità fallito", e.getCause());
+        }
+    }
+
+    private static int lunghezza(String s) {
+        return s != null ? s.length() : 0;
+    }
+}
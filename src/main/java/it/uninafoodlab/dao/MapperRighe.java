@@ -0,0 +1,195 @@
+package it.uninafoodlab.dao;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Conversione delle righe di un ResultSet in oggetti di dominio, per posizione di colonna.
+ *
+ * Un mapper dichiara le colonne che legge e ne ricava la proiezione da mettere nella SELECT
+ * ({@link #colonne()}): la posizione di ogni colonna è fissata una volta, quando il mapper
+ * viene costruito, e le righe vengono lette con i getter per indice del driver invece
+ * di cercare ogni colonna per nome a ogni riga. Nel {@link Costruttore} le colonne si leggono
+ * dalla {@link Riga} con l'indice (da 0) che hanno nella dichiarazione.
+ *
+ * Se la query restituisce altre colonne prima di quelle del mapper si usa
+ * {@link #mappa(ResultSet, int)} con la posizione della prima colonna del mapper.
+ *
+ * @param <T> tipo degli oggetti prodotti
+ */
+class MapperRighe<T> {
+
+    /**
+     * Crea un oggetto dalla riga corrente.
+     */
+    @FunctionalInterface
+    interface Costruttore<T> {
+        T crea(Riga r) throws SQLException;
+    }
+
+    private final String[] colonne;
+    private final String proiezione;
+    private final Costruttore<T> costruttore;
+
+    private MapperRighe(Costruttore<T> costruttore, String[] colonne) {
+        this.colonne = colonne;
+        this.proiezione = String.join(", ", colonne);
+        this.costruttore = costruttore;
+    }
+
+    /**
+     * @param costruttore crea l'oggetto leggendo le colonne per indice di dichiarazione
+     * @param colonne     colonne lette, nell'ordine in cui compariranno nella SELECT
+     */
+    static <T> MapperRighe<T> di(Costruttore<T> costruttore, String... colonne) {
+        return new MapperRighe<>(costruttore, colonne.clone());
+    }
+
+    // ==================== METODI ====================
+
+    /** @return elenco delle colonne per la SELECT, es. "ID_Corso, Titolo, ..." */
+    String colonne() {
+        return proiezione;
+    }
+
+    /** @return elenco delle colonne qualificate con l'alias della tabella, es. "C.ID_Corso, C.Titolo, ..." */
+    String colonne(String alias) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < colonne.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(alias).append('.').append(colonne[i]);
+        }
+        return sb.toString();
+    }
+
+    int numeroColonne() {
+        return colonne.length;
+    }
+
+    /** Converte la riga corrente di una query che inizia con le colonne del mapper. */
+    T mappa(ResultSet rs) throws SQLException {
+        return mappa(rs, 1);
+    }
+
+    /**
+     * Converte la riga corrente.
+     *
+     * @param primaColonna posizione (da 1) della prima colonna del mapper nel ResultSet
+     */
+    T mappa(ResultSet rs, int primaColonna) throws SQLException {
+        return costruttore.crea(new Riga(rs, primaColonna));
+    }
+
+    /** Converte tutte le righe rimanenti di una query che inizia con le colonne del mapper. */
+    List<T> mappaTutte(ResultSet rs) throws SQLException {
+        List<T> risultato = new ArrayList<>();
+        perOgni(rs, risultato::add);
+        return risultato;
+    }
+
+    /** Converte le righe rimanenti una alla volta, passandole al visitatore. */
+    void perOgni(ResultSet rs, Consumer<? super T> visitatore) throws SQLException {
+        Riga riga = new Riga(rs, 1);
+        while (rs.next()) {
+            visitatore.accept(costruttore.crea(riga));
+        }
+    }
+
+    /**
+     * Flusso pigro sulle righe rimanenti: una riga viene letta solo quando il flusso la chiede.
+     * La chiusura del ResultSet resta a carico del chiamante. Un errore di lettura
+     * arriva come IllegalStateException con la SQLException come causa.
+     */
+    Stream<T> flusso(ResultSet rs) {
+        Riga riga = new Riga(rs, 1);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> azione) {
+                try {
+                    if (!rs.next()) return false;
+                    azione.accept(costruttore.crea(riga));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Errore lettura riga: " + e.getMessage(), e);
+                }
+            }
+        }, false);
+    }
+
+    /**
+     * Accesso per posizione a colonne non coperte da un mapper (es. valori calcolati
+     * dopo le colonne di un'entità). Va creato una volta per ResultSet e usato per ogni riga.
+     *
+     * @param primaColonna posizione (da 1) della colonna con indice 0
+     */
+    static Riga riga(ResultSet rs, int primaColonna) {
+        return new Riga(rs, primaColonna);
+    }
+
+    // ==================== CLASSE INTERNA ====================
+
+    /**
+     * Accesso per posizione alla riga corrente: l'indice è quello della colonna
+     * nella dichiarazione del mapper. I tipi che possono essere NULL restituiscono null.
+     */
+    static final class Riga {
+        private final ResultSet rs;
+        private final int base;
+
+        private Riga(ResultSet rs, int primaColonna) {
+            this.rs = rs;
+            this.base = primaColonna;
+        }
+
+        int intero(int i) throws SQLException {
+            return rs.getInt(base + i);
+        }
+
+        Integer interoONull(int i) throws SQLException {
+            int valore = rs.getInt(base + i);
+            return rs.wasNull() ? null : valore;
+        }
+
+        String testo(int i) throws SQLException {
+            return rs.getString(base + i);
+        }
+
+        boolean booleano(int i) throws SQLException {
+            return rs.getBoolean(base + i);
+        }
+
+        BigDecimal decimale(int i) throws SQLException {
+            return rs.getBigDecimal(base + i);
+        }
+
+        LocalDate data(int i) throws SQLException {
+            Date d = rs.getDate(base + i);
+            return d != null ? d.toLocalDate() : null;
+        }
+
+        LocalTime ora(int i) throws SQLException {
+            Time t = rs.getTime(base + i);
+            return t != null ? t.toLocalTime() : null;
+        }
+
+        LocalDateTime timestamp(int i) throws SQLException {
+            Timestamp t = rs.getTimestamp(base + i);
+            return t != null ? t.toLocalDateTime() : null;
+        }
+    }
+}
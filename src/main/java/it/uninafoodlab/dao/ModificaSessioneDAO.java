@@ -0,0 +1,308 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.SessioneOnline;
+import it.uninafoodlab.model.domain.SessionePratica;
+import it.uninafoodlab.model.enums.TipoModifica;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Modifiche ed eliminazioni di una sessione insieme alla notifica che le annuncia agli iscritti.
+ *
+ * Ogni operazione è un'unica istruzione SQL: la lettura dei valori precedenti, la modifica
+ * (o l'eliminazione) della sessione e l'inserimento della notifica avvengono in un solo round trip e
+ * nella stessa transazione implicita, quindi o riescono tutte o nessuna.
+ * Il tipo e il testo della notifica dipendono dai valori precedenti e sono composti
+ * nella query con lo stesso formato usato dall'interfaccia.
+ */
+public class ModificaSessioneDAO {
+
+    /**
+     * Differenze tra le tabelle delle due sessioni usate nel testo delle query.
+     */
+    private enum Tabella {
+        ONLINE("SessioneOnline", "ID_SessioneOnline", "online", SessioneOnlineDAO.MAPPER),
+        PRATICA("SessionePratica", "ID_SessionePratica", "pratica", SessionePraticaDAO.MAPPER);
+
+        private final String nome;
+        private final String colonnaId;
+        private final String descrizione;
+        private final MapperRighe<?> mapper;
+
+        Tabella(String nome, String colonnaId, String descrizione, MapperRighe<?> mapper) {
+            this.nome = nome;
+            this.colonnaId = colonnaId;
+            this.descrizione = descrizione;
+            this.mapper = mapper;
+        }
+    }
+
+    /*
+     * Precedente legge la riga prima della modifica: tutte le CTE vedono la stessa fotografia,
+     * quindi i valori restano quelli vecchi anche dopo l'UPDATE. La notifica viene inserita
+     * solo se richiesta (Invia) e, se globale, senza corso come richiesto dal vincolo di Notifica.
+     * Segnaposto: %1$s tabella, %2$s colonna ID, %3$s descrizione del tipo di sessione,
+     * %4$s e %5$s colonne del mapper della sessione qualificate con S e con M.
+     * La SELECT finale restituisce le colonne della sessione seguite da quelle lette in creaEsito.
+     */
+    private static final String SQL_MODIFICA_DATA_ORA =
+        "WITH Parametri AS ( " +
+        "  SELECT ?::boolean AS Invia, ?::boolean AS Globale, " +
+        "         ?::text AS NomeCambioData, ?::text AS NomeCambioOra, ?::text AS NomeAltro " +
+        "), Precedente AS ( " +
+        "  SELECT S.%2$s, S.Data, S.Ora, C.ID_Chef, C.Titolo " +
+        "  FROM %1$s S JOIN Corso C ON C.ID_Corso = S.ID_Corso " +
+        "  WHERE S.%2$s = ? " +
+        "), Aggiornata AS ( " +
+        "  UPDATE %1$s S SET Data = ?, Ora = ? " +
+        "  FROM Precedente P WHERE S.%2$s = P.%2$s " +
+        "  RETURNING %4$s, P.Data AS DataPrecedente, P.Ora AS OraPrecedente, " +
+        "            P.ID_Chef, P.Titolo AS TitoloCorso, " +
+        "            S.Data <> P.Data AS DataCambiata, S.Ora IS DISTINCT FROM P.Ora AS OraCambiata " +
+        "), Modifica AS ( " +
+        "  SELECT A.*, CASE WHEN A.DataCambiata THEN 'CAMBIO_DATA' " +
+        "                   WHEN A.OraCambiata  THEN 'CAMBIO_ORA' " +
+        "                   ELSE 'ALTRO' END AS Tipo " +
+        "  FROM Aggiornata A " +
+        "), Notificata AS ( " +
+        "  INSERT INTO Notifica (ID_Chef, ID_Corso, Titolo, Messaggio, TipoModifica, IsGlobale) " +
+        "  SELECT M.ID_Chef, " +
+        "         CASE WHEN P.Globale THEN NULL ELSE M.ID_Corso END, " +
+        "         '[' || CASE M.Tipo WHEN 'CAMBIO_DATA' THEN P.NomeCambioData " +
+        "                            WHEN 'CAMBIO_ORA'  THEN P.NomeCambioOra " +
+        "                            ELSE P.NomeAltro END " +
+        "             || '] ' || M.TitoloCorso " +
+        "             || CASE WHEN P.Globale THEN ' — tutti i corsi' ELSE '' END, " +
+        "         'Sessione %3$s del corso «' || M.TitoloCorso || '»: ' " +
+        "             || CASE WHEN M.DataCambiata " +
+        "                     THEN 'nuova data ' || to_char(M.Data, 'DD/MM/YYYY') || '. ' ELSE '' END " +
+        "             || CASE WHEN M.OraCambiata AND M.Ora IS NOT NULL " +
+        "                     THEN 'nuovo orario ' || to_char(M.Ora, 'HH24:MI') || '.' ELSE '' END, " +
+        "         M.Tipo::tipo_modifica_enum, " +
+        "         P.Globale " +
+        "  FROM Modifica M CROSS JOIN Parametri P " +
+        "  WHERE P.Invia " +
+        "  RETURNING ID_Notifica " +
+        ") " +
+        "SELECT %5$s, M.DataPrecedente, M.OraPrecedente, M.ID_Chef, M.Tipo, " +
+        "       (SELECT ID_Notifica FROM Notificata) AS ID_Notifica " +
+        "FROM Modifica M";
+
+    /*
+     * La data della sessione eliminata arriva dal RETURNING del DELETE, senza leggerla prima.
+     * Segnaposto %1$s, %2$s e %3$s come in SQL_MODIFICA_DATA_ORA.
+     */
+    private static final String SQL_ELIMINA =
+        "WITH Parametri AS ( " +
+        "  SELECT ?::boolean AS Invia, ?::boolean AS Globale, ?::text AS NomeCancellazione " +
+        "), Eliminata AS ( " +
+        "  DELETE FROM %1$s S USING Corso C " +
+        "  WHERE C.ID_Corso = S.ID_Corso AND S.%2$s = ? " +
+        "  RETURNING S.Data, S.ID_Corso, C.ID_Chef, C.Titolo AS TitoloCorso " +
+        "), Notificata AS ( " +
+        "  INSERT INTO Notifica (ID_Chef, ID_Corso, Titolo, Messaggio, TipoModifica, IsGlobale) " +
+        "  SELECT E.ID_Chef, " +
+        "         CASE WHEN P.Globale THEN NULL ELSE E.ID_Corso END, " +
+        "         '[' || P.NomeCancellazione || '] ' || E.TitoloCorso " +
+        "             || CASE WHEN P.Globale THEN ' — tutti i corsi' ELSE '' END, " +
+        "         'La sessione %3$s del ' || to_char(E.Data, 'DD/MM/YYYY') " +
+        "             || ' del corso «' || E.TitoloCorso || '» è stata cancellata.', " +
+        "         'CANCELLAZIONE'::tipo_modifica_enum, " +
+        "         P.Globale " +
+        "  FROM Eliminata E CROSS JOIN Parametri P " +
+        "  WHERE P.Invia " +
+        "  RETURNING ID_Notifica " +
+        ") " +
+        "SELECT E.Data, E.ID_Chef, (SELECT ID_Notifica FROM Notificata) AS ID_Notifica FROM Eliminata E";
+
+    /**
+     * Esito di una modifica riuscita.
+     *
+     * @param sessione        istanza canonica della sessione, già aggiornata
+     * @param dataPrecedente  data prima della modifica
+     * @param oraPrecedente   ora prima della modifica (può essere null)
+     * @param tipo            tipo di modifica rilevato confrontando i valori
+     * @param idNotifica      ID della notifica inserita, -1 se non richiesta
+     * @param <T>             tipo della sessione
+     */
+    public record Esito<T>(T sessione, LocalDate dataPrecedente, LocalTime oraPrecedente,
+                           TipoModifica tipo, int idNotifica) {
+        public boolean isNotificata() {
+            return idNotifica > 0;
+        }
+    }
+
+    /**
+     * Esito di un'eliminazione riuscita.
+     *
+     * @param data       data della sessione eliminata
+     * @param idNotifica ID della notifica inserita, -1 se non richiesta
+     */
+    public record EsitoEliminazione(LocalDate data, int idNotifica) {
+        public boolean isNotificata() {
+            return idNotifica > 0;
+        }
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Cambia data e ora di una sessione online e, se richiesto, notifica la modifica.
+     *
+     * @param idSessione      ID della sessione
+     * @param nuovaData       nuova data
+     * @param nuovaOra        nuovo orario (può essere null)
+     * @param inviaNotifica   true per inserire la notifica nella stessa istruzione
+     * @param notificaGlobale true se la notifica riguarda tutti i corsi dello chef
+     * @return esito della modifica, null se la sessione non esiste o in caso di errore
+     */
+    public static Esito<SessioneOnline> modificaDataOraOnline(int idSessione, LocalDate nuovaData, LocalTime nuovaOra,
+                                                              boolean inviaNotifica, boolean notificaGlobale) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = preparaModifica(conn, Tabella.ONLINE, idSessione, nuovaData, nuovaOra,
+                                                    inviaNotifica, notificaGlobale);
+             ResultSet rs = ps.executeQuery()) {
+
+            if (rs.next()) {
+                SessioneOnline s = MappaIdentita.SESSIONI_ONLINE.unisci(SessioneOnlineDAO.MAPPER.mappa(rs));
+                return creaEsito(s, Tabella.ONLINE, rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore modifica sessione online: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Cambia data e ora di una sessione pratica e, se richiesto, notifica la modifica.
+     *
+     * @param idSessione      ID della sessione
+     * @param nuovaData       nuova data
+     * @param nuovaOra        nuovo orario (può essere null)
+     * @param inviaNotifica   true per inserire la notifica nella stessa istruzione
+     * @param notificaGlobale true se la notifica riguarda tutti i corsi dello chef
+     * @return esito della modifica, null se la sessione non esiste o in caso di errore
+     */
+    public static Esito<SessionePratica> modificaDataOraPratica(int idSessione, LocalDate nuovaData, LocalTime nuovaOra,
+                                                                boolean inviaNotifica, boolean notificaGlobale) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = preparaModifica(conn, Tabella.PRATICA, idSessione, nuovaData, nuovaOra,
+                                                    inviaNotifica, notificaGlobale);
+             ResultSet rs = ps.executeQuery()) {
+
+            if (rs.next()) {
+                SessionePratica s = MappaIdentita.SESSIONI_PRATICHE.unisci(SessionePraticaDAO.MAPPER.mappa(rs));
+                return creaEsito(s, Tabella.PRATICA, rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore modifica sessione pratica: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Elimina una sessione online e, se richiesto, notifica la cancellazione.
+     *
+     * @param idSessione      ID della sessione da eliminare
+     * @param inviaNotifica   true per inserire la notifica nella stessa istruzione
+     * @param notificaGlobale true se la notifica riguarda tutti i corsi dello chef
+     * @return esito dell'eliminazione, null se la sessione non esiste o in caso di errore
+     */
+    public static EsitoEliminazione eliminaOnline(int idSessione, boolean inviaNotifica, boolean notificaGlobale) {
+        EsitoEliminazione esito = elimina(Tabella.ONLINE, idSessione, inviaNotifica, notificaGlobale);
+        if (esito != null) MappaIdentita.SESSIONI_ONLINE.rimuovi(idSessione);
+        return esito;
+    }
+
+    /**
+     * Elimina una sessione pratica (con le sue ricette) e, se richiesto, notifica la cancellazione.
+     *
+     * @param idSessione      ID della sessione da eliminare
+     * @param inviaNotifica   true per inserire la notifica nella stessa istruzione
+     * @param notificaGlobale true se la notifica riguarda tutti i corsi dello chef
+     * @return esito dell'eliminazione, null se la sessione non esiste o in caso di errore
+     */
+    public static EsitoEliminazione eliminaPratica(int idSessione, boolean inviaNotifica, boolean notificaGlobale) {
+        EsitoEliminazione esito = elimina(Tabella.PRATICA, idSessione, inviaNotifica, notificaGlobale);
+        if (esito != null) MappaIdentita.SESSIONI_PRATICHE.rimuovi(idSessione);
+        return esito;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static EsitoEliminazione elimina(Tabella t, int idSessione,
+                                             boolean inviaNotifica, boolean notificaGlobale) {
+        String sql = String.format(SQL_ELIMINA, t.nome, t.colonnaId, t.descrizione);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setBoolean(1, inviaNotifica);
+            ps.setBoolean(2, notificaGlobale);
+            ps.setString(3, TipoModifica.CANCELLAZIONE.getDisplayName());
+            ps.setInt(4, idSessione);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    // Data, ID_Chef, ID_Notifica
+                    MapperRighe.Riga riga = MapperRighe.riga(rs, 1);
+                    ReportCache.invalidaChef(riga.intero(1));
+                    Integer idNotifica = riga.interoONull(2);
+                    return new EsitoEliminazione(riga.data(0), idNotifica != null ? idNotifica : -1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore eliminazione sessione " + t.descrizione + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static PreparedStatement preparaModifica(Connection conn, Tabella t, int idSessione,
+                                                     LocalDate nuovaData, LocalTime nuovaOra,
+                                                     boolean inviaNotifica, boolean notificaGlobale) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(
+            String.format(SQL_MODIFICA_DATA_ORA, t.nome, t.colonnaId, t.descrizione,
+                          t.mapper.colonne("S"), t.mapper.colonne("M")));
+        try {
+            ps.setBoolean(1, inviaNotifica);
+            ps.setBoolean(2, notificaGlobale);
+            ps.setString(3, TipoModifica.CAMBIO_DATA.getDisplayName());
+            ps.setString(4, TipoModifica.CAMBIO_ORA.getDisplayName());
+            ps.setString(5, TipoModifica.ALTRO.getDisplayName());
+            ps.setInt(6, idSessione);
+            ps.setDate(7, Date.valueOf(nuovaData));
+            ps.setTime(8, nuovaOra != null ? Time.valueOf(nuovaOra) : null);
+            return ps;
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Legge le colonne che seguono quelle della sessione e invalida i report dello chef.
+     */
+    private static <T> Esito<T> creaEsito(T sessione, Tabella t, ResultSet rs) throws SQLException {
+        // DataPrecedente, OraPrecedente, ID_Chef, Tipo, ID_Notifica
+        MapperRighe.Riga extra = MapperRighe.riga(rs, t.mapper.numeroColonne() + 1);
+        ReportCache.invalidaChef(extra.intero(2));
+        Integer idNotifica = extra.interoONull(4);
+        return new Esito<>(
+            sessione,
+            extra.data(0),
+            extra.ora(1),
+            TipoModifica.fromString(extra.testo(3)),
+            idNotifica != null ? idNotifica : -1
+        );
+    }
+}
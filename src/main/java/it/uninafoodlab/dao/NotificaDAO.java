@@ -12,6 +12,37 @@ import java.util.List;
  */
 public class NotificaDAO {
     
+    private static final MapperRighe<Notifica> MAPPER = MapperRighe.di(r -> new Notifica(
+            r.intero(0), r.intero(1), r.interoONull(2), r.testo(3), r.testo(4),
+            TipoModifica.fromString(r.testo(5)), r.booleano(6), r.timestamp(7)),
+        "ID_Notifica", "ID_Chef", "ID_Corso", "Titolo", "Messaggio", "TipoModifica", "IsGlobale", "DataCreazione");
+    
+    // ==================== CLASSI INTERNE ====================
+    
+    /**
+     * Posizione nel feed: l'ultima notifica già mostrata.
+     * La coppia (DataCreazione, ID_Notifica) è univoca anche a parità di data.
+     */
+    public record Cursore(LocalDateTime dataCreazione, int idNotifica) {}
+    
+    /**
+     * Classe interna con una pagina del feed e il cursore per chiedere la successiva.
+     */
+    public static class PaginaNotifiche {
+        private final List<Notifica> notifiche;
+        private final Cursore successiva;
+        
+        public PaginaNotifiche(List<Notifica> notifiche, Cursore successiva) {
+            this.notifiche  = notifiche;
+            this.successiva = successiva;
+        }
+        
+        public List<Notifica> getNotifiche() { return notifiche; }
+        /** Cursore della pagina successiva, null se questa è l'ultima. */
+        public Cursore getSuccessiva()        { return successiva; }
+        public boolean hasSuccessiva()        { return successiva != null; }
+    }
+    
     /**
      * Inserisce una nuova notifica nel database.
      * 
@@ -64,7 +95,7 @@ public class NotificaDAO {
      */
     public static List<Notifica> getByChef(int idChef) {
         List<Notifica> notifiche = new ArrayList<>();
-        String sql = "SELECT * FROM Notifica WHERE ID_Chef = ? ORDER BY DataCreazione DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica WHERE ID_Chef = ? ORDER BY DataCreazione DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -73,7 +104,7 @@ public class NotificaDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                notifiche.add(createNotificaFromResultSet(rs));
+                notifiche.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -84,6 +115,149 @@ public class NotificaDAO {
         return notifiche;
     }
     
+    /**
+     * Ottiene una pagina del feed notifiche di uno chef (paginazione keyset).
+     * Il costo è costante qualunque sia la pagina: la query riparte dal cursore
+     * sull'indice (ID_Chef, DataCreazione DESC, ID_Notifica DESC) invece di saltare righe con OFFSET.
+     * 
+     * @param idChef     ID dello chef
+     * @param dopo       cursore restituito dalla pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di notifiche nella pagina
+     * @return pagina di notifiche (più recenti prime); vuota e senza successiva in caso di errore
+     */
+    public static PaginaNotifiche getPaginaByChef(int idChef, Cursore dopo, int dimensione) {
+        List<Notifica> notifiche = new ArrayList<>();
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica " +
+                     "WHERE ID_Chef = ? " +
+                     (dopo != null ? "AND (DataCreazione, ID_Notifica) < (?, ?) " : "") +
+                     "ORDER BY DataCreazione DESC, ID_Notifica DESC " +
+                     "LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            int i = 1;
+            ps.setInt(i++, idChef);
+            if (dopo != null) {
+                ps.setTimestamp(i++, Timestamp.valueOf(dopo.dataCreazione()));
+                ps.setInt(i++, dopo.idNotifica());
+            }
+            // Una riga in più dice se esiste una pagina successiva
+            ps.setInt(i, dimensione + 1);
+            ResultSet rs = ps.executeQuery();
+            
+            while (rs.next()) {
+                notifiche.add(MAPPER.mappa(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore recupero pagina notifiche chef: " + e.getMessage());
+            e.printStackTrace();
+            return new PaginaNotifiche(new ArrayList<>(), null);
+        }
+        
+        Cursore successiva = null;
+        if (notifiche.size() > dimensione) {
+            notifiche.remove(dimensione);
+            Notifica ultima = notifiche.get(dimensione - 1);
+            successiva = new Cursore(ultima.getDataCreazione(), ultima.getIdNotifica());
+        }
+        return new PaginaNotifiche(notifiche, successiva);
+    }
+    
+    /**
+     * Ottiene le notifiche con gli ID indicati (tipicamente quelli segnalati da {@link NotificaListener}).
+     * 
+     * @param idNotifiche ID delle notifiche da leggere
+     * @return notifiche trovate, più recenti prime; null in caso di errore
+     */
+    public static List<Notifica> getByIds(List<Integer> idNotifiche) {
+        List<Notifica> notifiche = new ArrayList<>();
+        if (idNotifiche.isEmpty()) return notifiche;
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica " +
+                     "WHERE ID_Notifica = ANY(?) " +
+                     "ORDER BY DataCreazione DESC, ID_Notifica DESC";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setArray(1, conn.createArrayOf("integer", idNotifiche.toArray()));
+            ResultSet rs = ps.executeQuery();
+            
+            while (rs.next()) {
+                notifiche.add(MAPPER.mappa(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore recupero notifiche per ID: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return notifiche;
+    }
+    
+    /**
+     * Ottiene le notifiche di uno chef con ID successivo a quello indicato:
+     * serve a recuperare quelle arrivate mentre il canale LISTEN era scollegato.
+     * 
+     * @param idChef ID dello chef
+     * @param dopoId ultimo ID già noto
+     * @return notifiche successive, più recenti prime; null in caso di errore
+     */
+    public static List<Notifica> getByChefDopo(int idChef, int dopoId) {
+        List<Notifica> notifiche = new ArrayList<>();
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica " +
+                     "WHERE ID_Chef = ? AND ID_Notifica > ? " +
+                     "ORDER BY DataCreazione DESC, ID_Notifica DESC";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setInt(1, idChef);
+            ps.setInt(2, dopoId);
+            ResultSet rs = ps.executeQuery();
+            
+            while (rs.next()) {
+                notifiche.add(MAPPER.mappa(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore recupero notifiche successive: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return notifiche;
+    }
+    
+    /**
+     * Ottiene l'ID dell'ultima notifica di uno chef.
+     * 
+     * @param idChef ID dello chef
+     * @return ID massimo, 0 se lo chef non ha notifiche, -1 in caso di errore
+     */
+    public static int getUltimoId(int idChef) {
+        String sql = "SELECT COALESCE(MAX(ID_Notifica), 0) FROM Notifica WHERE ID_Chef = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setInt(1, idChef);
+            ResultSet rs = ps.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore recupero ultima notifica: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
     /**
      * Ottiene tutte le notifiche relative a un corso specifico.
      * 
@@ -92,7 +266,7 @@ public class NotificaDAO {
      */
     public static List<Notifica> getByCorso(int idCorso) {
         List<Notifica> notifiche = new ArrayList<>();
-        String sql = "SELECT * FROM Notifica WHERE ID_Corso = ? ORDER BY DataCreazione DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica WHERE ID_Corso = ? ORDER BY DataCreazione DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -101,7 +275,7 @@ public class NotificaDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                notifiche.add(createNotificaFromResultSet(rs));
+                notifiche.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -120,7 +294,7 @@ public class NotificaDAO {
      */
     public static List<Notifica> getGlobaliByChef(int idChef) {
         List<Notifica> notifiche = new ArrayList<>();
-        String sql = "SELECT * FROM Notifica WHERE ID_Chef = ? AND IsGlobale = TRUE ORDER BY DataCreazione DESC";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica WHERE ID_Chef = ? AND IsGlobale = TRUE ORDER BY DataCreazione DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -129,7 +303,7 @@ public class NotificaDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                notifiche.add(createNotificaFromResultSet(rs));
+                notifiche.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -147,7 +321,7 @@ public class NotificaDAO {
      * @return oggetto Notifica se trovato, null altrimenti
      */
     public static Notifica getById(int idNotifica) {
-        String sql = "SELECT * FROM Notifica WHERE ID_Notifica = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Notifica WHERE ID_Notifica = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -156,7 +330,7 @@ public class NotificaDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createNotificaFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -189,28 +363,4 @@ public class NotificaDAO {
         
         return false;
     }
-    
-    /**
-     * Crea un oggetto Notifica da un ResultSet.
-     */
-    private static Notifica createNotificaFromResultSet(ResultSet rs) throws SQLException {
-        Integer idCorso = rs.getInt("ID_Corso");
-        if (rs.wasNull()) {
-            idCorso = null;
-        }
-        
-        Timestamp timestamp = rs.getTimestamp("DataCreazione");
-        LocalDateTime dataCreazione = timestamp != null ? timestamp.toLocalDateTime() : null;
-        
-        return new Notifica(
-            rs.getInt("ID_Notifica"),
-            rs.getInt("ID_Chef"),
-            idCorso,
-            rs.getString("Titolo"),
-            rs.getString("Messaggio"),
-            TipoModifica.fromString(rs.getString("TipoModifica")),
-            rs.getBoolean("IsGlobale"),
-            dataCreazione
-        );
-    }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Notifica;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Ricezione push delle nuove notifiche di uno chef tramite LISTEN/NOTIFY.
+ *
+ * La migrazione V5 segnala ogni INSERT su Notifica sul canale notifiche_chef_&lt;ID_Chef&gt;
+ * con l'ID della riga. Un thread dedicato resta in ascolto su una connessione fuori dal pool
+ * ({@link DatabaseConnection#getConnessioneDedicata()}) e, a ogni segnale, legge solo
+ * le righe nuove e le consegna al consumer.
+ *
+ * Se la connessione cade il thread si ricollega con un'attesa crescente e recupera
+ * le notifiche con ID successivo all'ultimo consegnato, arrivate nel frattempo.
+ * Lo stesso recupero sostituisce la lettura delle righe segnalate quando questa fallisce,
+ * e viene ritentato finché non riesce.
+ * Il consumer viene chiamato dal thread di ascolto, non dall'EDT.
+ */
+public class NotificaListener {
+
+    private static final String PREFISSO_CANALE = "notifiche_chef_";
+
+    // Attesa massima di getNotifications: oltre questo tempo si ricontrolla se fermarsi
+    private static final int ATTESA_MS = 10_000;
+    private static final long RICONNESSIONE_MIN_MS = 1_000;
+    private static final long RICONNESSIONE_MAX_MS = 60_000;
+
+    private final int idChef;
+    private final Consumer<List<Notifica>> onNuove;
+
+    private volatile boolean attivo = false;
+    private volatile Connection connessione;
+    private Thread thread;
+
+    // Ultimo ID consegnato (o presente all'avvio): base del recupero dopo una riconnessione; -1 se non noto
+    private int ultimoId = -1;
+
+    // Notifiche da recuperare a partire da ultimoId (connessione caduta o lettura fallita)
+    private boolean daRecuperare = false;
+
+    /**
+     * @param idChef  chef di cui ricevere le notifiche
+     * @param onNuove riceve le nuove notifiche (più recenti prime), dal thread di ascolto
+     */
+    public NotificaListener(int idChef, Consumer<List<Notifica>> onNuove) {
+        this.idChef = idChef;
+        this.onNuove = onNuove;
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Avvia l'ascolto in background. Non ha effetto se è già avviato.
+     */
+    public synchronized void avvia() {
+        if (attivo) return;
+        attivo = true;
+        thread = new Thread(this::ascolta, "notifiche-listener-" + idChef);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ferma l'ascolto e chiude la connessione dedicata. Nessuna notifica viene consegnata dopo il ritorno.
+     */
+    public synchronized void ferma() {
+        if (!attivo) return;
+        attivo = false;
+        // Chiudere la connessione sblocca getNotifications se il thread è in attesa
+        chiudi(connessione);
+        thread.interrupt();
+        thread = null;
+    }
+
+    public boolean isAttivo() {
+        return attivo;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private void ascolta() {
+        long attesa = RICONNESSIONE_MIN_MS;
+
+        while (attivo) {
+            Connection conn = DatabaseConnection.getConnessioneDedicata();
+            if (conn == null) {
+                attesa = attendi(attesa);
+                daRecuperare = true;
+                continue;
+            }
+            connessione = conn;
+
+            try (Statement st = conn.createStatement()) {
+                // ID_Chef è un intero: il nome del canale non può contenere altro
+                st.execute("LISTEN " + PREFISSO_CANALE + idChef);
+                attesa = RICONNESSIONE_MIN_MS;
+
+                // Letto dopo il LISTEN: una notifica inserita nel mezzo arriva comunque come segnale
+                if (ultimoId < 0) {
+                    ultimoId = NotificaDAO.getUltimoId(idChef);
+                    daRecuperare = false;
+                } else if (daRecuperare) {
+                    recupera();
+                }
+
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (attivo) {
+                    PGNotification[] ricevute = pg.getNotifications(ATTESA_MS);
+                    if (ricevute != null && ricevute.length > 0) {
+                        consegna(ricevute);
+                    }
+                    if (daRecuperare) {
+                        recupera();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!attivo) break;
+                System.err.println("Ascolto notifiche interrotto: " + e.getMessage());
+                daRecuperare = true;
+                attesa = attendi(attesa);
+            } finally {
+                connessione = null;
+                chiudi(conn);
+            }
+        }
+    }
+
+    /**
+     * Legge le righe segnalate (gli ID arrivati insieme vengono letti con una sola query).
+     */
+    private void consegna(PGNotification[] ricevute) {
+        List<Integer> ids = new ArrayList<>();
+        for (PGNotification n : ricevute) {
+            try {
+                ids.add(Integer.parseInt(n.getParameter()));
+            } catch (NumberFormatException e) {
+                System.err.println("Payload notifica non valido: " + n.getParameter());
+            }
+        }
+
+        List<Notifica> nuove = NotificaDAO.getByIds(ids);
+        if (nuove == null || nuove.size() < ids.size()) {
+            // Lettura fallita o incompleta: consegnarne una parte sposterebbe ultimoId oltre
+            // quelle mancanti, quindi si rilegge tutto dall'ultimo ID consegnato
+            daRecuperare = true;
+            return;
+        }
+        pubblica(nuove);
+    }
+
+    /**
+     * Consegna le notifiche con ID successivo all'ultimo consegnato. Se la lettura fallisce
+     * il recupero resta in sospeso e viene ritentato al giro successivo dell'ascolto.
+     */
+    private void recupera() {
+        if (ultimoId < 0) {
+            // Nessuna base nota: si riparte dall'ultima notifica esistente
+            ultimoId = NotificaDAO.getUltimoId(idChef);
+            daRecuperare = ultimoId < 0;
+            return;
+        }
+        List<Notifica> mancanti = NotificaDAO.getByChefDopo(idChef, ultimoId);
+        if (mancanti == null) return;
+        daRecuperare = false;
+        pubblica(mancanti);
+    }
+
+    private void pubblica(List<Notifica> nuove) {
+        if (nuove.isEmpty() || !attivo) return;
+        for (Notifica n : nuove) {
+            ultimoId = Math.max(ultimoId, n.getIdNotifica());
+        }
+        onNuove.accept(nuove);
+    }
+
+    /** Attende prima di ritentare; restituisce l'attesa successiva (raddoppiata fino al massimo). */
+    private long attendi(long attesa) {
+        try {
+            Thread.sleep(attesa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            attivo = false;
+        }
+        return Math.min(attesa * 2, RICONNESSIONE_MAX_MS);
+    }
+
+    private static void chiudi(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Errore chiusura connessione notifiche: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.dao.ReportDAO.ReportMensile;
+import it.uninafoodlab.dao.ReportDAO.SerieMensile;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache dei report per chef, davanti a {@link ReportDAO}.
+ *
+ * I report di mesi (e anni) già chiusi non scadono: le loro sessioni non cambiano
+ * se non per modifiche dello chef stesso, che passano dai DAO e invalidano la cache.
+ * Il mese e l'anno in corso, e quelli futuri, scadono invece dopo {@link #TTL_CORRENTE_MS}
+ * per cogliere anche le modifiche fatte da altre istanze dell'applicazione.
+ *
+ * L'invalidazione è per chef: SessioneOnlineDAO, SessionePraticaDAO, RicettaDAO e CorsoDAO
+ * chiamano {@link #invalidaChef(int)} dopo ogni modifica andata a buon fine.
+ * Come in {@link IngredienteCache}, un report calcolato mentre era in corso una modifica
+ * porta la versione letta prima della query e non viene servito.
+ */
+public class ReportCache {
+
+    private static final long TTL_CORRENTE_MS = 60 * 1000L;
+    private static final long MAI = Long.MAX_VALUE;
+
+    private record ChiaveMese(int idChef, YearMonth mese) {}
+    private record ChiaveAnno(int idChef, int anno) {}
+    private record ChiaveSerie(int idChef, int annoInizio, int annoFine) {}
+
+    /** Valore in cache con la versione dello chef al momento della lettura. */
+    private record Voce<V>(V valore, long versione, long scadenza) {
+        boolean scaduta() {
+            return scadenza != MAI && System.currentTimeMillis() >= scadenza;
+        }
+    }
+
+    private static final Map<ChiaveMese, Voce<ReportMensile>>       mensili  = new ConcurrentHashMap<>();
+    private static final Map<ChiaveAnno, Voce<Map<Integer, int[]>>> annuali  = new ConcurrentHashMap<>();
+    private static final Map<ChiaveSerie, Voce<SerieMensile>>       serie    = new ConcurrentHashMap<>();
+    private static final Map<Integer, AtomicLong>                   versioni = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hit           = new AtomicLong();
+    private static final AtomicLong miss          = new AtomicLong();
+    private static final AtomicLong scadute       = new AtomicLong();
+    private static final AtomicLong invalidazioni = new AtomicLong();
+
+    /**
+     * Fotografia delle metriche della cache.
+     */
+    public record Statistiche(long hit, long miss, long scadute, long invalidazioni,
+                              int reportMensili, int reportAnnuali, int serieMensili) {
+        public double hitRate() {
+            long totale = hit + miss;
+            return totale == 0 ? 0 : (double) hit / totale;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ReportCache[hit=%d, miss=%d, hitRate=%.1f%%, scadute=%d, invalidazioni=%d, mensili=%d, annuali=%d, serie=%d]",
+                    hit, miss, hitRate() * 100, scadute, invalidazioni, reportMensili, reportAnnuali, serieMensili);
+        }
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * @return report del mese, dalla cache se valido; null in caso di errore (non messo in cache)
+     */
+    public static ReportMensile getReportMensile(int idChef, YearMonth mese) {
+        ChiaveMese chiave = new ChiaveMese(idChef, mese);
+        long versione = versione(idChef);
+
+        Voce<ReportMensile> voce = mensili.get(chiave);
+        if (valida(voce, versione)) {
+            hit.incrementAndGet();
+            return voce.valore();
+        }
+
+        miss.incrementAndGet();
+        ReportMensile report = ReportDAO.getReportMensile(idChef, mese);
+        if (report != null) {
+            mensili.put(chiave, new Voce<>(report, versione, scadenza(mese)));
+        }
+        return report;
+    }
+
+    /**
+     * @return sessioni per mese dell'anno (mese → {online, pratiche}); la mappa restituita è una copia.
+     *         null in caso di errore (non messo in cache)
+     */
+    public static Map<Integer, int[]> getSessioniPerMese(int idChef, int anno) {
+        ChiaveAnno chiave = new ChiaveAnno(idChef, anno);
+        long versione = versione(idChef);
+
+        Voce<Map<Integer, int[]>> voce = annuali.get(chiave);
+        if (valida(voce, versione)) {
+            hit.incrementAndGet();
+            return copia(voce.valore());
+        }
+
+        miss.incrementAndGet();
+        Map<Integer, int[]> dati = ReportDAO.getSessioniPerMese(idChef, anno);
+        if (dati != null) {
+            annuali.put(chiave, new Voce<>(copia(dati), versione, scadenza(YearMonth.of(anno, 12))));
+        }
+        return dati;
+    }
+
+    /**
+     * @return metriche mensili degli anni indicati (la serie è immutabile e può essere condivisa);
+     *         null in caso di errore (non messo in cache)
+     */
+    public static SerieMensile getSerieMensile(int idChef, int annoInizio, int annoFine) {
+        ChiaveSerie chiave = new ChiaveSerie(idChef, annoInizio, annoFine);
+        long versione = versione(idChef);
+
+        Voce<SerieMensile> voce = serie.get(chiave);
+        if (valida(voce, versione)) {
+            hit.incrementAndGet();
+            return voce.valore();
+        }
+
+        miss.incrementAndGet();
+        SerieMensile s = ReportDAO.getSerieMensile(idChef, annoInizio, annoFine);
+        if (s != null) {
+            serie.put(chiave, new Voce<>(s, versione, scadenza(YearMonth.of(annoFine, 12))));
+        }
+        return s;
+    }
+
+    /**
+     * Scarta tutti i report dello chef: da chiamare dopo ogni modifica a corsi, sessioni o ricette.
+     */
+    public static void invalidaChef(int idChef) {
+        versioni.computeIfAbsent(idChef, k -> new AtomicLong()).incrementAndGet();
+        invalidazioni.incrementAndGet();
+        mensili.keySet().removeIf(k -> k.idChef() == idChef);
+        annuali.keySet().removeIf(k -> k.idChef() == idChef);
+        serie.keySet().removeIf(k -> k.idChef() == idChef);
+    }
+
+    /**
+     * Scarta tutti i report in cache.
+     */
+    public static void invalida() {
+        versioni.values().forEach(AtomicLong::incrementAndGet);
+        invalidazioni.incrementAndGet();
+        mensili.clear();
+        annuali.clear();
+        serie.clear();
+    }
+
+    public static Statistiche getStatistiche() {
+        return new Statistiche(hit.get(), miss.get(), scadute.get(), invalidazioni.get(),
+                               mensili.size(), annuali.size(), serie.size());
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static long versione(int idChef) {
+        AtomicLong v = versioni.get(idChef);
+        return v != null ? v.get() : 0;
+    }
+
+    private static boolean valida(Voce<?> voce, long versione) {
+        if (voce == null || voce.versione() != versione) return false;
+        if (voce.scaduta()) {
+            scadute.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Un periodo che termina prima del mese corrente è chiuso e non scade;
+     * il periodo in corso e quelli futuri hanno una validità breve.
+     */
+    private static long scadenza(YearMonth ultimoMese) {
+        return ultimoMese.isBefore(YearMonth.now())
+            ? MAI
+            : System.currentTimeMillis() + TTL_CORRENTE_MS;
+    }
+
+    private static Map<Integer, int[]> copia(Map<Integer, int[]> dati) {
+        Map<Integer, int[]> c = new HashMap<>();
+        dati.forEach((mese, valori) -> c.put(mese, valori.clone()));
+        return c;
+    }
+}
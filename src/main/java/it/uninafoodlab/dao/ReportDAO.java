@@ -1,6 +1,7 @@
 package it.uninafoodlab.dao;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
@@ -8,10 +9,170 @@ import java.util.Map;
 /**
  * Data Access Object per la generazione di report mensili.
  * Fornisce statistiche aggregate sui corsi e le sessioni.
- * Query scritte per PostgreSQL (usa EXTRACT invece di YEAR/MONTH).
+ * Query scritte per PostgreSQL: i filtri sulle date usano intervalli semiaperti
+ * (Data >= inizio AND Data < fine) così da poter sfruttare gli indici su (ID_Corso, Data).
+ *
+ * I report si leggono dalla tabella riassuntiva chef_month_stats (migrazione V4),
+ * una riga per chef e mese tenuta aggiornata dai trigger. Se la tabella non è
+ * disponibile si ricade sulle query che aggregano sessioni e ricette.
  */
 public class ReportDAO {
 
+    // Diventa false se chef_month_stats non esiste (migrazione V4 non applicata)
+    private static volatile boolean rollupDisponibile = true;
+
+    // SQLState PostgreSQL di tabella inesistente
+    private static final String TABELLA_INESISTENTE = "42P01";
+
+    // ==================== QUERY ====================
+
+    /*
+     * Query sui dati grezzi, package-private per VerificaPianiReport che ne controlla
+     * i piani di esecuzione. I parametri sono sempre lo chef e gli estremi [inizio, fine).
+     */
+
+    // Report del mese in un'unica query (parametri: chef, inizio, fine, chef, inizio, fine)
+    static final String SQL_QUERY_UNICA =
+        "WITH SessOnline AS ( " +
+        "  SELECT SO.ID_Corso " +
+        "  FROM SessioneOnline SO " +
+        "  JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
+        "  WHERE C.ID_Chef = ? " +
+        "    AND SO.Data >= ? " +
+        "    AND SO.Data <  ? " +
+        "), SessPratiche AS ( " +
+        "  SELECT SP.ID_SessionePratica, SP.ID_Corso, COUNT(R.ID_Ricetta) AS NumRicette " +
+        "  FROM SessionePratica SP " +
+        "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "  LEFT JOIN Ricetta R ON R.ID_SessionePratica = SP.ID_SessionePratica " +
+        "  WHERE C.ID_Chef = ? " +
+        "    AND SP.Data >= ? " +
+        "    AND SP.Data <  ? " +
+        "  GROUP BY SP.ID_SessionePratica, SP.ID_Corso " +
+        ") " +
+        "SELECT (SELECT COUNT(*) FROM ( " +
+        "          SELECT ID_Corso FROM SessOnline " +
+        "          UNION " +
+        "          SELECT ID_Corso FROM SessPratiche " +
+        "       ) CorsiMese)                       AS NumeroCorsi, " +
+        "       (SELECT COUNT(*) FROM SessOnline)  AS SessOnline, " +
+        "       COUNT(*)                           AS SessPratiche, " +
+        "       COALESCE(MAX(NumRicette), 0)       AS MaxRicette, " +
+        "       COALESCE(MIN(NumRicette), 0)       AS MinRicette, " +
+        "       COALESCE(AVG(NumRicette), 0.0)     AS MediaRicette " +
+        "FROM SessPratiche";
+
+    // Serie mensile aggregando sessioni e ricette (parametri: chef, inizio, fine, chef, inizio, fine)
+    static final String SQL_SERIE_GREZZI =
+        "WITH Sessioni AS ( " +
+        "  SELECT date_trunc('month', SO.Data)::date AS Mese, SO.ID_Corso, NULL::integer AS NumRicette " +
+        "  FROM SessioneOnline SO " +
+        "  JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
+        "  WHERE C.ID_Chef = ? AND SO.Data >= ? AND SO.Data < ? " +
+        "  UNION ALL " +
+        "  SELECT date_trunc('month', SP.Data)::date, SP.ID_Corso, " +
+        "         (SELECT COUNT(*)::integer FROM Ricetta R WHERE R.ID_SessionePratica = SP.ID_SessionePratica) " +
+        "  FROM SessionePratica SP " +
+        "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "  WHERE C.ID_Chef = ? AND SP.Data >= ? AND SP.Data < ? " +
+        ") " +
+        "SELECT Mese, " +
+        "       COUNT(DISTINCT ID_Corso)                   AS NumeroCorsi, " +
+        "       COUNT(*) FILTER (WHERE NumRicette IS NULL) AS SessioniOnline, " +
+        "       COUNT(NumRicette)                          AS SessioniPratiche, " +
+        "       COALESCE(SUM(NumRicette), 0)               AS RicetteSomma, " +
+        "       COALESCE(MAX(NumRicette), 0)               AS RicetteMax, " +
+        "       COALESCE(MIN(NumRicette), 0)               AS RicetteMin " +
+        "FROM Sessioni " +
+        "GROUP BY Mese";
+
+    // Sessioni online per mese dell'anno (parametri: chef, inizio, fine)
+    static final String SQL_SESSIONI_ONLINE_PER_MESE =
+        "SELECT EXTRACT(MONTH FROM SO.Data)::int AS Mese, " +
+        "       COUNT(SO.ID_SessioneOnline) AS Conteggio " +
+        "FROM SessioneOnline SO " +
+        "JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
+        "WHERE C.ID_Chef = ? " +
+        "  AND SO.Data >= ? AND SO.Data < ? " +
+        "GROUP BY EXTRACT(MONTH FROM SO.Data)::int";
+
+    // Sessioni pratiche per mese dell'anno (parametri: chef, inizio, fine)
+    static final String SQL_SESSIONI_PRATICHE_PER_MESE =
+        "SELECT EXTRACT(MONTH FROM SP.Data)::int AS Mese, " +
+        "       COUNT(SP.ID_SessionePratica) AS Conteggio " +
+        "FROM SessionePratica SP " +
+        "JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "WHERE C.ID_Chef = ? " +
+        "  AND SP.Data >= ? AND SP.Data < ? " +
+        "GROUP BY EXTRACT(MONTH FROM SP.Data)::int";
+
+    // Corsi con almeno una sessione nell'intervallo (parametri: chef, inizio, fine, inizio, fine)
+    static final String SQL_CORSI_NEL_MESE =
+        "SELECT COUNT(DISTINCT C.ID_Corso) AS Totale " +
+        "FROM Corso C " +
+        "WHERE C.ID_Chef = ? " +
+        "  AND ( " +
+        "    EXISTS ( " +
+        "      SELECT 1 FROM SessioneOnline SO " +
+        "      WHERE SO.ID_Corso = C.ID_Corso " +
+        "        AND SO.Data >= ? " +
+        "        AND SO.Data <  ? " +
+        "    ) " +
+        "    OR EXISTS ( " +
+        "      SELECT 1 FROM SessionePratica SP " +
+        "      WHERE SP.ID_Corso = C.ID_Corso " +
+        "        AND SP.Data >= ? " +
+        "        AND SP.Data <  ? " +
+        "    ) " +
+        "  )";
+
+    // Sessioni online nell'intervallo (parametri: chef, inizio, fine)
+    static final String SQL_SESSIONI_ONLINE_NEL_MESE =
+        "SELECT COUNT(SO.ID_SessioneOnline) AS Totale " +
+        "FROM SessioneOnline SO " +
+        "JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
+        "WHERE C.ID_Chef = ? " +
+        "  AND SO.Data >= ? " +
+        "  AND SO.Data <  ?";
+
+    // Sessioni pratiche nell'intervallo (parametri: chef, inizio, fine)
+    static final String SQL_SESSIONI_PRATICHE_NEL_MESE =
+        "SELECT COUNT(SP.ID_SessionePratica) AS Totale " +
+        "FROM SessionePratica SP " +
+        "JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "WHERE C.ID_Chef = ? " +
+        "  AND SP.Data >= ? " +
+        "  AND SP.Data <  ?";
+
+    // Massimo e minimo di ricette per sessione pratica (parametri: chef, inizio, fine)
+    static final String SQL_RICETTE_MAX_MIN =
+        "SELECT COALESCE(MAX(rc.NumRicette), 0) AS MaxRicette, " +
+        "       COALESCE(MIN(rc.NumRicette), 0) AS MinRicette " +
+        "FROM ( " +
+        "  SELECT SP.ID_SessionePratica, COUNT(R.ID_Ricetta) AS NumRicette " +
+        "  FROM SessionePratica SP " +
+        "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "  LEFT JOIN Ricetta R ON R.ID_SessionePratica = SP.ID_SessionePratica " +
+        "  WHERE C.ID_Chef = ? " +
+        "    AND SP.Data >= ? " +
+        "    AND SP.Data <  ? " +
+        "  GROUP BY SP.ID_SessionePratica " +
+        ") rc";
+
+    // Media di ricette per sessione pratica (parametri: chef, inizio, fine)
+    static final String SQL_RICETTE_MEDIA =
+        "SELECT COALESCE(AVG(rc.NumRicette), 0.0) AS MediaRicette " +
+        "FROM ( " +
+        "  SELECT SP.ID_SessionePratica, COUNT(R.ID_Ricetta) AS NumRicette " +
+        "  FROM SessionePratica SP " +
+        "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
+        "  LEFT JOIN Ricetta R ON R.ID_SessionePratica = SP.ID_SessionePratica " +
+        "  WHERE C.ID_Chef = ? " +
+        "    AND SP.Data >= ? " +
+        "    AND SP.Data <  ? " +
+        "  GROUP BY SP.ID_SessionePratica " +
+        ") rc";
+
     // ==================== CLASSE INTERNA ====================
 
     /**
@@ -43,57 +204,266 @@ public class ReportDAO {
         public double getMediaRicettePerSessione() { return mediaRicettePerSessione; }
     }
 
+    /**
+     * Tutte le metriche del report mensile per un intervallo di anni, mese per mese.
+     * I valori stanno in array primitivi indicizzati dallo scostamento del mese
+     * dal gennaio del primo anno: indice = (anno - annoInizio) * 12 + (mese - 1).
+     * Immutabile dopo la costruzione.
+     */
+    public static class SerieMensile {
+        private final int   annoInizio;
+        private final int   annoFine;
+        private final int[] numeroCorsi;
+        private final int[] sessioniOnline;
+        private final int[] sessioniPratiche;
+        private final int[] ricetteSomma;
+        private final int[] ricetteMax;
+        private final int[] ricetteMin;
+
+        SerieMensile(int annoInizio, int annoFine) {
+            if (annoFine < annoInizio) {
+                throw new IllegalArgumentException("intervallo di anni non valido: " + annoInizio + "-" + annoFine);
+            }
+            this.annoInizio = annoInizio;
+            this.annoFine   = annoFine;
+            int mesi = (annoFine - annoInizio + 1) * 12;
+            numeroCorsi      = new int[mesi];
+            sessioniOnline   = new int[mesi];
+            sessioniPratiche = new int[mesi];
+            ricetteSomma     = new int[mesi];
+            ricetteMax       = new int[mesi];
+            ricetteMin       = new int[mesi];
+        }
+
+        public int getAnnoInizio()  { return annoInizio; }
+        public int getAnnoFine()    { return annoFine; }
+        public int getNumeroMesi()  { return numeroCorsi.length; }
+
+        /** @return indice del mese nella serie, -1 se fuori intervallo */
+        public int indice(YearMonth mese) {
+            int i = (mese.getYear() - annoInizio) * 12 + mese.getMonthValue() - 1;
+            return i >= 0 && i < numeroCorsi.length ? i : -1;
+        }
+
+        public boolean contiene(YearMonth mese) { return indice(mese) >= 0; }
+        public YearMonth getMese(int indice)     { return YearMonth.of(annoInizio, 1).plusMonths(indice); }
+
+        public int    getNumeroCorsi(int indice)      { return numeroCorsi[indice]; }
+        public int    getSessioniOnline(int indice)   { return sessioniOnline[indice]; }
+        public int    getSessioniPratiche(int indice) { return sessioniPratiche[indice]; }
+        public int    getMaxRicette(int indice)       { return ricetteMax[indice]; }
+        public int    getMinRicette(int indice)       { return ricetteMin[indice]; }
+        public double getMediaRicette(int indice) {
+            return sessioniPratiche[indice] > 0 ? (double) ricetteSomma[indice] / sessioniPratiche[indice] : 0.0;
+        }
+
+        /** @return report del mese ricavato dalla serie, null se il mese è fuori intervallo */
+        public ReportMensile getReportMensile(YearMonth mese) {
+            int i = indice(mese);
+            if (i < 0) return null;
+            return new ReportMensile(numeroCorsi[i], sessioniOnline[i], sessioniPratiche[i],
+                                     ricetteMax[i], ricetteMin[i], getMediaRicette(i));
+        }
+    }
+
     // ==================== METODI PUBBLICI ====================
 
     /**
      * Genera un report mensile per uno chef specifico.
+     * Legge la riga del mese da chef_month_stats; se non è possibile usa un'unica query
+     * con CTE e, se fallisce anche quella, le query separate per metrica.
      *
      * @param idChef    ID dello chef
      * @param yearMonth mese e anno per il report
      * @return oggetto ReportMensile con le statistiche
      */
     public static ReportMensile getReportMensile(int idChef, YearMonth yearMonth) {
-        int year  = yearMonth.getYear();
-        int month = yearMonth.getMonthValue();
+        ReportMensile report = getReportMensileDaRollup(idChef, yearMonth);
+        if (report != null) {
+            return report;
+        }
+        report = getReportMensileQueryUnica(idChef, yearMonth);
+        if (report != null) {
+            return report;
+        }
+        return getReportMensileQuerySeparate(idChef, yearMonth);
+    }
 
-        int    numeroCorsi   = countCorsiNelMese(idChef, year, month);
-        int    sessOnline    = countSessioniOnlineNelMese(idChef, year, month);
-        int    sessPratiche  = countSessioniPraticheNelMese(idChef, year, month);
-        int[]  maxMin        = getRicetteMaxMin(idChef, year, month);
-        double media         = getRicetteMedia(idChef, year, month);
+    /**
+     * Legge il report del mese dalla tabella riassuntiva: una sola riga per chiave primaria.
+     * Un mese senza riga non ha sessioni e dà un report a zero.
+     *
+     * @param idChef    ID dello chef
+     * @param yearMonth mese e anno per il report
+     * @return oggetto ReportMensile, null se la tabella non è disponibile o in caso di errore
+     */
+    public static ReportMensile getReportMensileDaRollup(int idChef, YearMonth yearMonth) {
+        if (!rollupDisponibile) return null;
+
+        String sql =
+            "SELECT NumeroCorsi, SessioniOnline, SessioniPratiche, RicetteSomma, " +
+            "       COALESCE(RicetteMax, 0) AS MaxRicette, COALESCE(RicetteMin, 0) AS MinRicette " +
+            "FROM chef_month_stats " +
+            "WHERE ID_Chef = ? AND Mese = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, idChef);
+            ps.setDate(2, inizioMese(yearMonth));
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                return new ReportMensile(0, 0, 0, 0, 0, 0.0);
+            }
+            int pratiche = rs.getInt("SessioniPratiche");
+            return new ReportMensile(
+                rs.getInt("NumeroCorsi"),
+                rs.getInt("SessioniOnline"),
+                pratiche,
+                rs.getInt("MaxRicette"),
+                rs.getInt("MinRicette"),
+                pratiche > 0 ? (double) rs.getInt("RicetteSomma") / pratiche : 0.0);
+        } catch (SQLException e) {
+            segnalaErroreRollup("report mensile", e);
+        }
+        return null;
+    }
+
+    /**
+     * Calcola tutte le statistiche del mese in una sola query (un solo round trip).
+     * La CTE SessPratiche conta le ricette per sessione una volta sola e alimenta
+     * sia MAX/MIN sia la media.
+     *
+     * @param idChef    ID dello chef
+     * @param yearMonth mese e anno per il report
+     * @return oggetto ReportMensile, null in caso di errore
+     */
+    public static ReportMensile getReportMensileQueryUnica(int idChef, YearMonth yearMonth) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_QUERY_UNICA)) {
+            Date inizio = inizioMese(yearMonth);
+            Date fine   = inizioMese(yearMonth.plusMonths(1));
+            ps.setInt(1, idChef);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
+            ps.setInt(4, idChef);
+            ps.setDate(5, inizio);
+            ps.setDate(6, fine);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return new ReportMensile(
+                    rs.getInt("NumeroCorsi"),
+                    rs.getInt("SessOnline"),
+                    rs.getInt("SessPratiche"),
+                    rs.getInt("MaxRicette"),
+                    rs.getInt("MinRicette"),
+                    rs.getDouble("MediaRicette"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore report mensile (query unica): " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Calcola il report mensile con una query separata per ogni metrica.
+     * Mantenuto come fallback e come riferimento per verificare la query unica.
+     *
+     * @param idChef    ID dello chef
+     * @param yearMonth mese e anno per il report
+     * @return oggetto ReportMensile con le statistiche
+     */
+    public static ReportMensile getReportMensileQuerySeparate(int idChef, YearMonth yearMonth) {
+        Date inizio = inizioMese(yearMonth);
+        Date fine   = inizioMese(yearMonth.plusMonths(1));
+
+        int    numeroCorsi   = countCorsiNelMese(idChef, inizio, fine);
+        int    sessOnline    = countSessioniOnlineNelMese(idChef, inizio, fine);
+        int    sessPratiche  = countSessioniPraticheNelMese(idChef, inizio, fine);
+        int[]  maxMin        = getRicetteMaxMin(idChef, inizio, fine);
+        double media         = getRicetteMedia(idChef, inizio, fine);
 
         return new ReportMensile(numeroCorsi, sessOnline, sessPratiche,
                                  maxMin[0], maxMin[1], media);
     }
 
+    /**
+     * Restituisce tutte le metriche mensili degli anni indicati (estremi inclusi)
+     * con una sola query raggruppata per mese: dalla tabella riassuntiva se disponibile,
+     * altrimenti aggregando sessioni e ricette.
+     *
+     * @param idChef     ID dello chef
+     * @param annoInizio primo anno
+     * @param annoFine   ultimo anno
+     * @return serie mensile, null in caso di errore
+     */
+    public static SerieMensile getSerieMensile(int idChef, int annoInizio, int annoFine) {
+        String sqlRollup =
+            "SELECT Mese, NumeroCorsi, SessioniOnline, SessioniPratiche, RicetteSomma, " +
+            "       COALESCE(RicetteMax, 0) AS RicetteMax, COALESCE(RicetteMin, 0) AS RicetteMin " +
+            "FROM chef_month_stats " +
+            "WHERE ID_Chef = ? AND Mese >= ? AND Mese < ?";
+
+        SerieMensile serie = new SerieMensile(annoInizio, annoFine);
+        Date inizio = Date.valueOf(LocalDate.of(annoInizio, 1, 1));
+        Date fine   = Date.valueOf(LocalDate.of(annoFine + 1, 1, 1));
+
+        if (rollupDisponibile) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sqlRollup)) {
+                ps.setInt(1, idChef);
+                ps.setDate(2, inizio);
+                ps.setDate(3, fine);
+                riempiSerie(serie, ps.executeQuery());
+                return serie;
+            } catch (SQLException e) {
+                segnalaErroreRollup("serie mensile", e);
+            }
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_SERIE_GREZZI)) {
+            ps.setInt(1, idChef);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
+            ps.setInt(4, idChef);
+            ps.setDate(5, inizio);
+            ps.setDate(6, fine);
+            riempiSerie(serie, ps.executeQuery());
+            return serie;
+        } catch (SQLException e) {
+            System.err.println("Errore serie mensile: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /**
      * Restituisce il numero di sessioni online e pratiche per ogni mese
      * dell'anno specificato. Utile per i grafici annuali JFreeChart.
      *
      * @param idChef ID dello chef
      * @param anno   anno di riferimento
-     * @return Map con mese (1-12) come chiave e int[]{sessOnline, sessPratiche} come valore
+     * @return Map con mese (1-12) come chiave e int[]{sessOnline, sessPratiche} come valore,
+     *         null in caso di errore
      */
     public static Map<Integer, int[]> getSessioniPerMese(int idChef, int anno) {
-        Map<Integer, int[]> risultato = new HashMap<>();
+        Map<Integer, int[]> risultato = getSessioniPerMeseDaRollup(idChef, anno);
+        if (risultato != null) {
+            return risultato;
+        }
+
+        risultato = new HashMap<>();
         for (int i = 1; i <= 12; i++) {
             risultato.put(i, new int[]{0, 0});
         }
 
         // --- Sessioni online ---
-        String sqlOnline =
-            "SELECT EXTRACT(MONTH FROM SO.Data)::int AS Mese, " +
-            "       COUNT(SO.ID_SessioneOnline) AS Conteggio " +
-            "FROM SessioneOnline SO " +
-            "JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
-            "WHERE C.ID_Chef = ? " +
-            "  AND EXTRACT(YEAR FROM SO.Data)::int = ? " +
-            "GROUP BY EXTRACT(MONTH FROM SO.Data)::int";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sqlOnline)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_SESSIONI_ONLINE_PER_MESE)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, anno);
+            ps.setDate(2, Date.valueOf(LocalDate.of(anno, 1, 1)));
+            ps.setDate(3, Date.valueOf(LocalDate.of(anno + 1, 1, 1)));
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 int mese = rs.getInt("Mese");
@@ -102,22 +472,15 @@ public class ReportDAO {
         } catch (SQLException e) {
             System.err.println("Errore sessioni online per mese: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
 
         // --- Sessioni pratiche ---
-        String sqlPratiche =
-            "SELECT EXTRACT(MONTH FROM SP.Data)::int AS Mese, " +
-            "       COUNT(SP.ID_SessionePratica) AS Conteggio " +
-            "FROM SessionePratica SP " +
-            "JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
-            "WHERE C.ID_Chef = ? " +
-            "  AND EXTRACT(YEAR FROM SP.Data)::int = ? " +
-            "GROUP BY EXTRACT(MONTH FROM SP.Data)::int";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sqlPratiche)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_SESSIONI_PRATICHE_PER_MESE)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, anno);
+            ps.setDate(2, Date.valueOf(LocalDate.of(anno, 1, 1)));
+            ps.setDate(3, Date.valueOf(LocalDate.of(anno + 1, 1, 1)));
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 int mese = rs.getInt("Mese");
@@ -126,43 +489,140 @@ public class ReportDAO {
         } catch (SQLException e) {
             System.err.println("Errore sessioni pratiche per mese: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
 
         return risultato;
     }
 
-    // ==================== METODI PRIVATI DI SUPPORTO ====================
-
     /**
-     * Conta i corsi con almeno una sessione nel mese/anno.
+     * Sessioni per mese lette dalla tabella riassuntiva: al più 12 righe.
+     *
+     * @return Map mese (1-12) → int[]{sessOnline, sessPratiche}, null se la tabella non è disponibile
      */
-    private static int countCorsiNelMese(int idChef, int year, int month) {
+    private static Map<Integer, int[]> getSessioniPerMeseDaRollup(int idChef, int anno) {
+        if (!rollupDisponibile) return null;
+
         String sql =
-            "SELECT COUNT(DISTINCT C.ID_Corso) AS Totale " +
-            "FROM Corso C " +
-            "WHERE C.ID_Chef = ? " +
-            "  AND ( " +
-            "    EXISTS ( " +
-            "      SELECT 1 FROM SessioneOnline SO " +
-            "      WHERE SO.ID_Corso = C.ID_Corso " +
-            "        AND EXTRACT(YEAR  FROM SO.Data)::int = ? " +
-            "        AND EXTRACT(MONTH FROM SO.Data)::int = ? " +
-            "    ) " +
-            "    OR EXISTS ( " +
-            "      SELECT 1 FROM SessionePratica SP " +
-            "      WHERE SP.ID_Corso = C.ID_Corso " +
-            "        AND EXTRACT(YEAR  FROM SP.Data)::int = ? " +
-            "        AND EXTRACT(MONTH FROM SP.Data)::int = ? " +
-            "    ) " +
-            "  )";
+            "SELECT EXTRACT(MONTH FROM Mese)::int AS Mese, SessioniOnline, SessioniPratiche " +
+            "FROM chef_month_stats " +
+            "WHERE ID_Chef = ? AND Mese >= ? AND Mese < ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, year);
-            ps.setInt(3, month);
-            ps.setInt(4, year);
-            ps.setInt(5, month);
+            ps.setDate(2, Date.valueOf(LocalDate.of(anno, 1, 1)));
+            ps.setDate(3, Date.valueOf(LocalDate.of(anno + 1, 1, 1)));
+            ResultSet rs = ps.executeQuery();
+
+            Map<Integer, int[]> risultato = new HashMap<>();
+            for (int i = 1; i <= 12; i++) {
+                risultato.put(i, new int[]{0, 0});
+            }
+            while (rs.next()) {
+                int[] valori = risultato.get(rs.getInt("Mese"));
+                valori[0] = rs.getInt("SessioniOnline");
+                valori[1] = rs.getInt("SessioniPratiche");
+            }
+            return risultato;
+        } catch (SQLException e) {
+            segnalaErroreRollup("sessioni per mese", e);
+        }
+        return null;
+    }
+
+    // ==================== VERIFICA TABELLA RIASSUNTIVA ====================
+
+    /**
+     * Confronta chef_month_stats con le statistiche ricalcolate dai dati grezzi
+     * e, se trova differenze, la ricostruisce da zero.
+     * È una scansione completa di sessioni e ricette: va usata per manutenzione,
+     * non nel percorso dei report.
+     *
+     * @return numero di righe (chef, mese) che risultavano diverse, -1 in caso di errore
+     */
+    public static int verificaRollup() {
+        String sqlConfronto =
+            "SELECT COUNT(*) AS Differenze " +
+            "FROM chef_month_stats S " +
+            "FULL JOIN v_chef_month_stats_calcolate V " +
+            "  ON V.ID_Chef = S.ID_Chef AND V.Mese = S.Mese " +
+            "WHERE (S.SessioniOnline, S.SessioniPratiche, S.NumeroCorsi, S.RicetteSomma, S.RicetteMin, S.RicetteMax) " +
+            "      IS DISTINCT FROM " +
+            "      (V.SessioniOnline, V.SessioniPratiche, V.NumeroCorsi, V.RicetteSomma, V.RicetteMin, V.RicetteMax)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            int differenze = 0;
+            try (ResultSet rs = st.executeQuery(sqlConfronto)) {
+                if (rs.next()) differenze = rs.getInt("Differenze");
+            }
+
+            if (differenze > 0) {
+                System.err.println("chef_month_stats non allineata (" + differenze + " mesi): ricostruzione");
+                try (ResultSet rs = st.executeQuery("SELECT f_ricostruisci_chef_month_stats(NULL)")) {
+                    rs.next();
+                }
+            }
+            rollupDisponibile = true;
+            return differenze;
+
+        } catch (SQLException e) {
+            System.err.println("Errore verifica chef_month_stats: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Copia le righe (una per mese con sessioni) nella serie; i mesi assenti restano a zero.
+     */
+    private static void riempiSerie(SerieMensile serie, ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            int i = serie.indice(YearMonth.from(rs.getDate("Mese").toLocalDate()));
+            if (i < 0) continue;
+            serie.numeroCorsi[i]      = rs.getInt("NumeroCorsi");
+            serie.sessioniOnline[i]   = rs.getInt("SessioniOnline");
+            serie.sessioniPratiche[i] = rs.getInt("SessioniPratiche");
+            serie.ricetteSomma[i]     = rs.getInt("RicetteSomma");
+            serie.ricetteMax[i]       = rs.getInt("RicetteMax");
+            serie.ricetteMin[i]       = rs.getInt("RicetteMin");
+        }
+    }
+
+    /**
+     * Se manca la tabella riassuntiva smette di interrogarla e usa le query sui dati grezzi.
+     */
+    private static void segnalaErroreRollup(String cosa, SQLException e) {
+        if (TABELLA_INESISTENTE.equals(e.getSQLState())) {
+            rollupDisponibile = false;
+            System.err.println("chef_month_stats non disponibile, report calcolati dai dati grezzi");
+            return;
+        }
+        System.err.println("Errore " + cosa + " (chef_month_stats): " + e.getMessage());
+        e.printStackTrace();
+    }
+
+    /**
+     * Primo giorno del mese, estremo inferiore (incluso) dell'intervallo di date.
+     */
+    private static Date inizioMese(YearMonth yearMonth) {
+        return Date.valueOf(yearMonth.atDay(1));
+    }
+
+    /**
+     * Conta i corsi con almeno una sessione nell'intervallo [inizio, fine).
+     */
+    private static int countCorsiNelMese(int idChef, Date inizio, Date fine) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_CORSI_NEL_MESE)) {
+            ps.setInt(1, idChef);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
+            ps.setDate(4, inizio);
+            ps.setDate(5, fine);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) return rs.getInt("Totale");
         } catch (SQLException e) {
@@ -173,22 +633,14 @@ public class ReportDAO {
     }
 
     /**
-     * Conta le sessioni online dello chef nel mese/anno.
+     * Conta le sessioni online dello chef nell'intervallo [inizio, fine).
      */
-    private static int countSessioniOnlineNelMese(int idChef, int year, int month) {
-        String sql =
-            "SELECT COUNT(SO.ID_SessioneOnline) AS Totale " +
-            "FROM SessioneOnline SO " +
-            "JOIN Corso C ON SO.ID_Corso = C.ID_Corso " +
-            "WHERE C.ID_Chef = ? " +
-            "  AND EXTRACT(YEAR  FROM SO.Data)::int = ? " +
-            "  AND EXTRACT(MONTH FROM SO.Data)::int = ?";
-
+    private static int countSessioniOnlineNelMese(int idChef, Date inizio, Date fine) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_SESSIONI_ONLINE_NEL_MESE)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, year);
-            ps.setInt(3, month);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) return rs.getInt("Totale");
         } catch (SQLException e) {
@@ -199,22 +651,14 @@ public class ReportDAO {
     }
 
     /**
-     * Conta le sessioni pratiche dello chef nel mese/anno.
+     * Conta le sessioni pratiche dello chef nell'intervallo [inizio, fine).
      */
-    private static int countSessioniPraticheNelMese(int idChef, int year, int month) {
-        String sql =
-            "SELECT COUNT(SP.ID_SessionePratica) AS Totale " +
-            "FROM SessionePratica SP " +
-            "JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
-            "WHERE C.ID_Chef = ? " +
-            "  AND EXTRACT(YEAR  FROM SP.Data)::int = ? " +
-            "  AND EXTRACT(MONTH FROM SP.Data)::int = ?";
-
+    private static int countSessioniPraticheNelMese(int idChef, Date inizio, Date fine) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_SESSIONI_PRATICHE_NEL_MESE)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, year);
-            ps.setInt(3, month);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) return rs.getInt("Totale");
         } catch (SQLException e) {
@@ -228,26 +672,12 @@ public class ReportDAO {
      * Restituisce [MAX, MIN] ricette per sessione pratica nel mese.
      * Se non ci sono sessioni pratiche ritorna [0, 0].
      */
-    private static int[] getRicetteMaxMin(int idChef, int year, int month) {
-        String sql =
-            "SELECT COALESCE(MAX(rc.NumRicette), 0) AS MaxRicette, " +
-            "       COALESCE(MIN(rc.NumRicette), 0) AS MinRicette " +
-            "FROM ( " +
-            "  SELECT SP.ID_SessionePratica, COUNT(R.ID_Ricetta) AS NumRicette " +
-            "  FROM SessionePratica SP " +
-            "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
-            "  LEFT JOIN Ricetta R ON R.ID_SessionePratica = SP.ID_SessionePratica " +
-            "  WHERE C.ID_Chef = ? " +
-            "    AND EXTRACT(YEAR  FROM SP.Data)::int = ? " +
-            "    AND EXTRACT(MONTH FROM SP.Data)::int = ? " +
-            "  GROUP BY SP.ID_SessionePratica " +
-            ") rc";
-
+    private static int[] getRicetteMaxMin(int idChef, Date inizio, Date fine) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_RICETTE_MAX_MIN)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, year);
-            ps.setInt(3, month);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 return new int[]{ rs.getInt("MaxRicette"), rs.getInt("MinRicette") };
@@ -262,25 +692,12 @@ public class ReportDAO {
     /**
      * Restituisce la media di ricette per sessione pratica nel mese.
      */
-    private static double getRicetteMedia(int idChef, int year, int month) {
-        String sql =
-            "SELECT COALESCE(AVG(rc.NumRicette), 0.0) AS MediaRicette " +
-            "FROM ( " +
-            "  SELECT SP.ID_SessionePratica, COUNT(R.ID_Ricetta) AS NumRicette " +
-            "  FROM SessionePratica SP " +
-            "  JOIN Corso C ON SP.ID_Corso = C.ID_Corso " +
-            "  LEFT JOIN Ricetta R ON R.ID_SessionePratica = SP.ID_SessionePratica " +
-            "  WHERE C.ID_Chef = ? " +
-            "    AND EXTRACT(YEAR  FROM SP.Data)::int = ? " +
-            "    AND EXTRACT(MONTH FROM SP.Data)::int = ? " +
-            "  GROUP BY SP.ID_SessionePratica " +
-            ") rc";
-
+    private static double getRicetteMedia(int idChef, Date inizio, Date fine) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_RICETTE_MEDIA)) {
             ps.setInt(1, idChef);
-            ps.setInt(2, year);
-            ps.setInt(3, month);
+            ps.setDate(2, inizio);
+            ps.setDate(3, fine);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) return rs.getDouble("MediaRicette");
         } catch (SQLException e) {
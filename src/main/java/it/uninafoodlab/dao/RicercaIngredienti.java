@@ -0,0 +1,254 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Ingrediente;
+import java.sql.*;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Ricerca degli ingredienti per nome, tollerante ad accenti, maiuscole e piccoli errori di battitura.
+ *
+ * Finché il catalogo di {@link IngredienteCache} resta sotto {@link #SOGLIA_MEMORIA} voci
+ * la ricerca usa un indice in memoria di trigrammi (stesso schema di pg_trgm) costruito
+ * sui nomi normalizzati; oltre la soglia interroga il database, dove la migrazione V2
+ * crea un indice GIN a trigrammi sul nome normalizzato.
+ *
+ * Il punteggio combina la somiglianza tra trigrammi con un bonus per i nomi che iniziano
+ * (o hanno una parola che inizia) con il testo cercato.
+ */
+public class RicercaIngredienti {
+
+    /** Oltre questa dimensione del catalogo la ricerca passa al database. */
+    public static final int SOGLIA_MEMORIA = 20_000;
+
+    /** Somiglianza minima perché un nome senza corrispondenze letterali sia considerato. */
+    private static final double SOMIGLIANZA_MINIMA = 0.3;
+
+    private static final Pattern SEGNI_DIACRITICI = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALFANUMERICI = Pattern.compile("[^a-z0-9]+");
+
+    // SQLState PostgreSQL di funzione o operatore inesistente (pg_trgm non installato)
+    private static final String FUNZIONE_INESISTENTE = "42883";
+
+    private static volatile Indice indice;
+
+    // Diventa false se similarity() o l'operatore % non esistono
+    private static volatile boolean trigrammiDisponibili = true;
+
+    /**
+     * Ingrediente trovato con il relativo punteggio.
+     */
+    public record Risultato(Ingrediente ingrediente, double punteggio) {}
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Cerca gli ingredienti il cui nome corrisponde al testo, ordinati per pertinenza.
+     * Con testo vuoto restituisce i primi ingredienti in ordine alfabetico.
+     *
+     * @param testo  testo cercato
+     * @param limite numero massimo di risultati
+     * @return risultati ordinati per punteggio decrescente
+     */
+    public static List<Risultato> cerca(String testo, int limite) {
+        List<Ingrediente> catalogo = IngredienteCache.getAll();
+
+        if (catalogo.isEmpty() || catalogo.size() > SOGLIA_MEMORIA) {
+            return cercaNelDatabase(testo, limite);
+        }
+
+        Indice i = indice;
+        if (i == null || i.sorgente != catalogo) {
+            // Il catalogo in cache è cambiato: l'indice va ricostruito
+            i = new Indice(catalogo);
+            indice = i;
+        }
+        return i.cerca(normalizza(testo), limite);
+    }
+
+    /**
+     * Minuscole, senza accenti e con un solo spazio tra le parole: "Crème  Fraîche" → "creme fraiche".
+     * Deve restare allineata alla funzione SQL f_normalizza_nome della migrazione V2.
+     */
+    public static String normalizza(String testo) {
+        if (testo == null) return "";
+        String s = Normalizer.normalize(testo, Normalizer.Form.NFD);
+        s = SEGNI_DIACRITICI.matcher(s).replaceAll("");
+        s = NON_ALFANUMERICI.matcher(s.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return s.trim();
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Trigrammi alla maniera di pg_trgm: ogni parola è preceduta da due spazi e seguita da uno.
+     */
+    private static Set<String> trigrammi(String normalizzato) {
+        Set<String> t = new LinkedHashSet<>();
+        if (normalizzato.isEmpty()) return t;
+        for (String parola : normalizzato.split(" ")) {
+            String p = "  " + parola + " ";
+            for (int k = 0; k + 3 <= p.length(); k++) {
+                t.add(p.substring(k, k + 3));
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Bonus per le corrispondenze letterali, che contano più della sola somiglianza.
+     */
+    private static double bonus(String nome, String query) {
+        if (nome.startsWith(query))        return 1.0;
+        if (nome.contains(" " + query))    return 0.6;
+        if (nome.contains(query))          return 0.3;
+        return 0;
+    }
+
+    /**
+     * Indice invertito trigramma → posizioni nel catalogo, costruito su una copia del catalogo.
+     */
+    private static class Indice {
+        private final List<Ingrediente> sorgente;
+        private final String[] nomi;
+        private final int[] numTrigrammi;
+        private final Map<String, int[]> posting = new HashMap<>();
+
+        Indice(List<Ingrediente> catalogo) {
+            this.sorgente = catalogo;
+            this.nomi = new String[catalogo.size()];
+            this.numTrigrammi = new int[catalogo.size()];
+
+            Map<String, List<Integer>> tmp = new HashMap<>();
+            for (int i = 0; i < catalogo.size(); i++) {
+                nomi[i] = normalizza(catalogo.get(i).getNome());
+                Set<String> t = trigrammi(nomi[i]);
+                numTrigrammi[i] = t.size();
+                for (String tri : t) {
+                    tmp.computeIfAbsent(tri, k -> new ArrayList<>()).add(i);
+                }
+            }
+            tmp.forEach((k, v) -> posting.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        List<Risultato> cerca(String query, int limite) {
+            List<Risultato> risultati = new ArrayList<>();
+
+            if (query.isEmpty()) {
+                for (int i = 0; i < sorgente.size() && risultati.size() < limite; i++) {
+                    risultati.add(new Risultato(sorgente.get(i), 0));
+                }
+                return risultati;
+            }
+
+            Set<String> triQuery = trigrammi(query);
+            int[] condivisi = new int[nomi.length];
+            for (String tri : triQuery) {
+                int[] p = posting.get(tri);
+                if (p == null) continue;
+                for (int pos : p) condivisi[pos]++;
+            }
+
+            for (int i = 0; i < nomi.length; i++) {
+                double b = bonus(nomi[i], query);
+                if (condivisi[i] == 0 && b == 0) continue;
+
+                // Somiglianza di Jaccard sui trigrammi, come similarity() di pg_trgm
+                double somiglianza = (double) condivisi[i]
+                    / (triQuery.size() + numTrigrammi[i] - condivisi[i]);
+                if (b == 0 && somiglianza < SOMIGLIANZA_MINIMA) continue;
+
+                risultati.add(new Risultato(sorgente.get(i), somiglianza + b));
+            }
+
+            risultati.sort(Comparator.comparingDouble(Risultato::punteggio).reversed()
+                .thenComparingInt(r -> r.ingrediente().getNome().length())
+                .thenComparing(r -> r.ingrediente().getNome()));
+            return risultati.size() > limite ? new ArrayList<>(risultati.subList(0, limite)) : risultati;
+        }
+    }
+
+    /**
+     * Ricerca lato database con l'indice GIN a trigrammi della migrazione V2.
+     * L'operatore % usa la soglia pg_trgm.similarity_threshold (0.3 di default, come
+     * {@link #SOMIGLIANZA_MINIMA}) e il CASE riproduce {@link #bonus(String, String)}, così
+     * il punteggio non cambia quando il catalogo supera {@link #SOGLIA_MEMORIA}.
+     * Se pg_trgm non è installato (V2 lo segnala solo con un warning) la ricerca
+     * continua con le sole corrispondenze letterali.
+     */
+    private static List<Risultato> cercaNelDatabase(String testo, int limite) {
+        String query = normalizza(testo);
+
+        if (trigrammiDisponibili) {
+            try {
+                return eseguiRicerca(query, limite, true);
+            } catch (SQLException e) {
+                if (!FUNZIONE_INESISTENTE.equals(e.getSQLState())) {
+                    System.err.println("Errore ricerca ingredienti: " + e.getMessage());
+                    e.printStackTrace();
+                    return new ArrayList<>();
+                }
+                trigrammiDisponibili = false;
+                System.err.println("pg_trgm non disponibile, ricerca ingredienti solo per testo contenuto");
+            }
+        }
+
+        try {
+            return eseguiRicerca(query, limite, false);
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca ingredienti: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * @param trigrammi se false non usa né similarity() né l'operatore %
+     */
+    private static List<Risultato> eseguiRicerca(String query, int limite, boolean trigrammi) throws SQLException {
+        List<Risultato> risultati = new ArrayList<>();
+        String esc = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        String sql =
+            "SELECT " + IngredienteDAO.MAPPER.colonne() + ", " +
+            (trigrammi ? "similarity(f_normalizza_nome(Nome), ?) + " : "") +
+            "       CASE WHEN f_normalizza_nome(Nome) LIKE ? THEN 1.0 " +
+            "            WHEN f_normalizza_nome(Nome) LIKE ? THEN 0.6 " +
+            "            WHEN f_normalizza_nome(Nome) LIKE ? THEN 0.3 " +
+            "            ELSE 0 END AS Punteggio " +
+            "FROM Ingrediente " +
+            "WHERE " + (trigrammi ? "f_normalizza_nome(Nome) % ? OR " : "") +
+            "      f_normalizza_nome(Nome) LIKE ? " +
+            "ORDER BY Punteggio DESC, LENGTH(Nome), Nome " +
+            "LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int p = 1;
+            if (trigrammi) ps.setString(p++, query);
+            ps.setString(p++, esc + "%");           // inizia con il testo cercato
+            ps.setString(p++, "% " + esc + "%");    // una parola inizia con il testo cercato
+            ps.setString(p++, "%" + esc + "%");     // contiene il testo cercato
+            if (trigrammi) ps.setString(p++, query);
+            ps.setString(p++, "%" + esc + "%");
+            ps.setInt(p, limite);
+            ResultSet rs = ps.executeQuery();
+            int punteggio = IngredienteDAO.MAPPER.numeroColonne() + 1;
+
+            while (rs.next()) {
+                risultati.add(new Risultato(IngredienteDAO.MAPPER.mappa(rs), rs.getDouble(punteggio)));
+            }
+        }
+
+        return risultati;
+    }
+}
@@ -1,6 +1,7 @@
 package it.uninafoodlab.dao;
 
 import it.uninafoodlab.model.domain.Ricetta;
+import it.uninafoodlab.model.domain.RicettaIngrediente;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,6 +12,15 @@ import java.util.List;
  */
 public class RicettaDAO {
     
+    static final MapperRighe<Ricetta> MAPPER = MapperRighe.di(r -> new Ricetta(
+            r.intero(0), r.testo(1), r.intero(2)),
+        "ID_Ricetta", "Nome", "ID_SessionePratica");
+    
+    // Chef proprietario della sessione della ricetta, restituito dalle modifiche per invalidarne i report
+    private static final String CHEF_RICETTA =
+        "(SELECT C.ID_Chef FROM SessionePratica SP JOIN Corso C ON C.ID_Corso = SP.ID_Corso " +
+        " WHERE SP.ID_SessionePratica = Ricetta.ID_SessionePratica)";
+    
     /**
      * Inserisce una nuova ricetta nel database (solo nome).
      * 
@@ -18,7 +28,7 @@ public class RicettaDAO {
      * @return ID della ricetta inserita, -1 in caso di errore
      */
     public static int insert(Ricetta ricetta) {
-        String sql = "INSERT INTO Ricetta (Nome, ID_SessionePratica) VALUES (?, ?) RETURNING ID_Ricetta";
+        String sql = "INSERT INTO Ricetta (Nome, ID_SessionePratica) VALUES (?, ?) RETURNING ID_Ricetta, " + CHEF_RICETTA;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -29,6 +39,7 @@ public class RicettaDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
+                ReportCache.invalidaChef(rs.getInt(2));
                 return rs.getInt(1);
             }
             
@@ -40,6 +51,108 @@ public class RicettaDAO {
         return -1;
     }
     
+    /**
+     * Inserisce più ricette, con i relativi ingredienti, in un'unica transazione.
+     * In caso di errore non viene salvata nessuna ricetta.
+     * 
+     * @param ricette ricette da inserire (ciascuna con ID_SessionePratica e ingredienti valorizzati)
+     * @return true se inserimento riuscito, false altrimenti
+     */
+    public static boolean insertAll(List<Ricetta> ricette) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertBatch(conn, ricette);
+                List<Integer> chef = getChefDelleSessioni(conn, ricette);
+                conn.commit();
+                chef.forEach(ReportCache::invalidaChef);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Errore inserimento ricette: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Inserisce in batch le ricette e poi, in un secondo batch, tutti i loro ingredienti.
+     * Gli ID generati vengono assegnati alle ricette e ai rispettivi RicettaIngrediente.
+     * Non gestisce la transazione: è compito del chiamante.
+     * 
+     * @param conn    connessione con la transazione in corso
+     * @param ricette ricette da inserire
+     * @throws SQLException se un inserimento fallisce
+     */
+    static void insertBatch(Connection conn, List<Ricetta> ricette) throws SQLException {
+        if (ricette.isEmpty()) return;
+        
+        String sqlRicetta = "INSERT INTO Ricetta (Nome, ID_SessionePratica) VALUES (?, ?)";
+        
+        try (PreparedStatement ps = conn.prepareStatement(sqlRicetta, Statement.RETURN_GENERATED_KEYS)) {
+            for (Ricetta r : ricette) {
+                ps.setString(1, r.getNome());
+                ps.setInt(2, r.getIdSessionePratica());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            
+            // Le chiavi tornano nello stesso ordine delle righe del batch
+            ResultSet keys = ps.getGeneratedKeys();
+            for (Ricetta r : ricette) {
+                if (!keys.next()) {
+                    throw new SQLException("ID non restituito per la ricetta " + r.getNome());
+                }
+                r.setIdRicetta(keys.getInt(1));
+            }
+        }
+        
+        String sqlIngrediente = "INSERT INTO Ricetta_Ingrediente (ID_Ricetta, ID_Ingrediente, Quantita) VALUES (?, ?, ?)";
+        
+        try (PreparedStatement ps = conn.prepareStatement(sqlIngrediente)) {
+            int righe = 0;
+            for (Ricetta r : ricette) {
+                for (RicettaIngrediente ri : r.getIngredienti()) {
+                    ri.setIdRicetta(r.getIdRicetta());
+                    ps.setInt(1, ri.getIdRicetta());
+                    ps.setInt(2, ri.getIdIngrediente());
+                    ps.setBigDecimal(3, ri.getQuantita());
+                    ps.addBatch();
+                    righe++;
+                }
+            }
+            if (righe > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+    
+    /**
+     * Chef proprietari delle sessioni pratiche a cui appartengono le ricette.
+     */
+    private static List<Integer> getChefDelleSessioni(Connection conn, List<Ricetta> ricette) throws SQLException {
+        List<Integer> chef = new ArrayList<>();
+        if (ricette.isEmpty()) return chef;
+        
+        Integer[] sessioni = ricette.stream().map(Ricetta::getIdSessionePratica).distinct().toArray(Integer[]::new);
+        String sql = "SELECT DISTINCT C.ID_Chef FROM SessionePratica SP JOIN Corso C ON C.ID_Corso = SP.ID_Corso " +
+                     "WHERE SP.ID_SessionePratica = ANY(?)";
+        
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("integer", sessioni));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                chef.add(rs.getInt(1));
+            }
+        }
+        return chef;
+    }
+    
     /**
      * Ottiene tutte le ricette di una sessione pratica.
      * 
@@ -48,7 +161,7 @@ public class RicettaDAO {
      */
     public static List<Ricetta> getBySessionePratica(int idSessionePratica) {
         List<Ricetta> ricette = new ArrayList<>();
-        String sql = "SELECT * FROM Ricetta WHERE ID_SessionePratica = ? ORDER BY Nome";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Ricetta WHERE ID_SessionePratica = ? ORDER BY Nome";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -57,7 +170,7 @@ public class RicettaDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                ricette.add(createRicettaFromResultSet(rs));
+                ricette.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -76,7 +189,7 @@ public class RicettaDAO {
      */
     public static List<Ricetta> getByCorso(int idCorso) {
         List<Ricetta> ricette = new ArrayList<>();
-        String sql = "SELECT R.* FROM Ricetta R " +
+        String sql = "SELECT " + MAPPER.colonne("R") + " FROM Ricetta R " +
                      "JOIN SessionePratica SP ON R.ID_SessionePratica = SP.ID_SessionePratica " +
                      "WHERE SP.ID_Corso = ? ORDER BY R.Nome";
         
@@ -87,7 +200,7 @@ public class RicettaDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                ricette.add(createRicettaFromResultSet(rs));
+                ricette.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -105,7 +218,7 @@ public class RicettaDAO {
      * @return oggetto Ricetta se trovato, null altrimenti
      */
     public static Ricetta getById(int idRicetta) {
-        String sql = "SELECT * FROM Ricetta WHERE ID_Ricetta = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Ricetta WHERE ID_Ricetta = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -114,7 +227,7 @@ public class RicettaDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createRicettaFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -175,13 +288,16 @@ public class RicettaDAO {
      * @return true se eliminazione riuscita, false altrimenti
      */
     public static boolean delete(int idRicetta) {
-        String sql = "DELETE FROM Ricetta WHERE ID_Ricetta = ?";
+        String sql = "DELETE FROM Ricetta WHERE ID_Ricetta = ? RETURNING " + CHEF_RICETTA;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, idRicetta);
-            return ps.executeUpdate() > 0;
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) return false;
+            ReportCache.invalidaChef(rs.getInt(1));
+            return true;
             
         } catch (SQLException e) {
             System.err.println("Errore eliminazione ricetta: " + e.getMessage());
@@ -217,19 +333,4 @@ public class RicettaDAO {
         
         return 0;
     }
-    
-    /**
-     * Crea un oggetto Ricetta da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati della ricetta
-     * @return oggetto Ricetta creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static Ricetta createRicettaFromResultSet(ResultSet rs) throws SQLException {
-        return new Ricetta(
-            rs.getInt("ID_Ricetta"),
-            rs.getString("Nome"),
-            rs.getInt("ID_SessionePratica")
-        );
-    }
 }
\ No newline at end of file
@@ -13,6 +13,10 @@ import java.util.List;
  */
 public class RicettaIngredienteDAO {
     
+    private static final MapperRighe<RicettaIngrediente> MAPPER = MapperRighe.di(r -> new RicettaIngrediente(
+            r.intero(0), r.intero(1), r.decimale(2)),
+        "ID_Ricetta", "ID_Ingrediente", "Quantita");
+    
     /**
      * Inserisce un nuovo ingrediente per una ricetta.
      * 
@@ -47,7 +51,8 @@ public class RicettaIngredienteDAO {
      */
     public static List<RicettaIngrediente> getByRicetta(int idRicetta) {
         List<RicettaIngrediente> ingredienti = new ArrayList<>();
-        String sql = "SELECT RI.*, I.Nome, I.Categoria, I.UnitaMisura " +
+        // Colonne dell'ingrediente seguite da ID_Ricetta e Quantita
+        String sql = "SELECT " + IngredienteDAO.MAPPER.colonne("I") + ", RI.ID_Ricetta, RI.Quantita " +
                      "FROM Ricetta_Ingrediente RI " +
                      "JOIN Ingrediente I ON RI.ID_Ingrediente = I.ID_Ingrediente " +
                      "WHERE RI.ID_Ricetta = ? " +
@@ -58,21 +63,17 @@ public class RicettaIngredienteDAO {
             
             ps.setInt(1, idRicetta);
             ResultSet rs = ps.executeQuery();
+            MapperRighe.Riga quantita = MapperRighe.riga(rs, IngredienteDAO.MAPPER.numeroColonne() + 1);
             
             while (rs.next()) {
                 // Crea oggetto Ingrediente completo
-                Ingrediente ingrediente = new Ingrediente(
-                    rs.getInt("ID_Ingrediente"),
-                    rs.getString("Nome"),
-                    rs.getString("Categoria"),
-                    rs.getString("UnitaMisura")
-                );
+                Ingrediente ingrediente = IngredienteDAO.MAPPER.mappa(rs);
                 
                 // Crea RicettaIngrediente con ingrediente popolato
                 RicettaIngrediente ri = new RicettaIngrediente(
-                    rs.getInt("ID_Ricetta"),
-                    rs.getInt("ID_Ingrediente"),
-                    rs.getBigDecimal("Quantita"),
+                    quantita.intero(0),
+                    ingrediente.getIdIngrediente(),
+                    quantita.decimale(1),
                     null,
                     ingrediente
                 );
@@ -96,7 +97,7 @@ public class RicettaIngredienteDAO {
      */
     public static List<RicettaIngrediente> getByIngrediente(int idIngrediente) {
         List<RicettaIngrediente> ricette = new ArrayList<>();
-        String sql = "SELECT * FROM Ricetta_Ingrediente WHERE ID_Ingrediente = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Ricetta_Ingrediente WHERE ID_Ingrediente = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -105,7 +106,7 @@ public class RicettaIngredienteDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                ricette.add(createRicettaIngredienteFromResultSet(rs));
+                ricette.add(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -218,19 +219,4 @@ public class RicettaIngredienteDAO {
         
         return 0;
     }
-    
-    /**
-     * Crea un oggetto RicettaIngrediente da un ResultSet (senza join).
-     * 
-     * @param rs ResultSet contenente i dati
-     * @return oggetto RicettaIngrediente creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static RicettaIngrediente createRicettaIngredienteFromResultSet(ResultSet rs) throws SQLException {
-        return new RicettaIngrediente(
-            rs.getInt("ID_Ricetta"),
-            rs.getInt("ID_Ingrediente"),
-            rs.getBigDecimal("Quantita")
-        );
-    }
 }
\ No newline at end of file
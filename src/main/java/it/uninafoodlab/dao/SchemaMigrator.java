@@ -0,0 +1,158 @@
+package it.uninafoodlab.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Applica all'avvio gli script di migrazione dello schema non ancora eseguiti.
+ *
+ * Gli script si trovano nel classpath sotto {@value #CARTELLA} con nome
+ * {@code V<versione>__<descrizione>.sql} e vengono applicati in ordine di versione,
+ * ciascuno nella propria transazione insieme alla riga che lo registra in schema_versione.
+ * Un advisory lock impedisce a due istanze avviate insieme di applicare lo stesso script.
+ */
+public class SchemaMigrator {
+
+    private static final String CARTELLA = "/db/migration/";
+
+    /**
+     * Script di migrazione in ordine di applicazione.
+     * Un nuovo script va aggiunto in coda con la versione successiva.
+     */
+    private static final String[] SCRIPT = {
+        "V1__indici_chiavi_esterne.sql",
+        "V2__ricerca_trigrammi_ingredienti.sql",
+        "V3__indice_feed_notifiche.sql",
+        "V4__statistiche_mensili_chef.sql",
+        "V5__notifiche_listen_notify.sql",
+        "V6__trigger_corso_differito.sql"
+    };
+
+    // Chiave arbitraria dell'advisory lock riservato alle migrazioni
+    private static final long CHIAVE_LOCK = 7_320_115_001L;
+
+    private static final String SQL_CREA_TABELLA =
+        "CREATE TABLE IF NOT EXISTS schema_versione ( " +
+        "  Versione     INTEGER PRIMARY KEY, " +
+        "  Descrizione  VARCHAR(200) NOT NULL, " +
+        "  ApplicataIl  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP " +
+        ")";
+
+    /**
+     * Applica le migrazioni mancanti.
+     *
+     * @return numero di script applicati, -1 in caso di errore
+     */
+    public static int migra() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) return -1;
+
+            try (Statement st = conn.createStatement()) {
+                st.execute(SQL_CREA_TABELLA);
+            }
+
+            acquisisciLock(conn);
+            try {
+                Set<Integer> applicate = getVersioniApplicate(conn);
+                int eseguite = 0;
+
+                for (String nome : SCRIPT) {
+                    int versione = estraiVersione(nome);
+                    if (applicate.contains(versione)) continue;
+
+                    applica(conn, versione, nome);
+                    eseguite++;
+                    System.out.println("Migrazione applicata: " + nome);
+                }
+                return eseguite;
+            } finally {
+                rilasciaLock(conn);
+            }
+
+        } catch (SQLException | IOException e) {
+            System.err.println("Errore migrazione schema: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * Esegue uno script e registra la versione nella stessa transazione:
+     * se lo script fallisce non resta traccia né delle modifiche né della versione.
+     */
+    private static void applica(Connection conn, int versione, String nome) throws SQLException, IOException {
+        String script = leggiScript(nome);
+
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement();
+             PreparedStatement ps = conn.prepareStatement(
+                 "INSERT INTO schema_versione (Versione, Descrizione) VALUES (?, ?)")) {
+
+            st.execute(script);
+
+            ps.setInt(1, versione);
+            ps.setString(2, estraiDescrizione(nome));
+            ps.executeUpdate();
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Script " + nome + " non applicato: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static Set<Integer> getVersioniApplicate(Connection conn) throws SQLException {
+        Set<Integer> versioni = new HashSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT Versione FROM schema_versione")) {
+            while (rs.next()) {
+                versioni.add(rs.getInt(1));
+            }
+        }
+        return versioni;
+    }
+
+    private static void acquisisciLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            ps.setLong(1, CHIAVE_LOCK);
+            ps.execute();
+        }
+    }
+
+    private static void rilasciaLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, CHIAVE_LOCK);
+            ps.execute();
+        } catch (SQLException e) {
+            System.err.println("Errore rilascio lock migrazioni: " + e.getMessage());
+        }
+    }
+
+    private static String leggiScript(String nome) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(CARTELLA + nome)) {
+            if (in == null) {
+                throw new IOException("Script di migrazione non trovato: " + CARTELLA + nome);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** "V12__descrizione.sql" → 12 */
+    private static int estraiVersione(String nome) {
+        return Integer.parseInt(nome.substring(1, nome.indexOf("__")));
+    }
+
+    /** "V1__indici_chiavi_esterne.sql" → "indici chiavi esterne" */
+    private static String estraiDescrizione(String nome) {
+        return nome.substring(nome.indexOf("__") + 2, nome.lastIndexOf(".sql")).replace('_', ' ');
+    }
+}
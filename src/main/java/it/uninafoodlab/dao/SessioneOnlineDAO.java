@@ -7,9 +7,18 @@ import java.util.List;
 
 /**
  * Data Access Object per la gestione delle Sessioni Online nel database.
+ * Le sessioni lette e scritte passano da {@link MappaIdentita#SESSIONI_ONLINE}.
  */
 public class SessioneOnlineDAO {
     
+    // Usato anche da ModificaSessioneDAO per le righe restituite dalle modifiche
+    static final MapperRighe<SessioneOnline> MAPPER = MapperRighe.di(r -> new SessioneOnline(
+            r.intero(0), r.data(1), r.ora(2), r.intero(3), r.testo(4), r.intero(5)),
+        "ID_SessioneOnline", "Data", "Ora", "Durata", "Link", "ID_Corso");
+    
+    // Chef proprietario della sessione, restituito dalle modifiche per invalidarne i report
+    private static final String CHEF_SESSIONE = "(SELECT C.ID_Chef FROM Corso C WHERE C.ID_Corso = SessioneOnline.ID_Corso)";
+    
     /**
      * Inserisce una nuova sessione online nel database.
      * 
@@ -17,10 +26,11 @@ public class SessioneOnlineDAO {
      * @return ID della sessione inserita, -1 in caso di errore
      */
     public static int insert(SessioneOnline sessione) {
-        String sql = "INSERT INTO SessioneOnline (Data, Ora, Durata, Link, ID_Corso) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO SessioneOnline (Data, Ora, Durata, Link, ID_Corso) VALUES (?, ?, ?, ?, ?) " +
+                     "RETURNING ID_SessioneOnline, " + CHEF_SESSIONE;
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setDate(1, Date.valueOf(sessione.getData()));
             ps.setTime(2, sessione.getOra() != null ? Time.valueOf(sessione.getOra()) : null);
@@ -28,13 +38,11 @@ public class SessioneOnlineDAO {
             ps.setString(4, sessione.getLink());
             ps.setInt(5, sessione.getIdCorso());
             
-            int affectedRows = ps.executeUpdate();
+            ResultSet rs = ps.executeQuery();
             
-            if (affectedRows > 0) {
-                ResultSet generatedKeys = ps.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
-                }
+            if (rs.next()) {
+                ReportCache.invalidaChef(rs.getInt(2));
+                return rs.getInt(1);
             }
             
         } catch (SQLException e) {
@@ -52,7 +60,8 @@ public class SessioneOnlineDAO {
      * @return true se aggiornamento riuscito, false altrimenti
      */
     public static boolean update(SessioneOnline sessione) {
-        String sql = "UPDATE SessioneOnline SET Data = ?, Ora = ?, Durata = ?, Link = ? WHERE ID_SessioneOnline = ?";
+        String sql = "UPDATE SessioneOnline SET Data = ?, Ora = ?, Durata = ?, Link = ? WHERE ID_SessioneOnline = ? " +
+                     "RETURNING " + CHEF_SESSIONE;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -63,13 +72,18 @@ public class SessioneOnlineDAO {
             ps.setString(4, sessione.getLink());
             ps.setInt(5, sessione.getIdSessioneOnline());
             
-            return ps.executeUpdate() > 0;
+            if (eseguiInvalidandoReport(ps)) {
+                MappaIdentita.SESSIONI_ONLINE.unisci(sessione);
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Errore aggiornamento sessione online: " + e.getMessage());
             e.printStackTrace();
         }
         
+        // L'istanza in memoria potrebbe essere stata modificata prima dell'update fallito
+        MappaIdentita.SESSIONI_ONLINE.rimuovi(sessione.getIdSessioneOnline());
         return false;
     }
     
@@ -81,7 +95,7 @@ public class SessioneOnlineDAO {
      */
     public static List<SessioneOnline> getByCorso(int idCorso) {
         List<SessioneOnline> sessioni = new ArrayList<>();
-        String sql = "SELECT * FROM SessioneOnline WHERE ID_Corso = ? ORDER BY Data, Ora";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM SessioneOnline WHERE ID_Corso = ? ORDER BY Data, Ora";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -90,8 +104,9 @@ public class SessioneOnlineDAO {
             ResultSet rs = ps.executeQuery();
             
             while (rs.next()) {
-                sessioni.add(createSessioneFromResultSet(rs));
+                sessioni.add(MAPPER.mappa(rs));
             }
+            MappaIdentita.SESSIONI_ONLINE.unisciTutti(sessioni);
             
         } catch (SQLException e) {
             System.err.println("Errore recupero sessioni online: " + e.getMessage());
@@ -108,7 +123,10 @@ public class SessioneOnlineDAO {
      * @return oggetto SessioneOnline se trovato, null altrimenti
      */
     public static SessioneOnline getById(int idSessione) {
-        String sql = "SELECT * FROM SessioneOnline WHERE ID_SessioneOnline = ?";
+        SessioneOnline inMemoria = MappaIdentita.SESSIONI_ONLINE.get(idSessione);
+        if (inMemoria != null) return inMemoria;
+        
+        String sql = "SELECT " + MAPPER.colonne() + " FROM SessioneOnline WHERE ID_SessioneOnline = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -117,7 +135,7 @@ public class SessioneOnlineDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createSessioneFromResultSet(rs);
+                return MappaIdentita.SESSIONI_ONLINE.unisci(MAPPER.mappa(rs));
             }
             
         } catch (SQLException e) {
@@ -135,13 +153,15 @@ public class SessioneOnlineDAO {
      * @return true se eliminazione riuscita, false altrimenti
      */
     public static boolean delete(int idSessione) {
-        String sql = "DELETE FROM SessioneOnline WHERE ID_SessioneOnline = ?";
+        String sql = "DELETE FROM SessioneOnline WHERE ID_SessioneOnline = ? RETURNING " + CHEF_SESSIONE;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, idSessione);
-            return ps.executeUpdate() > 0;
+            if (!eseguiInvalidandoReport(ps)) return false;
+            MappaIdentita.SESSIONI_ONLINE.rimuovi(idSessione);
+            return true;
             
         } catch (SQLException e) {
             System.err.println("Errore eliminazione sessione online: " + e.getMessage());
@@ -152,17 +172,13 @@ public class SessioneOnlineDAO {
     }
     
     /**
-     * Crea un oggetto SessioneOnline da un ResultSet.
+     * Esegue una modifica con RETURNING dello chef e, se ha toccato una riga,
+     * invalida i report dello chef in {@link ReportCache}.
      */
-    private static SessioneOnline createSessioneFromResultSet(ResultSet rs) throws SQLException {
-    	Time oraSQL = rs.getTime("Ora");
-        return new SessioneOnline(
-            rs.getInt("ID_SessioneOnline"),
-            rs.getDate("Data").toLocalDate(),
-            oraSQL != null ? oraSQL.toLocalTime() : null,
-            rs.getInt("Durata"),
-            rs.getString("Link"),
-            rs.getInt("ID_Corso")
-        );
+    private static boolean eseguiInvalidandoReport(PreparedStatement ps) throws SQLException {
+        ResultSet rs = ps.executeQuery();
+        if (!rs.next()) return false;
+        ReportCache.invalidaChef(rs.getInt(1));
+        return true;
     }
-}
+}
\ No newline at end of file
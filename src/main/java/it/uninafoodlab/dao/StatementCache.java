@@ -0,0 +1,202 @@
+package it.uninafoodlab.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU di PreparedStatement legata a una singola connessione fisica del pool.
+ *
+ * Lo stesso testo SQL riusa lo stesso PreparedStatement tra una chiamata DAO e l'altra,
+ * così il driver PostgreSQL può passare al piano preparato lato server (named statement)
+ * invece di rifare parse e planning ad ogni invocazione.
+ * La close() dello statement restituito è solo logica: chiude i ResultSet aperti,
+ * azzera i parametri e riporta fetch size, max rows e query timeout ai valori iniziali,
+ * lasciando lo statement in cache.
+ */
+class StatementCache {
+
+    // Contatori condivisi da tutte le connessioni del pool
+    static final AtomicLong HIT  = new AtomicLong();
+    static final AtomicLong MISS = new AtomicLong();
+
+    private final Connection connection;
+    private final Map<String, Voce> voci;
+
+    /**
+     * Statement in cache con il flag di utilizzo corrente e le impostazioni
+     * da ripristinare quando viene rilasciato.
+     */
+    private static class Voce {
+        private final PreparedStatement statement;
+        private final boolean chiaviGenerate;
+        private final int fetchSize;
+        private final long maxRows;
+        private final int queryTimeout;
+        private boolean inUso;
+
+        Voce(PreparedStatement statement, boolean chiaviGenerate) throws SQLException {
+            this.statement = statement;
+            this.chiaviGenerate = chiaviGenerate;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getLargeMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+    }
+
+    /**
+     * @param connection connessione fisica proprietaria degli statement
+     * @param capacita   numero massimo di statement tenuti in cache
+     */
+    StatementCache(Connection connection, int capacita) {
+        this.connection = connection;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce> eldest) {
+                // Scarta la voce libera usata meno di recente, saltando quelle in uso
+                Iterator<Voce> it = values().iterator();
+                while (size() > capacita && it.hasNext()) {
+                    Voce v = it.next();
+                    if (!v.inUso) {
+                        it.remove();
+                        chiudiSilenziosamente(v.statement);
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Restituisce uno statement per il testo SQL, riusando quello in cache se libero.
+     *
+     * @param sql               testo SQL
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS oppure Statement.NO_GENERATED_KEYS
+     * @return PreparedStatement la cui close() lo rimette in cache
+     * @throws SQLException se la preparazione fallisce
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String chiave = autoGeneratedKeys + "|" + sql;
+        Voce voce = voci.get(chiave);
+
+        if (voce != null && voce.inUso) {
+            // Stesso SQL già aperto su questa connessione: statement non condiviso
+            MISS.incrementAndGet();
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        if (voce == null) {
+            MISS.incrementAndGet();
+            boolean chiavi = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS;
+            PreparedStatement ps = chiavi
+                ? connection.prepareStatement(sql, autoGeneratedKeys)
+                : connection.prepareStatement(sql);
+            try {
+                voce = new Voce(ps, chiavi);
+            } catch (SQLException e) {
+                chiudiSilenziosamente(ps);
+                throw e;
+            }
+            // In uso prima dell'inserimento: lo sfratto che segue non deve scegliere questa voce
+            voce.inUso = true;
+            voci.put(chiave, voce);
+        } else {
+            HIT.incrementAndGet();
+            voce.inUso = true;
+        }
+
+        return creaProxy(voce);
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private PreparedStatement creaProxy(Voce voce) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            new StatementInCache(voce));
+    }
+
+    /**
+     * Chiusura logica: rilascia le risorse della singola esecuzione senza chiudere lo statement.
+     */
+    private void rilascia(Voce voce) {
+        PreparedStatement ps = voce.statement;
+        try {
+            ResultSet rs = ps.getResultSet();
+            if (rs != null) rs.close();
+            if (voce.chiaviGenerate) ps.getGeneratedKeys().close();
+            ps.clearParameters();
+            ps.clearBatch();
+            ps.clearWarnings();
+            // Impostazioni di chi lo ha usato: non devono passare al prossimo
+            if (ps.getFetchSize() != voce.fetchSize) ps.setFetchSize(voce.fetchSize);
+            if (ps.getLargeMaxRows() != voce.maxRows) ps.setLargeMaxRows(voce.maxRows);
+            if (ps.getQueryTimeout() != voce.queryTimeout) ps.setQueryTimeout(voce.queryTimeout);
+            voce.inUso = false;
+        } catch (SQLException e) {
+            // Statement in stato non recuperabile: lo si toglie dalla cache
+            voci.values().remove(voce);
+            chiudiSilenziosamente(ps);
+        }
+    }
+
+    private static void chiudiSilenziosamente(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException e) {
+            System.err.println("Errore chiusura statement in cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handler del proxy: inoltra tutto allo statement in cache tranne close()/isClosed().
+     */
+    private class StatementInCache implements InvocationHandler {
+        private final Voce voce;
+        private boolean chiuso = false;
+
+        StatementInCache(Voce voce) {
+            this.voce = voce;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!chiuso) {
+                        chiuso = true;
+                        rilascia(voce);
+                    }
+                    return null;
+                case "isClosed":
+                    return chiuso || voce.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementInCache[" + voce.statement + "]";
+                default:
+                    if (chiuso) {
+                        throw new SQLException("Statement già chiuso");
+                    }
+                    try {
+                        return method.invoke(voce.statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
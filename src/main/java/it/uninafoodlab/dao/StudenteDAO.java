@@ -4,6 +4,8 @@ import it.uninafoodlab.model.domain.Studente;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object per la gestione degli Studenti nel database.
@@ -11,6 +13,25 @@ import java.util.List;
  */
 public class StudenteDAO {
     
+    private static final MapperRighe<Studente> MAPPER = MapperRighe.di(r -> new Studente(
+            r.intero(0), r.testo(1), r.testo(2), r.testo(3), r.testo(4)),
+        "ID_Studente", "Nome", "Matricola", "Email", "Password");
+    
+    // Gli elenchi non servono all'autenticazione: la password non viene letta.
+    // Usato anche da BenchmarkMappatura (sorgenti di test)
+    static final MapperRighe<Studente> MAPPER_ELENCO = MapperRighe.di(r -> new Studente(
+            r.intero(0), r.testo(1), r.testo(2), r.testo(3), null),
+        "ID_Studente", "Nome", "Matricola", "Email");
+    
+    private static final String SQL_TUTTI =
+        "SELECT " + MAPPER_ELENCO.colonne() + " FROM Studente ORDER BY Nome";
+    
+    private static final String SQL_BY_CORSO =
+        "SELECT " + MAPPER_ELENCO.colonne("S") + " FROM Studente S " +
+        "JOIN Iscrizione I ON S.ID_Studente = I.ID_Studente " +
+        "WHERE I.ID_Corso = ? " +
+        "ORDER BY S.Nome";
+    
     /**
      * Autentica uno studente tramite email e password.
      * 
@@ -19,7 +40,7 @@ public class StudenteDAO {
      * @return oggetto Studente se le credenziali sono corrette, null altrimenti
      */
     public static Studente login(String email, String password) {
-        String sql = "SELECT * FROM Studente WHERE Email = ? AND Password = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Studente WHERE Email = ? AND Password = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -30,7 +51,7 @@ public class StudenteDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createStudenteFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -48,7 +69,7 @@ public class StudenteDAO {
      * @return oggetto Studente se trovato, null altrimenti
      */
     public static Studente getById(int idStudente) {
-        String sql = "SELECT * FROM Studente WHERE ID_Studente = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Studente WHERE ID_Studente = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -57,7 +78,7 @@ public class StudenteDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createStudenteFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -75,7 +96,7 @@ public class StudenteDAO {
      * @return oggetto Studente se trovato, null altrimenti
      */
     public static Studente getByMatricola(String matricola) {
-        String sql = "SELECT * FROM Studente WHERE Matricola = ?";
+        String sql = "SELECT " + MAPPER.colonne() + " FROM Studente WHERE Matricola = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -84,7 +105,7 @@ public class StudenteDAO {
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return createStudenteFromResultSet(rs);
+                return MAPPER.mappa(rs);
             }
             
         } catch (SQLException e) {
@@ -102,15 +123,12 @@ public class StudenteDAO {
      */
     public static List<Studente> getAll() {
         List<Studente> studenti = new ArrayList<>();
-        String sql = "SELECT * FROM Studente ORDER BY Nome";
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SQL_TUTTI)) {
             
-            while (rs.next()) {
-                studenti.add(createStudenteFromResultSet(rs));
-            }
+            studenti = MAPPER_ELENCO.mappaTutte(rs);
             
         } catch (SQLException e) {
             System.err.println("Errore recupero studenti: " + e.getMessage());
@@ -128,20 +146,14 @@ public class StudenteDAO {
      */
     public static List<Studente> getByCorso(int idCorso) {
         List<Studente> studenti = new ArrayList<>();
-        String sql = "SELECT S.* FROM Studente S " +
-                     "JOIN Iscrizione I ON S.ID_Studente = I.ID_Studente " +
-                     "WHERE I.ID_Corso = ? " +
-                     "ORDER BY S.Nome";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_BY_CORSO)) {
             
             ps.setInt(1, idCorso);
             ResultSet rs = ps.executeQuery();
             
-            while (rs.next()) {
-                studenti.add(createStudenteFromResultSet(rs));
-            }
+            studenti = MAPPER_ELENCO.mappaTutte(rs);
             
         } catch (SQLException e) {
             System.err.println("Errore recupero studenti per corso: " + e.getMessage());
@@ -151,6 +163,48 @@ public class StudenteDAO {
         return studenti;
     }
     
+    /**
+     * Legge tutti gli studenti a flusso, senza tenerli tutti in memoria (es. per esportazioni).
+     * Il flusso tiene in prestito una connessione finché non viene chiuso:
+     * va usato con try-with-resources.
+     * 
+     * @return flusso di studenti ordinato per nome, vuoto in caso di errore
+     */
+    public static Stream<Studente> flussoTutti() {
+        return CursoreRighe.flusso(SQL_TUTTI, CursoreRighe.NESSUN_PARAMETRO, MAPPER_ELENCO);
+    }
+    
+    /**
+     * Passa al visitatore tutti gli studenti, uno alla volta e in ordine di nome.
+     * 
+     * @param visitatore azione eseguita per ogni studente
+     * @return true se tutti gli studenti sono stati letti, false in caso di errore
+     */
+    public static boolean perOgni(Consumer<? super Studente> visitatore) {
+        return CursoreRighe.perOgni(SQL_TUTTI, CursoreRighe.NESSUN_PARAMETRO, MAPPER_ELENCO, visitatore);
+    }
+    
+    /**
+     * Legge a flusso gli studenti iscritti a un corso; va chiuso come {@link #flussoTutti()}.
+     * 
+     * @param idCorso ID del corso
+     * @return flusso di studenti ordinato per nome, vuoto in caso di errore
+     */
+    public static Stream<Studente> flussoByCorso(int idCorso) {
+        return CursoreRighe.flusso(SQL_BY_CORSO, ps -> ps.setInt(1, idCorso), MAPPER_ELENCO);
+    }
+    
+    /**
+     * Passa al visitatore gli studenti iscritti a un corso, uno alla volta e in ordine di nome.
+     * 
+     * @param idCorso    ID del corso
+     * @param visitatore azione eseguita per ogni studente
+     * @return true se tutti gli studenti sono stati letti, false in caso di errore
+     */
+    public static boolean perOgniByCorso(int idCorso, Consumer<? super Studente> visitatore) {
+        return CursoreRighe.perOgni(SQL_BY_CORSO, ps -> ps.setInt(1, idCorso), MAPPER_ELENCO, visitatore);
+    }
+    
     /**
      * Verifica se una matricola esiste già nel database.
      * 
@@ -228,21 +282,4 @@ public class StudenteDAO {
         
         return 0;
     }
-    
-    /**
-     * Crea un oggetto Studente da un ResultSet.
-     * 
-     * @param rs ResultSet contenente i dati dello studente
-     * @return oggetto Studente creato
-     * @throws SQLException se si verifica un errore nel recupero dei dati
-     */
-    private static Studente createStudenteFromResultSet(ResultSet rs) throws SQLException {
-        return new Studente(
-            rs.getInt("ID_Studente"),
-            rs.getString("Nome"),
-            rs.getString("Matricola"),
-            rs.getString("Email"),
-            rs.getString("Password")
-        );
-    }
 }
\ No newline at end of file
@@ -6,6 +6,9 @@ import java.awt.*;
 
 public abstract class BasePanel extends JPanel {
     
+    // Caricamenti in corso: il cursore d'attesa resta finché non terminano tutti
+    private int caricamentiAttivi = 0;
+    
     public BasePanel() {}
     
     /**
@@ -71,6 +74,23 @@ public abstract class BasePanel extends JPanel {
         );
     }
     
+    // ==================== INDICATORE DI CARICAMENTO ====================
+    
+    /**
+     * Mostra o nasconde l'indicatore di caricamento (cursore d'attesa).
+     * Le chiamate si annidano: ogni setLoading(true) va bilanciata da un setLoading(false).
+     */
+    public void setLoading(boolean loading) {
+        caricamentiAttivi = Math.max(0, caricamentiAttivi + (loading ? 1 : -1));
+        setCursor(caricamentiAttivi > 0
+            ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR)
+            : Cursor.getDefaultCursor());
+    }
+    
+    public boolean isLoading() {
+        return caricamentiAttivi > 0;
+    }
+    
     // ==================== METODI DI UTILITÀ ====================
     
     protected void setPadding(int padding) {
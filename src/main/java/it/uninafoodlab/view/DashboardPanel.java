@@ -1,29 +1,26 @@
 package it.uninafoodlab.view;
 
 import java.awt.*;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.swing.*;
 
-import it.uninafoodlab.dao.RicettaDAO;
-import it.uninafoodlab.dao.RicettaIngredienteDAO;
-import it.uninafoodlab.dao.SessioneOnlineDAO;
-import it.uninafoodlab.dao.SessionePraticaDAO;
+import it.uninafoodlab.dao.CorsoDAO.RiepilogoCorso;
 import it.uninafoodlab.model.domain.Corso;
-import it.uninafoodlab.model.domain.Ricetta;
-import it.uninafoodlab.model.domain.SessioneOnline;
-import it.uninafoodlab.model.domain.SessionePratica;
 import it.uninafoodlab.model.enums.Categoria;
 
 /**
  * Panel che mostra la lista dei corsi dello chef con filtro per categoria.
+ * Ogni card riporta anche iscritti, sessioni, ricette e prossima sessione del corso
+ * (vedi {@link it.uninafoodlab.dao.CorsoDAO#getRiepiloghiByChef(int)}).
  */
 public class DashboardPanel extends BasePanel {
     
     private JComboBox<String> categoriaFilter;
-    private JPanel corsiContainer;
-    private List<Corso> allCorsi;
+    private VirtualCardList<RiepilogoCorso> listaCorsi;
+    private List<RiepilogoCorso> allCorsi;
     private Consumer<Corso> onDettagliAction;
     
     public DashboardPanel() {
@@ -86,21 +83,24 @@ public class DashboardPanel extends BasePanel {
     }
     
     private void initCorsiPanel() {
-        corsiContainer = new JPanel();
-        corsiContainer.setLayout(new BoxLayout(corsiContainer, BoxLayout.Y_AXIS));
-        corsiContainer.setBackground(UiUtil.UNINA_GREY);
-        
-        JScrollPane scrollPane = new JScrollPane(corsiContainer);
-        scrollPane.setBorder(null);
-        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        listaCorsi = new VirtualCardList<>(new CardCorso(), 10);
+        listaCorsi.setAltezzaFissa(136);
+        listaCorsi.setVistaVuota(createEmptyView());
+        listaCorsi.setAzione((riepilogo, azione) -> {
+            if (onDettagliAction != null) {
+                onDettagliAction.accept(riepilogo.getCorso());
+            } else {
+            	System.err.println("ERRORE: Azione dettagli non configurata nel controller"); //DEBUG
+            }
+        });
         
-        add(scrollPane, BorderLayout.CENTER);
+        add(listaCorsi, BorderLayout.CENTER);
     }
     
     /**
-     * Imposta i corsi da visualizzare.
+     * Imposta i corsi da visualizzare, con le loro statistiche.
      */
-    public void setCorsi(List<Corso> corsi) {
+    public void setCorsi(List<RiepilogoCorso> corsi) {
         this.allCorsi = corsi;
         applyFilter();
     }
@@ -113,39 +113,15 @@ public class DashboardPanel extends BasePanel {
         
         String selectedCategoria = (String) categoriaFilter.getSelectedItem();
         
-        List<Corso> filteredCorsi = allCorsi;
+        List<RiepilogoCorso> filteredCorsi = allCorsi;
         
         if (!"Tutte".equals(selectedCategoria)) {
             filteredCorsi = allCorsi.stream()
-                .filter(c -> c.getCategoria().getDisplayName().equals(selectedCategoria))
+                .filter(r -> r.getCorso().getCategoria().getDisplayName().equals(selectedCategoria))
                 .collect(Collectors.toList());
         }
         
-        displayCorsi(filteredCorsi);
-    }
-    
-    /**
-     * Mostra i corsi nel container.
-     */
-    private void displayCorsi(List<Corso> corsi) {
-        corsiContainer.removeAll();
-        
-        if (corsi.isEmpty()) {
-            JLabel emptyLabel = new JLabel("Nessun corso trovato");
-            emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
-            emptyLabel.setForeground(Color.GRAY.darker());
-            emptyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            corsiContainer.add(Box.createVerticalStrut(50));
-            corsiContainer.add(emptyLabel);
-        } else {
-            for (Corso corso : corsi) {
-                corsiContainer.add(createCorsoCard(corso));
-                corsiContainer.add(Box.createVerticalStrut(10));
-            }
-        }
-        
-        corsiContainer.revalidate();
-        corsiContainer.repaint();
+        listaCorsi.setElementi(filteredCorsi);
     }
     
     /**
@@ -155,75 +131,104 @@ public class DashboardPanel extends BasePanel {
      */
     public void setDettagliAction(Consumer<Corso> action) {
         this.onDettagliAction = action;
-        
-        if(allCorsi != null && !allCorsi.isEmpty()) {
-        	applyFilter();
-        }
+    }
+    
+    private JComponent createEmptyView() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBackground(UiUtil.UNINA_GREY);
+        
+        JLabel emptyLabel = new JLabel("Nessun corso trovato");
+        emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
+        emptyLabel.setForeground(Color.GRAY.darker());
+        emptyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(Box.createVerticalStrut(50));
+        panel.add(emptyLabel);
+        return panel;
     }
     
     /**
-     * Crea una card per un corso.
+     * Card di un corso, unica per tutta la lista: {@link VirtualCardList} la riempie
+     * con i dati di ciascun corso visibile.
      */
-    private JPanel createCorsoCard(Corso corso) {
-        JPanel card = new JPanel(new BorderLayout(10, 10));
-        card.setBackground(UiUtil.CARD_BG);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(UiUtil.CARD_BORDER, 1),
-            BorderFactory.createEmptyBorder(15, 15, 15, 15)
-        ));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 100));
-        
-        // Pannello info
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(UiUtil.CARD_BG);
-        
-        JLabel titoloLabel = new JLabel(corso.getTitolo());
-        titoloLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        titoloLabel.setForeground(UiUtil.UNINA_BLUE);
-        
-        JLabel categoriaLabel = new JLabel("Categoria: " + corso.getCategoria().getDisplayName());
-        categoriaLabel.setFont(new Font("Arial", Font.PLAIN, 14));
-        
-        JLabel dataLabel = new JLabel("Inizio: " + corso.getDataInizio() + " | Frequenza: ogni " + 
-                                      corso.getFrequenza() + " giorni | Sessioni: " + corso.getNumeroSessioni());
-        dataLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        dataLabel.setForeground(Color.GRAY);
-        
-        infoPanel.add(titoloLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(categoriaLabel);
-        infoPanel.add(Box.createVerticalStrut(3));
-        infoPanel.add(dataLabel);
-        
-        // Pulsante dettagli
-        JButton dettagliBtn = new JButton("Vedi Dettagli");
-        dettagliBtn.setBackground(UiUtil.UNINA_BLUE);
-        dettagliBtn.setForeground(Color.WHITE);
-        dettagliBtn.setFocusPainted(false);
-        dettagliBtn.addActionListener(e -> {
-            if (onDettagliAction != null) {
-                onDettagliAction.accept(corso);
-            } else {
-            	System.err.println("ERRORE: Azione dettagli non configurata nel controller"); //DEBUG
-            }
-        });
-        
-        card.add(infoPanel, BorderLayout.CENTER);
-        card.add(dettagliBtn, BorderLayout.EAST);
+    private static class CardCorso extends JPanel implements VirtualCardList.CardRenderer<RiepilogoCorso> {
+        private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        
+        private final JPanel infoPanel = new JPanel();
+        private final JLabel titoloLabel = new JLabel();
+        private final JLabel categoriaLabel = new JLabel();
+        private final JLabel dataLabel = new JLabel();
+        private final JLabel statisticheLabel = new JLabel();
+        private final JLabel prossimaLabel = new JLabel();
+        
+        CardCorso() {
+            super(new BorderLayout(10, 10));
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(UiUtil.CARD_BORDER, 1),
+                BorderFactory.createEmptyBorder(15, 15, 15, 15)
+            ));
+            
+            // Pannello info
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            
+            titoloLabel.setFont(new Font("Arial", Font.BOLD, 18));
+            titoloLabel.setForeground(UiUtil.UNINA_BLUE);
+            categoriaLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+            dataLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            dataLabel.setForeground(Color.GRAY);
+            statisticheLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            prossimaLabel.setFont(new Font("Arial", Font.BOLD, 12));
+            
+            infoPanel.add(titoloLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(categoriaLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(dataLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(statisticheLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(prossimaLabel);
+            
+            // Pulsante dettagli
+            JButton dettagliBtn = new JButton("Vedi Dettagli");
+            dettagliBtn.setActionCommand("dettagli");
+            dettagliBtn.setBackground(UiUtil.UNINA_BLUE);
+            dettagliBtn.setForeground(Color.WHITE);
+            dettagliBtn.setFocusPainted(false);
+            
+            add(infoPanel, BorderLayout.CENTER);
+            add(dettagliBtn, BorderLayout.EAST);
+        }
         
-        // Effetto hover
-        card.addMouseListener(new java.awt.event.MouseAdapter() {
-            public void mouseEntered(java.awt.event.MouseEvent evt) {
-                card.setBackground(UiUtil.CARD_HOVER);
-                infoPanel.setBackground(UiUtil.CARD_HOVER);
-            }
-            public void mouseExited(java.awt.event.MouseEvent evt) {
-                card.setBackground(UiUtil.CARD_BG);
-                infoPanel.setBackground(UiUtil.CARD_BG);
+        @Override
+        public JComponent aggiorna(RiepilogoCorso riepilogo, boolean hover) {
+            Corso corso = riepilogo.getCorso();
+            titoloLabel.setText(corso.getTitolo());
+            categoriaLabel.setText("Categoria: " + corso.getCategoria().getDisplayName());
+            dataLabel.setText("Inizio: " + corso.getDataInizio() + " | Frequenza: ogni " + 
+                              corso.getFrequenza() + " giorni | Sessioni: " + corso.getNumeroSessioni());
+            statisticheLabel.setText("Iscritti: " + riepilogo.getNumIscritti()
+                + " | Sessioni online: " + riepilogo.getNumSessioniOnline()
+                + " | Sessioni pratiche: " + riepilogo.getNumSessioniPratiche()
+                + " | Ricette: " + riepilogo.getNumRicette());
+            
+            if (riepilogo.hasProssimaSessione()) {
+                String ora = riepilogo.getProssimaOra() != null
+                    ? String.format(" alle %02d:%02d", riepilogo.getProssimaOra().getHour(), riepilogo.getProssimaOra().getMinute())
+                    : "";
+                prossimaLabel.setText("Prossima sessione: " + riepilogo.getProssimaData().format(FMT) + ora
+                    + (riepilogo.isProssimaOnline() ? " (online)" : " (pratica)"));
+                prossimaLabel.setForeground(UiUtil.UNINA_BLUE);
+            } else {
+                prossimaLabel.setText("Nessuna sessione in programma");
+                prossimaLabel.setForeground(Color.GRAY);
             }
-        });
-        
-        return card;
+            
+            // Effetto hover
+            Color sfondo = hover ? UiUtil.CARD_HOVER : UiUtil.CARD_BG;
+            setBackground(sfondo);
+            infoPanel.setBackground(sfondo);
+            return this;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,8 +3,13 @@ package it.uninafoodlab.view;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.swing.*;
 
@@ -15,6 +20,10 @@ import it.uninafoodlab.model.domain.*;
  */
 public class DettagliCorsoPanel extends BasePanel {
 
+    private static final Color COLORE_PRATICA = new Color(220, 100, 50);
+    private static final Color COLORE_RICETTE = new Color(39, 174, 96);
+    private static final Color COLORE_ELIMINA = new Color(180, 40, 40);
+
     private Corso corsoCorrente;
 
     private JLabel titoloLabel;
@@ -23,7 +32,8 @@ public class DettagliCorsoPanel extends BasePanel {
     private JLabel frequenzaLabel;
     private JLabel numSessioniLabel;
     private JPanel headerPanel;
-    private JPanel sessioniContainer;
+    private VirtualCardList<Riga> listaSessioni;
+    private int numIscritti;
 
     // Callback iniettati da CorsoController
     private Consumer<ModificaSessioneRequest> onModifica;
@@ -105,16 +115,21 @@ public class DettagliCorsoPanel extends BasePanel {
         sessioniTitle.setForeground(UiUtil.UNINA_BLUE);
         sessioniTitle.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
 
-        sessioniContainer = new JPanel();
-        sessioniContainer.setLayout(new BoxLayout(sessioniContainer, BoxLayout.Y_AXIS));
-        sessioniContainer.setBackground(UiUtil.UNINA_GREY);
+        JLabel emptyLabel = new JLabel("Nessuna sessione trovata");
+        emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
+        emptyLabel.setForeground(Color.GRAY);
+        JPanel emptyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        emptyPanel.setBackground(UiUtil.UNINA_GREY);
+        emptyPanel.add(emptyLabel);
 
-        JScrollPane scrollPane = new JScrollPane(sessioniContainer);
-        scrollPane.setBorder(null);
-        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        // Le righe hanno altezze diverse (titoli, card online, card pratiche con ricette):
+        // VirtualCardList ricorda quella di ogni riga e rimisura solo le righe nuove o sostituite
+        listaSessioni = new VirtualCardList<>(new CardSessione(), 10);
+        listaSessioni.setVistaVuota(emptyPanel);
+        listaSessioni.setAzione(this::eseguiAzione);
 
         mainPanel.add(sessioniTitle, BorderLayout.NORTH);
-        mainPanel.add(scrollPane,    BorderLayout.CENTER);
+        mainPanel.add(listaSessioni, BorderLayout.CENTER);
 
         add(mainPanel, BorderLayout.CENTER);
     }
@@ -147,196 +162,380 @@ public class DettagliCorsoPanel extends BasePanel {
         frequenzaLabel.setText("Ogni " + corso.getFrequenza() + " giorni");
         numSessioniLabel.setText(String.valueOf(corso.getNumeroSessioni()));
 
-        sessioniContainer.removeAll();
+        this.numIscritti = numIscritti;
+
+        // Ricette raggruppate una volta sola per sessione pratica
+        Map<Integer, List<Ricetta>> ricettePerSessione = ricetteConIngredienti.stream()
+            .collect(Collectors.groupingBy(Ricetta::getIdSessionePratica));
 
+        List<Riga> righe = new ArrayList<>();
         if (!sessioniOnline.isEmpty()) {
-            sessioniContainer.add(createSectionTitle("Sessioni Online"));
+            righe.add(Riga.titolo("Sessioni Online"));
             for (SessioneOnline s : sessioniOnline) {
-                sessioniContainer.add(createSessioneOnlineCard(s));
-                sessioniContainer.add(Box.createVerticalStrut(10));
+                righe.add(Riga.online(s));
             }
         }
 
         if (!sessioniPratiche.isEmpty()) {
-            sessioniContainer.add(createSectionTitle("Sessioni Pratiche"));
+            righe.add(Riga.titolo("Sessioni Pratiche"));
             for (SessionePratica s : sessioniPratiche) {
-                List<Ricetta> ricetteSessione = ricetteConIngredienti.stream()
-                    .filter(r -> r.getIdSessionePratica() == s.getIdSessionePratica())
-                    .toList();
-                sessioniContainer.add(createSessionePraticaCard(s, ricetteSessione, numIscritti));
-                sessioniContainer.add(Box.createVerticalStrut(10));
+                righe.add(Riga.pratica(s,
+                    ricettePerSessione.getOrDefault(s.getIdSessionePratica(), List.of())));
             }
         }
 
-        if (sessioniOnline.isEmpty() && sessioniPratiche.isEmpty()) {
-            JLabel emptyLabel = new JLabel("Nessuna sessione trovata");
-            emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
-            emptyLabel.setForeground(Color.GRAY);
-            sessioniContainer.add(emptyLabel);
+        listaSessioni.setElementi(righe);
+    }
+
+    public Corso getCorsoCorrente() { return corsoCorrente; }
+
+    // ── Aggiornamento di una sola sessione ───────────────────────────────────
+
+    /**
+     * Ridisegna la card di una sessione online modificata senza ricaricare il corso.
+     * Non ha effetto se la sessione non è mostrata.
+     */
+    public void aggiornaSessione(SessioneOnline s) {
+        aggiornaRiga(r -> r.online() != null && r.online().getIdSessioneOnline() == s.getIdSessioneOnline(),
+                     Riga.online(s));
+    }
+
+    /**
+     * Ridisegna la card di una sessione pratica modificata (con le ricette già mostrate)
+     * senza ricaricare il corso. Non ha effetto se la sessione non è mostrata.
+     */
+    public void aggiornaSessione(SessionePratica s) {
+        Predicate<Riga> stessa = r -> r.pratica() != null
+            && r.pratica().getIdSessionePratica() == s.getIdSessionePratica();
+        int i = listaSessioni.indiceDi(stessa);
+        if (i < 0) return;
+        aggiornaRiga(stessa, Riga.pratica(s, listaSessioni.getElemento(i).ricette()));
+    }
+
+    /**
+     * Toglie la card di una sessione online eliminata senza ricaricare il corso.
+     */
+    public void rimuoviSessioneOnline(int idSessione) {
+        rimuoviRiga(r -> r.online() != null && r.online().getIdSessioneOnline() == idSessione);
+    }
+
+    /**
+     * Toglie la card di una sessione pratica eliminata senza ricaricare il corso.
+     */
+    public void rimuoviSessionePratica(int idSessione) {
+        rimuoviRiga(r -> r.pratica() != null && r.pratica().getIdSessionePratica() == idSessione);
+    }
+
+    /** Rimuove la riga indicata e, se era l'ultima della sua sezione, anche il titolo della sezione. */
+    private void rimuoviRiga(Predicate<Riga> stessa) {
+        int i = listaSessioni.indiceDi(stessa);
+        if (i < 0) return;
+        listaSessioni.rimuovi(i);
+
+        boolean titoloPrima = listaSessioni.getElemento(i - 1).titolo() != null;
+        boolean sezioneFinita = i == listaSessioni.getNumeroElementi()
+            || listaSessioni.getElemento(i).titolo() != null;
+        if (titoloPrima && sezioneFinita) listaSessioni.rimuovi(i - 1);
+    }
+
+    /**
+     * Sostituisce la riga indicata. Se la nuova data o ora cambia l'ordine, la riga
+     * viene spostata nella sua sezione rispettando l'ordinamento per data e ora del caricamento.
+     */
+    private void aggiornaRiga(Predicate<Riga> stessa, Riga nuova) {
+        int i = listaSessioni.indiceDi(stessa);
+        if (i < 0) return;
+
+        // Sezione della riga: sessioni comprese tra due titoli
+        int inizio = i, fine = i + 1;
+        while (inizio > 0 && listaSessioni.getElemento(inizio - 1).titolo() == null) inizio--;
+        while (fine < listaSessioni.getNumeroElementi() && listaSessioni.getElemento(fine).titolo() == null) fine++;
+
+        int pos = inizio;
+        while (pos < fine && (pos == i || Riga.ORDINE.compare(listaSessioni.getElemento(pos), nuova) <= 0)) pos++;
+        // pos conta anche la riga stessa se la precede: tolta la riga, la posizione scala di uno
+        if (pos > i) pos--;
+
+        if (pos == i) {
+            listaSessioni.sostituisci(i, nuova);
+        } else {
+            listaSessioni.rimuovi(i);
+            listaSessioni.inserisci(pos, nuova);
         }
+    }
 
-        sessioniContainer.revalidate();
-        sessioniContainer.repaint();
+    // ── Righe della lista sessioni ────────────────────────────────────────────
+
+    /**
+     * Riga della lista: titolo di sezione, sessione online o sessione pratica con le sue ricette.
+     */
+    private record Riga(String titolo, SessioneOnline online, SessionePratica pratica, List<Ricetta> ricette) {
+        // Stesso ordine delle query di caricamento (ORDER BY Data, Ora: ora mancante in fondo)
+        static final Comparator<Riga> ORDINE = Comparator
+            .comparing(Riga::data)
+            .thenComparing(Riga::ora, Comparator.nullsLast(Comparator.naturalOrder()));
+
+        static Riga titolo(String titolo)           { return new Riga(titolo, null, null, null); }
+        static Riga online(SessioneOnline s)        { return new Riga(null, s, null, null); }
+        static Riga pratica(SessionePratica s, List<Ricetta> ricette) { return new Riga(null, null, s, ricette); }
+
+        LocalDate data() { return online != null ? online.getData() : pratica.getData(); }
+        LocalTime ora()  { return online != null ? online.getOra()  : pratica.getOra(); }
     }
 
-    public Corso getCorsoCorrente() { return corsoCorrente; }
+    /** Traduce il pulsante premuto su una card nel dialog corrispondente. */
+    private void eseguiAzione(Riga riga, String azione) {
+        if (riga.online() != null) {
+            SessioneOnline s = riga.online();
+            switch (azione) {
+                case "modifica" -> showModificaDialog(s.getIdSessioneOnline(), "ONLINE", s.getData(), s.getOra());
+                case "elimina"  -> showEliminaDialog(s.getIdSessioneOnline(), "ONLINE", s.getData());
+                default         -> { }
+            }
+        } else if (riga.pratica() != null) {
+            SessionePratica s = riga.pratica();
+            switch (azione) {
+                case "modifica" -> showModificaDialog(s.getIdSessionePratica(), "PRATICA", s.getData(), s.getOra());
+                case "ricette"  -> showAggiungiRicetteDialog(s.getIdSessionePratica());
+                case "elimina"  -> showEliminaDialog(s.getIdSessionePratica(), "PRATICA", s.getData());
+                default         -> { }
+            }
+        }
+    }
+
+    /**
+     * Renderer della lista sessioni: un componente riutilizzato per ciascun tipo di riga,
+     * riempito da {@link VirtualCardList} con i dati delle righe visibili.
+     */
+    private class CardSessione implements VirtualCardList.CardRenderer<Riga> {
+        private final JPanel titoloPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        private final JLabel titoloSezione = new JLabel();
+        private final CardOnline cardOnline = new CardOnline();
+        private final CardPratica cardPratica = new CardPratica();
+
+        CardSessione() {
+            titoloPanel.setBackground(UiUtil.UNINA_GREY);
+            titoloSezione.setFont(new Font("Arial", Font.BOLD, 18));
+            titoloSezione.setForeground(UiUtil.UNINA_BLUE);
+            titoloPanel.add(titoloSezione);
+        }
+
+        @Override
+        public JComponent aggiorna(Riga riga, boolean hover) {
+            if (riga.online() != null)  return cardOnline.aggiorna(riga.online());
+            if (riga.pratica() != null) return cardPratica.aggiorna(riga.pratica(), riga.ricette());
+            titoloSezione.setText(riga.titolo());
+            return titoloPanel;
+        }
+    }
 
     // ── Card sessione online ──────────────────────────────────────────────────
 
-    private JPanel createSessioneOnlineCard(SessioneOnline sessione) {
-        JPanel card = new JPanel(new BorderLayout(10, 0));
-        card.setBackground(Color.WHITE);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(UiUtil.UNINA_BLUE, 2),
-            BorderFactory.createEmptyBorder(15, 15, 15, 15)
-        ));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 110));
+    private class CardOnline extends JPanel {
+        private final JLabel dataLabel = new JLabel();
+        private final JLabel linkLabel = new JLabel();
 
-        // Info
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(Color.WHITE);
+        CardOnline() {
+            super(new BorderLayout(10, 0));
+            setBackground(Color.WHITE);
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(UiUtil.UNINA_BLUE, 2),
+                BorderFactory.createEmptyBorder(15, 15, 15, 15)
+            ));
+
+            // Info
+            JPanel infoPanel = new JPanel();
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setBackground(Color.WHITE);
+
+            JLabel tipoLabel = new JLabel("SESSIONE ONLINE");
+            tipoLabel.setFont(new Font("Arial", Font.BOLD, 14));
+            tipoLabel.setForeground(UiUtil.UNINA_BLUE);
+
+            dataLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+            linkLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            linkLabel.setForeground(Color.GRAY);
+
+            infoPanel.add(tipoLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(dataLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(linkLabel);
+
+            // Bottoni azione
+            JPanel btnPanel = new JPanel();
+            btnPanel.setLayout(new BoxLayout(btnPanel, BoxLayout.Y_AXIS));
+            btnPanel.setBackground(Color.WHITE);
 
-        JLabel tipoLabel = new JLabel("SESSIONE ONLINE");
-        tipoLabel.setFont(new Font("Arial", Font.BOLD, 14));
-        tipoLabel.setForeground(UiUtil.UNINA_BLUE);
-
-        String oraStr = sessione.getOra() != null
-            ? " | Ora: " + String.format("%02d:%02d", sessione.getOra().getHour(), sessione.getOra().getMinute())
-            : "";
-        JLabel dataLabel = new JLabel("Data: " + sessione.getData() + oraStr + " | Durata: " + sessione.getDurata() + " min");
-        dataLabel.setFont(new Font("Arial", Font.PLAIN, 13));
-
-        JLabel linkLabel = new JLabel("Link: " + sessione.getLink());
-        linkLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        linkLabel.setForeground(Color.GRAY);
-
-        infoPanel.add(tipoLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(dataLabel);
-        infoPanel.add(Box.createVerticalStrut(3));
-        infoPanel.add(linkLabel);
-
-        // Bottoni azione
-        JPanel btnPanel = new JPanel();
-        btnPanel.setLayout(new BoxLayout(btnPanel, BoxLayout.Y_AXIS));
-        btnPanel.setBackground(Color.WHITE);
-
-        JButton btnModifica = makeActionBtn("✏ Modifica", UiUtil.UNINA_BLUE);
-        btnModifica.addActionListener(e ->
-            showModificaDialog(sessione.getIdSessioneOnline(), "ONLINE",
-                               sessione.getData(), sessione.getOra()));
-
-        JButton btnElimina = makeActionBtn("✕ Elimina", new Color(180, 40, 40));
-        btnElimina.addActionListener(e ->
-            showEliminaDialog(sessione.getIdSessioneOnline(), "ONLINE", sessione.getData()));
-
-        btnPanel.add(btnModifica);
-        btnPanel.add(Box.createVerticalStrut(6));
-        btnPanel.add(btnElimina);
-
-        card.add(infoPanel, BorderLayout.CENTER);
-        card.add(btnPanel,  BorderLayout.EAST);
-        return card;
+            btnPanel.add(makeActionBtn("✏ Modifica", UiUtil.UNINA_BLUE, "modifica"));
+            btnPanel.add(Box.createVerticalStrut(6));
+            btnPanel.add(makeActionBtn("✕ Elimina", COLORE_ELIMINA, "elimina"));
+
+            add(infoPanel, BorderLayout.CENTER);
+            add(btnPanel,  BorderLayout.EAST);
+        }
+
+        JComponent aggiorna(SessioneOnline sessione) {
+            dataLabel.setText("Data: " + sessione.getData() + formattaOra(sessione.getOra())
+                              + " | Durata: " + sessione.getDurata() + " min");
+            linkLabel.setText("Link: " + sessione.getLink());
+            return this;
+        }
     }
 
     // ── Card sessione pratica ─────────────────────────────────────────────────
 
-    private JPanel createSessionePraticaCard(SessionePratica sessione, List<Ricetta> ricette, int numIscritti) {
-        JPanel card = new JPanel(new BorderLayout(10, 0));
-        card.setBackground(Color.WHITE);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(new Color(220, 100, 50), 2),
-            BorderFactory.createEmptyBorder(15, 15, 15, 15)
-        ));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 320));
+    private class CardPratica extends JPanel {
+        private final JPanel infoPanel = new JPanel();
+        private final JLabel dataLabel = new JLabel();
+        private final JLabel luogoLabel = new JLabel();
+        private final JLabel iscrittiLabel = new JLabel();
+        private final JLabel ricetteLabel = new JLabel();
+        private final JLabel noRicette = new JLabel("Nessuna ricetta associata");
+        // Pannelli ricetta riutilizzati: se ne crea uno nuovo solo quando una sessione ne ha più del solito
+        private final List<PannelloRicetta> ricettePool = new ArrayList<>();
+
+        CardPratica() {
+            super(new BorderLayout(10, 0));
+            setBackground(Color.WHITE);
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(COLORE_PRATICA, 2),
+                BorderFactory.createEmptyBorder(15, 15, 15, 15)
+            ));
+
+            // Info
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setBackground(Color.WHITE);
+
+            JLabel tipoLabel = new JLabel("SESSIONE PRATICA");
+            tipoLabel.setFont(new Font("Arial", Font.BOLD, 14));
+            tipoLabel.setForeground(COLORE_PRATICA);
+            tipoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            dataLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+            dataLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            luogoLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            luogoLabel.setForeground(Color.GRAY);
+            luogoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            iscrittiLabel.setFont(new Font("Arial", Font.BOLD, 13));
+            iscrittiLabel.setForeground(COLORE_RICETTE);
+            iscrittiLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        // Info
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(Color.WHITE);
-
-        JLabel tipoLabel = new JLabel("SESSIONE PRATICA");
-        tipoLabel.setFont(new Font("Arial", Font.BOLD, 14));
-        tipoLabel.setForeground(new Color(220, 100, 50));
-        tipoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        String oraStr = sessione.getOra() != null
-            ? " | Ora: " + String.format("%02d:%02d", sessione.getOra().getHour(), sessione.getOra().getMinute())
-            : "";
-        JLabel dataLabel = new JLabel("Data: " + sessione.getData() + oraStr + " | Durata: " + sessione.getDurata() + " min");
-        dataLabel.setFont(new Font("Arial", Font.PLAIN, 13));
-        dataLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JLabel luogoLabel = new JLabel("Luogo: " + sessione.getLuogo());
-        luogoLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        luogoLabel.setForeground(Color.GRAY);
-        luogoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        
-        JLabel iscrittiLabel = new JLabel("Studenti che partecipano: " + numIscritti);
-        iscrittiLabel.setFont(new Font("Arial", Font.BOLD, 13));
-        iscrittiLabel.setForeground(new Color(39, 174, 96));
-        iscrittiLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        infoPanel.add(tipoLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(dataLabel);
-        infoPanel.add(Box.createVerticalStrut(3));
-        infoPanel.add(luogoLabel);
-        infoPanel.add(Box.createVerticalStrut(3));
-        infoPanel.add(iscrittiLabel);
-
-        // Ricette
-        if (!ricette.isEmpty()) {
-            infoPanel.add(Box.createVerticalStrut(10));
-            JLabel ricetteLabel = new JLabel("Ricette (" + ricette.size() + "):");
             ricetteLabel.setFont(new Font("Arial", Font.BOLD, 13));
             ricetteLabel.setForeground(UiUtil.UNINA_BLUE);
             ricetteLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-            infoPanel.add(ricetteLabel);
-            for (Ricetta r : ricette) {
-                infoPanel.add(Box.createVerticalStrut(5));
-                JPanel rp = createRicettaPanel(r);
-                rp.setAlignmentX(Component.LEFT_ALIGNMENT);
-                infoPanel.add(rp);
-            }
-        } else {
-            infoPanel.add(Box.createVerticalStrut(5));
-            JLabel noRicette = new JLabel("Nessuna ricetta associata");
+            ricetteLabel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+
             noRicette.setFont(new Font("Arial", Font.ITALIC, 12));
             noRicette.setForeground(Color.GRAY);
             noRicette.setAlignmentX(Component.LEFT_ALIGNMENT);
+            noRicette.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+
+            infoPanel.add(tipoLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(dataLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(luogoLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(iscrittiLabel);
+            infoPanel.add(ricetteLabel);
             infoPanel.add(noRicette);
+
+            // Bottoni azione
+            JPanel btnPanel = new JPanel();
+            btnPanel.setLayout(new BoxLayout(btnPanel, BoxLayout.Y_AXIS));
+            btnPanel.setBackground(Color.WHITE);
+            btnPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+
+            btnPanel.add(makeActionBtn("✏ Modifica", UiUtil.UNINA_BLUE, "modifica"));
+            btnPanel.add(Box.createVerticalStrut(6));
+            btnPanel.add(makeActionBtn("＋ Ricette", COLORE_RICETTE, "ricette"));
+            btnPanel.add(Box.createVerticalStrut(6));
+            btnPanel.add(makeActionBtn("✕ Elimina", COLORE_ELIMINA, "elimina"));
+
+            add(infoPanel, BorderLayout.CENTER);
+            add(btnPanel,  BorderLayout.EAST);
         }
 
-        // Bottoni azione
-        JPanel btnPanel = new JPanel();
-        btnPanel.setLayout(new BoxLayout(btnPanel, BoxLayout.Y_AXIS));
-        btnPanel.setBackground(Color.WHITE);
-        btnPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
-
-        JButton btnModifica = makeActionBtn("✏ Modifica", UiUtil.UNINA_BLUE);
-        btnModifica.addActionListener(e ->
-            showModificaDialog(sessione.getIdSessionePratica(), "PRATICA",
-                               sessione.getData(), sessione.getOra()));
-
-        JButton btnRicette = makeActionBtn("＋ Ricette", new Color(39, 174, 96));
-        btnRicette.addActionListener(e ->
-            showAggiungiRicetteDialog(sessione.getIdSessionePratica()));
-
-        JButton btnElimina = makeActionBtn("✕ Elimina", new Color(180, 40, 40));
-        btnElimina.addActionListener(e ->
-            showEliminaDialog(sessione.getIdSessionePratica(), "PRATICA", sessione.getData()));
-
-        btnPanel.add(btnModifica);
-        btnPanel.add(Box.createVerticalStrut(6));
-        btnPanel.add(btnRicette);
-        btnPanel.add(Box.createVerticalStrut(6));
-        btnPanel.add(btnElimina);
-
-        card.add(infoPanel, BorderLayout.CENTER);
-        card.add(btnPanel,  BorderLayout.EAST);
-        return card;
+        JComponent aggiorna(SessionePratica sessione, List<Ricetta> ricette) {
+            dataLabel.setText("Data: " + sessione.getData() + formattaOra(sessione.getOra())
+                              + " | Durata: " + sessione.getDurata() + " min");
+            luogoLabel.setText("Luogo: " + sessione.getLuogo());
+            iscrittiLabel.setText("Studenti che partecipano: " + numIscritti);
+
+            // Ricette
+            ricetteLabel.setText("Ricette (" + ricette.size() + "):");
+            ricetteLabel.setVisible(!ricette.isEmpty());
+            noRicette.setVisible(ricette.isEmpty());
+
+            while (ricettePool.size() < ricette.size()) {
+                PannelloRicetta rp = new PannelloRicetta();
+                ricettePool.add(rp);
+                infoPanel.add(rp);
+            }
+            for (int i = 0; i < ricettePool.size(); i++) {
+                PannelloRicetta rp = ricettePool.get(i);
+                rp.setVisible(i < ricette.size());
+                if (i < ricette.size()) rp.aggiorna(ricette.get(i));
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Riquadro di una ricetta con l'elenco degli ingredienti, riutilizzato da {@link CardPratica}.
+     */
+    private static class PannelloRicetta extends JPanel {
+        private final JPanel panel = new JPanel(new BorderLayout(5, 5));
+        private final JLabel nomeLabel = new JLabel();
+        private final JPanel ingredientiPanel = new JPanel();
+        private final JLabel elencoLabel = new JLabel();
+
+        PannelloRicetta() {
+            super(new BorderLayout());
+            setBackground(Color.WHITE);
+            setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+            setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            panel.setBackground(UiUtil.CARD_LIGHT);
+            panel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1),
+                BorderFactory.createEmptyBorder(8, 8, 8, 8)
+            ));
+
+            nomeLabel.setFont(new Font("Arial", Font.BOLD, 13));
+
+            ingredientiPanel.setLayout(new BoxLayout(ingredientiPanel, BoxLayout.Y_AXIS));
+            ingredientiPanel.setBackground(UiUtil.CARD_LIGHT);
+
+            JLabel ingredientiLabel = new JLabel("Ingredienti:");
+            ingredientiLabel.setFont(new Font("Arial", Font.ITALIC, 11));
+            ingredientiLabel.setForeground(Color.DARK_GRAY);
+            elencoLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+            ingredientiPanel.add(ingredientiLabel);
+            ingredientiPanel.add(elencoLabel);
+
+            panel.add(nomeLabel,        BorderLayout.NORTH);
+            panel.add(ingredientiPanel, BorderLayout.CENTER);
+            add(panel, BorderLayout.CENTER);
+        }
+
+        void aggiorna(Ricetta ricetta) {
+            nomeLabel.setText("• " + ricetta.getNome());
+
+            // Un'unica label multiriga al posto di una label per ingrediente
+            StringBuilder sb = new StringBuilder("<html>");
+            for (RicettaIngrediente ri : ricetta.getIngredienti()) {
+                sb.append("&nbsp;&nbsp;- ").append(escapeHtml(ri.getIngrediente().getNome()))
+                  .append(": ").append(ri.getQuantita())
+                  .append(' ').append(escapeHtml(ri.getIngrediente().getUnitaMisura()))
+                  .append("<br>");
+            }
+            elencoLabel.setText(sb.append("</html>").toString());
+            ingredientiPanel.setVisible(!ricetta.getIngredienti().isEmpty());
+        }
     }
 
     // ── Dialog: Modifica data/ora ─────────────────────────────────────────────
@@ -550,57 +749,17 @@ public class DettagliCorsoPanel extends BasePanel {
 
     // ── Utility UI ────────────────────────────────────────────────────────────
 
-    private JPanel createSectionTitle(String title) {
-        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        panel.setBackground(UiUtil.UNINA_GREY);
-        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
-        JLabel label = new JLabel(title);
-        label.setFont(new Font("Arial", Font.BOLD, 18));
-        label.setForeground(UiUtil.UNINA_BLUE);
-        panel.add(label);
-        return panel;
+    private static String formattaOra(LocalTime ora) {
+        return ora != null ? " | Ora: " + String.format("%02d:%02d", ora.getHour(), ora.getMinute()) : "";
     }
 
-    private JPanel createRicettaPanel(Ricetta ricetta) {
-        JPanel panel = new JPanel(new BorderLayout(5, 5));
-        panel.setBackground(UiUtil.CARD_LIGHT);
-        panel.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1),
-            BorderFactory.createEmptyBorder(8, 8, 8, 8)
-        ));
-        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 150));
-
-        JLabel nomeLabel = new JLabel("• " + ricetta.getNome());
-        nomeLabel.setFont(new Font("Arial", Font.BOLD, 13));
-        nomeLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        if (!ricetta.getIngredienti().isEmpty()) {
-            JPanel ingredientiPanel = new JPanel();
-            ingredientiPanel.setLayout(new BoxLayout(ingredientiPanel, BoxLayout.Y_AXIS));
-            ingredientiPanel.setBackground(UiUtil.CARD_LIGHT);
-            ingredientiPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-            JLabel ingredientiLabel = new JLabel("Ingredienti:");
-            ingredientiLabel.setFont(new Font("Arial", Font.ITALIC, 11));
-            ingredientiLabel.setForeground(Color.DARK_GRAY);
-            ingredientiPanel.add(ingredientiLabel);
-
-            for (RicettaIngrediente ri : ricetta.getIngredienti()) {
-                JLabel ingLabel = new JLabel("  - " + ri.getIngrediente().getNome()
-                    + ": " + ri.getQuantita() + " " + ri.getIngrediente().getUnitaMisura());
-                ingLabel.setFont(new Font("Arial", Font.PLAIN, 11));
-                ingredientiPanel.add(ingLabel);
-            }
-            panel.add(nomeLabel,        BorderLayout.NORTH);
-            panel.add(ingredientiPanel, BorderLayout.CENTER);
-        } else {
-            panel.add(nomeLabel, BorderLayout.CENTER);
-        }
-        return panel;
+    private static String escapeHtml(String testo) {
+        return testo == null ? "" : testo.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
     }
 
-    private JButton makeActionBtn(String text, Color bg) {
+    private JButton makeActionBtn(String text, Color bg, String azione) {
         JButton b = new JButton(text);
+        b.setActionCommand(azione);
         b.setFont(new Font("Arial", Font.BOLD, 12));
         b.setBackground(bg);
         b.setForeground(Color.WHITE);
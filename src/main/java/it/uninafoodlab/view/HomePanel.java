@@ -1,10 +1,15 @@
 package it.uninafoodlab.view;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import javax.swing.*;
+import it.uninafoodlab.dao.CorsoDAO.RiepilogoCorso;
 import it.uninafoodlab.model.domain.Chef;
-import it.uninafoodlab.model.domain.Corso;
+import it.uninafoodlab.model.domain.Notifica;
 
 public class HomePanel extends BasePanel {
 
@@ -16,6 +21,12 @@ public class HomePanel extends BasePanel {
     private JLabel specLabel;
 
     private JButton logoutBtn;
+    private JButton notificheBtn;
+
+    private String vistaCorrente = "DASHBOARD";
+    // ID delle notifiche arrivate mentre il feed non era visibile: la stessa notifica
+    // può arrivare sia dal segnale push sia dal recupero dopo una riconnessione
+    private final Set<Integer> notificheNonLette = new HashSet<>();
     
     private DashboardPanel    dashboardPanel;
     private NewCoursePanel    newCoursePanel;
@@ -26,6 +37,9 @@ public class HomePanel extends BasePanel {
 
     // Callback iniettato da Main / AuthController
     private Runnable onLogoutAction;
+
+    // Notificati ad ogni cambio di schermata (es. per annullare caricamenti non più visibili)
+    private final List<Consumer<String>> navigationListeners = new ArrayList<>();
     
     
     public HomePanel() {
@@ -134,7 +148,8 @@ public class HomePanel extends BasePanel {
         nav.add(Box.createVerticalStrut(20));
         nav.add(createNavButton("Report Mensile",   "REPORT"));
         nav.add(Box.createVerticalStrut(20));
-        nav.add(createNavButton("Notifiche",           "NOTIFICHE"));
+        notificheBtn = createNavButton("Notifiche",    "NOTIFICHE");
+        nav.add(notificheBtn);
         nav.add(Box.createVerticalStrut(20));
 
         return nav;
@@ -150,9 +165,9 @@ public class HomePanel extends BasePanel {
         btn.setFont(new Font("Arial", Font.PLAIN, 14));
         btn.addActionListener(e -> {
             if ("NOTIFICHE".equals(viewName) && notificaPanel != null) {
-                notificaPanel.refresh();
+                notificaPanel.apri();
             }
-            contentLayout.show(contentPanel, viewName);
+            showPanel(viewName);
         });
         return btn;
     }
@@ -195,6 +210,18 @@ public class HomePanel extends BasePanel {
 
     public void showPanel(String panelName) {
         contentLayout.show(contentPanel, panelName);
+        vistaCorrente = panelName;
+        if ("NOTIFICHE".equals(panelName)) {
+            notificheNonLette.clear();
+            aggiornaContatoreNotifiche();
+        }
+        for (Consumer<String> l : navigationListeners) {
+            l.accept(panelName);
+        }
+    }
+
+    public void addNavigationListener(Consumer<String> listener) {
+        navigationListeners.add(listener);
     }
 
     // ── API per il controller ────────────────────────────────────────────────
@@ -203,7 +230,32 @@ public class HomePanel extends BasePanel {
         this.onLogoutAction = action;
     }
     
-    public void showChef(Chef chef, List<Corso> corsi) {
+    /**
+     * Nuove notifiche ricevute via push: vanno in cima al feed e, se il feed
+     * non è visibile, incrementano il contatore sul pulsante "Notifiche".
+     */
+    public void notificheRicevute(List<Notifica> nuove) {
+        notificaPanel.aggiungiNuove(nuove);
+        if (!"NOTIFICHE".equals(vistaCorrente)) {
+            for (Notifica n : nuove) notificheNonLette.add(n.getIdNotifica());
+            aggiornaContatoreNotifiche();
+        }
+    }
+
+    /** Azzera feed e contatore delle notifiche (al logout). */
+    public void resetNotifiche() {
+        notificaPanel.svuota();
+        notificheNonLette.clear();
+        aggiornaContatoreNotifiche();
+    }
+
+    private void aggiornaContatoreNotifiche() {
+        int n = notificheNonLette.size();
+        notificheBtn.setText(n > 0 ? "Notifiche (" + n + ")" : "Notifiche");
+        notificheBtn.setFont(new Font("Arial", n > 0 ? Font.BOLD : Font.PLAIN, 14));
+    }
+
+    public void showChef(Chef chef, List<RiepilogoCorso> corsi) {
         nameLabel.setText(chef.getNome());
         emailLabel.setText(chef.getEmail());
         specLabel.setText("Numero specializzazioni: " + chef.getNumeroSpecializzazioni());
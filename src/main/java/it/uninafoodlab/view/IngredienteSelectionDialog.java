@@ -5,7 +5,10 @@ import java.math.BigDecimal;
 import java.util.List;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
+import it.uninafoodlab.app.AsyncExecutor;
 import it.uninafoodlab.dao.IngredienteDAO;
 import it.uninafoodlab.model.domain.Ingrediente;
 
@@ -14,6 +17,7 @@ import it.uninafoodlab.model.domain.Ingrediente;
  */
 public class IngredienteSelectionDialog extends JDialog {
     
+    private JTextField cercaField;
     private JComboBox<IngredienteItem> ingredienteCombo;
     private JTextField quantitaField;
     private JLabel unitaLabel;
@@ -72,10 +76,30 @@ public class IngredienteSelectionDialog extends JDialog {
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.insets = new Insets(5, 5, 5, 5);
         
-        // Ingrediente
+        // Ricerca
         gbc.gridx = 0;
         gbc.gridy = 0;
         gbc.weightx = 0.0;
+        JLabel cercaLabel = new JLabel("Cerca:");
+        cercaLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        formPanel.add(cercaLabel, gbc);
+        
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        cercaField = new JTextField();
+        cercaField.setFont(new Font("Arial", Font.PLAIN, 13));
+        cercaField.setToolTipText("Filtra per nome (maiuscole, accenti e piccoli errori non contano)");
+        cercaField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e)  { cercaIngredienti(); }
+            @Override public void removeUpdate(DocumentEvent e)  { cercaIngredienti(); }
+            @Override public void changedUpdate(DocumentEvent e) { cercaIngredienti(); }
+        });
+        formPanel.add(cercaField, gbc);
+        
+        // Ingrediente
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.weightx = 0.0;
         JLabel ingredienteLabel = new JLabel("Ingrediente:");
         ingredienteLabel.setFont(new Font("Arial", Font.BOLD, 14));
         formPanel.add(ingredienteLabel, gbc);
@@ -96,7 +120,7 @@ public class IngredienteSelectionDialog extends JDialog {
         
         // Quantità
         gbc.gridx = 0;
-        gbc.gridy = 1;
+        gbc.gridy = 2;
         gbc.weightx = 0.0;
         JLabel quantitaLabel = new JLabel("Quantità:");
         quantitaLabel.setFont(new Font("Arial", Font.BOLD, 14));
@@ -157,6 +181,7 @@ public class IngredienteSelectionDialog extends JDialog {
      * Carica ingredienti dal database.
      */
     private void loadIngredienti() {
+        // Servito da IngredienteCache: il catalogo viene letto dal DB una sola volta
         List<Ingrediente> ingredienti = IngredienteDAO.getAll();
         
         for (Ingrediente ingrediente : ingredienti) {
@@ -164,14 +189,29 @@ public class IngredienteSelectionDialog extends JDialog {
         }
     }
     
+    /**
+     * Sostituisce le voci della combo con i risultati della ricerca, i più pertinenti per primi.
+     * La ricerca gira in background: ogni tasto premuto rende obsoleta quella precedente.
+     */
+    private void cercaIngredienti() {
+        String testo = cercaField.getText();
+        AsyncExecutor.esegui("ricerca-ingredienti", null,
+            () -> testo.isBlank() ? IngredienteDAO.getAll() : IngredienteDAO.searchByNome(testo),
+            risultati -> {
+                ingredienteCombo.removeAllItems();
+                for (Ingrediente ingrediente : risultati) {
+                    ingredienteCombo.addItem(new IngredienteItem(ingrediente));
+                }
+                updateUnitaMisura();
+            });
+    }
+    
     /**
      * Aggiorna l'unità di misura mostrata.
      */
     private void updateUnitaMisura() {
         IngredienteItem selected = (IngredienteItem) ingredienteCombo.getSelectedItem();
-        if (selected != null) {
-            unitaLabel.setText(selected.getIngrediente().getUnitaMisura());
-        }
+        unitaLabel.setText(selected != null ? selected.getIngrediente().getUnitaMisura() : "");
     }
     
     /**
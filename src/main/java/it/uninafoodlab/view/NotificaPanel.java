@@ -2,12 +2,21 @@ package it.uninafoodlab.view;
 
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.Set;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 
+import it.uninafoodlab.app.AsyncExecutor;
+import it.uninafoodlab.dao.NotificaDAO.Cursore;
+import it.uninafoodlab.dao.NotificaDAO.PaginaNotifiche;
 import it.uninafoodlab.model.domain.Notifica;
+import it.uninafoodlab.model.enums.TipoModifica;
 
 /**
  * Panel per visualizzare le notifiche dello chef loggato.
@@ -16,13 +25,30 @@ import it.uninafoodlab.model.domain.Notifica;
  *   NORTH  – titolo + bottone "Aggiorna"
  *   CENTER – lista scrollabile di card notifica
  *
- * Il caricamento avviene tramite un Supplier iniettato da Main,
+ * Il caricamento avviene tramite un loader paginato iniettato da Main,
  * così il panel non dipende direttamente dal DAO.
+ * Le pagine vengono caricate in background con {@link AsyncExecutor}:
+ * la prima all'apertura, le successive quando la lista arriva vicino al fondo.
+ * Le notifiche create dopo il caricamento arrivano via push ({@link #aggiungiNuove(List)})
+ * e vengono inserite in cima senza ricaricare il feed.
  */
 public class NotificaPanel extends BasePanel {
 
-    private JPanel           listaContainer;
-    private Supplier<List<Notifica>> loader;
+    private static final int DIMENSIONE_PAGINA = 30;
+    // Distanza dal fondo (in pixel) sotto la quale si chiede la pagina successiva
+    private static final int SOGLIA_FONDO = 300;
+
+    private VirtualCardList<Notifica> lista;
+    private JLabel           vuotaLabel;
+    private BiFunction<Cursore, Integer, PaginaNotifiche> loader;
+
+    // Stato della paginazione
+    private Cursore successiva;
+    private boolean caricamentoPagina = false;
+    private boolean caricato = false;
+
+    // ID delle notifiche in lista: una notifica ricevuta via push può arrivare anche con una pagina
+    private final Set<Integer> idMostrati = new HashSet<>();
 
     private static final DateTimeFormatter FMT =
         DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
@@ -62,101 +88,202 @@ public class NotificaPanel extends BasePanel {
     }
 
     private JScrollPane buildLista() {
-        listaContainer = new JPanel();
-        listaContainer.setLayout(new BoxLayout(listaContainer, BoxLayout.Y_AXIS));
-        listaContainer.setBackground(UiUtil.UNINA_GREY);
-
-        JScrollPane scroll = new JScrollPane(listaContainer);
-        scroll.setBorder(null);
-        scroll.getVerticalScrollBar().setUnitIncrement(16);
-        return scroll;
+        vuotaLabel = emptyLabel("Nessuna notifica.");
+        JPanel vuota = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        vuota.setBackground(UiUtil.UNINA_GREY);
+        vuota.add(vuotaLabel);
+
+        lista = new VirtualCardList<>(new CardNotifica(), 10);
+        lista.setAltezzaFissa(120);
+        lista.setVistaVuota(vuota);
+        lista.getVerticalScrollBar().addAdjustmentListener(e -> controllaFondo());
+        return lista;
     }
 
     // ── API pubblica ──────────────────────────────────────────────────────────
 
-    /** Iniettato da Main: () -> NotificaDAO.getByChef(idChef) */
-    public void setLoader(Supplier<List<Notifica>> loader) {
+    /** Iniettato da Main: (cursore, dimensione) -> NotificaDAO.getPaginaByChef(idChef, cursore, dimensione) */
+    public void setLoader(BiFunction<Cursore, Integer, PaginaNotifiche> loader) {
         this.loader = loader;
     }
 
-    /** Ricarica le notifiche e aggiorna la lista. */
+    /** Carica il feed all'apertura del pannello, solo se non è già stato caricato. */
+    public void apri() {
+        if (!caricato) refresh();
+    }
+
+    /**
+     * Inserisce in cima le notifiche ricevute via push (più recenti prime), ignorando
+     * quelle già in lista. Prima del primo caricamento non fa nulla: le leggerà refresh().
+     *
+     * @return numero di notifiche effettivamente aggiunte
+     */
+    public int aggiungiNuove(List<Notifica> nuove) {
+        if (!caricato) return 0;
+        List<Notifica> daAggiungere = nuove.stream()
+            .filter(n -> idMostrati.add(n.getIdNotifica()))
+            .toList();
+        lista.inserisciInCima(daAggiungere);
+        return daAggiungere.size();
+    }
+
+    /** Svuota il feed (es. al logout): il prossimo {@link #apri()} lo ricarica. */
+    public void svuota() {
+        AsyncExecutor.annulla("notifiche");
+        AsyncExecutor.annulla("notifiche-pagina");
+        caricato = false;
+        caricamentoPagina = false;
+        successiva = null;
+        idMostrati.clear();
+        lista.setElementi(List.of());
+    }
+
+    /** Ricarica il feed dalla prima pagina, in background. */
     public void refresh() {
-        listaContainer.removeAll();
+        // Una pagina successiva ancora in arrivo appartiene al feed precedente
+        AsyncExecutor.annulla("notifiche-pagina");
+        caricamentoPagina = false;
 
         if (loader == null) {
-            listaContainer.add(emptyLabel("Loader non configurato."));
-            listaContainer.revalidate();
-            listaContainer.repaint();
+            vuotaLabel.setText("Loader non configurato.");
+            lista.setElementi(List.of());
             return;
         }
 
-        List<Notifica> notifiche = loader.get();
+        AsyncExecutor.esegui("notifiche", this,
+            () -> loader.apply(null, DIMENSIONE_PAGINA),
+            pagina -> {
+                vuotaLabel.setText("Nessuna notifica.");
+                caricato = true;
+                successiva = pagina.getSuccessiva();
+                idMostrati.clear();
+                pagina.getNotifiche().forEach(n -> idMostrati.add(n.getIdNotifica()));
+                lista.setElementi(pagina.getNotifiche());
+                SwingUtilities.invokeLater(this::controllaFondo);
+            });
+    }
+
+    /** Carica la pagina successiva se la lista è arrivata vicino al fondo. */
+    private void controllaFondo() {
+        if (successiva == null || caricamentoPagina || loader == null) return;
+
+        JScrollBar bar = lista.getVerticalScrollBar();
+        if (bar.getValue() + bar.getVisibleAmount() < bar.getMaximum() - SOGLIA_FONDO) return;
+
+        caricamentoPagina = true;
+        Cursore da = successiva;
+        AsyncExecutor.esegui("notifiche-pagina", this,
+            () -> loader.apply(da, DIMENSIONE_PAGINA),
+            pagina -> {
+                caricamentoPagina = false;
+                aggiungiPagina(pagina);
+            },
+            errore -> {
+                caricamentoPagina = false;
+                showError("Impossibile caricare altre notifiche: " + errore.getMessage());
+            });
+    }
+
+    private void aggiungiPagina(PaginaNotifiche pagina) {
+        successiva = pagina.getSuccessiva();
+        lista.aggiungi(pagina.getNotifiche().stream()
+            .filter(n -> idMostrati.add(n.getIdNotifica()))
+            .toList());
+
+        // Se la pagina non riempie la vista non ci sarà scroll: si controlla dopo il layout
+        SwingUtilities.invokeLater(this::controllaFondo);
+    }
 
-        if (notifiche.isEmpty()) {
-            listaContainer.add(emptyLabel("Nessuna notifica."));
-        } else {
-            for (Notifica n : notifiche) {
-                listaContainer.add(buildCard(n));
-                listaContainer.add(Box.createVerticalStrut(10));
+    // ── Card notifica ─────────────────────────────────────────────────────────
+
+    /**
+     * Card unica per tutte le notifiche: {@link VirtualCardList} la riempie con i dati
+     * di ciascuna notifica visibile. Colori e bordi sono creati una volta sola.
+     */
+    private static class CardNotifica extends JPanel implements VirtualCardList.CardRenderer<Notifica> {
+        private static final Color ACCENT_DATA          = new Color(41,  128, 185);
+        private static final Color ACCENT_ORA           = new Color(142,  68, 173);
+        private static final Color ACCENT_CANCELLAZIONE = new Color(180,  40,  40);
+        private static final Color ACCENT_DEFAULT       = new Color(100, 100, 100);
+        private static final Color BADGE_GLOBALE        = new Color(180,  40,  40);
+        private static final Color BADGE_CORSO          = new Color(39,  174,  96);
+
+        private final Map<TipoModifica, Border> bordi = new EnumMap<>(TipoModifica.class);
+        private final Border bordoDefault;
+        private final JLabel titoloLbl = new JLabel();
+        private final JLabel badge     = new JLabel();
+        private final JLabel msgLbl    = new JLabel();
+        private final JLabel dataLbl   = new JLabel();
+
+        CardNotifica() {
+            super(new BorderLayout(10, 6));
+            setBackground(Color.WHITE);
+
+            for (TipoModifica tipo : TipoModifica.values()) {
+                bordi.put(tipo, bordo(accent(tipo)));
             }
+            bordoDefault = bordo(accent(null));
+
+            // Riga superiore: titolo + badge portata
+            JPanel topRow = new JPanel(new BorderLayout());
+            topRow.setBackground(Color.WHITE);
+
+            titoloLbl.setFont(new Font("Arial", Font.BOLD, 14));
+
+            badge.setFont(new Font("Arial", Font.BOLD, 11));
+            badge.setForeground(Color.WHITE);
+            badge.setOpaque(true);
+            badge.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+
+            topRow.add(titoloLbl, BorderLayout.CENTER);
+            topRow.add(badge,     BorderLayout.EAST);
+
+            // Corpo
+            msgLbl.setFont(new Font("Arial", Font.PLAIN, 13));
+
+            // Data
+            dataLbl.setFont(new Font("Arial", Font.PLAIN, 11));
+            dataLbl.setForeground(Color.GRAY);
+            dataLbl.setHorizontalAlignment(SwingConstants.RIGHT);
+
+            add(topRow,  BorderLayout.NORTH);
+            add(msgLbl,  BorderLayout.CENTER);
+            add(dataLbl, BorderLayout.SOUTH);
         }
 
-        listaContainer.revalidate();
-        listaContainer.repaint();
-    }
+        @Override
+        public JComponent aggiorna(Notifica n, boolean hover) {
+            TipoModifica tipo = n.getTipoModifica();
+            setBorder(tipo != null ? bordi.get(tipo) : bordoDefault);
+
+            titoloLbl.setText(n.getTitolo());
+            titoloLbl.setForeground(accent(tipo));
 
-    // ── Card singola notifica ─────────────────────────────────────────────────
+            badge.setText(n.isGlobale() ? " Tutti i corsi " : " Corso specifico ");
+            badge.setBackground(n.isGlobale() ? BADGE_GLOBALE : BADGE_CORSO);
+
+            msgLbl.setText("<html><body style='width:500px'>" + n.getMessaggio() + "</body></html>");
+            dataLbl.setText(n.getDataCreazione() != null ? n.getDataCreazione().format(FMT) : "–");
+            return this;
+        }
 
-    private JPanel buildCard(Notifica n) {
         // Colore bordo in base al tipo
-        Color accent = switch (n.getTipoModifica()) {
-            case CAMBIO_DATA    -> new Color(41,  128, 185);
-            case CAMBIO_ORA     -> new Color(142,  68, 173);
-            case CANCELLAZIONE  -> new Color(180,  40,  40);
-            default             -> new Color(100, 100, 100);
-        };
-
-        JPanel card = new JPanel(new BorderLayout(10, 6));
-        card.setBackground(Color.WHITE);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(accent, 2),
-            BorderFactory.createEmptyBorder(12, 14, 12, 14)
-        ));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 120));
-
-        // Riga superiore: titolo + badge portata
-        JPanel topRow = new JPanel(new BorderLayout());
-        topRow.setBackground(Color.WHITE);
-
-        JLabel titoloLbl = new JLabel(n.getTitolo());
-        titoloLbl.setFont(new Font("Arial", Font.BOLD, 14));
-        titoloLbl.setForeground(accent);
-
-        JLabel badge = new JLabel(n.isGlobale() ? " Tutti i corsi " : " Corso specifico ");
-        badge.setFont(new Font("Arial", Font.BOLD, 11));
-        badge.setForeground(Color.WHITE);
-        badge.setBackground(n.isGlobale() ? new Color(180, 40, 40) : new Color(39, 174, 96));
-        badge.setOpaque(true);
-        badge.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
-
-        topRow.add(titoloLbl, BorderLayout.CENTER);
-        topRow.add(badge,     BorderLayout.EAST);
-
-        // Corpo
-        JLabel msgLbl = new JLabel("<html><body style='width:500px'>" + n.getMessaggio() + "</body></html>");
-        msgLbl.setFont(new Font("Arial", Font.PLAIN, 13));
-
-        // Data
-        String dataStr = n.getDataCreazione() != null ? n.getDataCreazione().format(FMT) : "–";
-        JLabel dataLbl = new JLabel(dataStr);
-        dataLbl.setFont(new Font("Arial", Font.PLAIN, 11));
-        dataLbl.setForeground(Color.GRAY);
-        dataLbl.setHorizontalAlignment(SwingConstants.RIGHT);
-
-        card.add(topRow,  BorderLayout.NORTH);
-        card.add(msgLbl,  BorderLayout.CENTER);
-        card.add(dataLbl, BorderLayout.SOUTH);
-        return card;
+        private static Color accent(TipoModifica tipo) {
+            if (tipo == null) return ACCENT_DEFAULT;
+            return switch (tipo) {
+                case CAMBIO_DATA    -> ACCENT_DATA;
+                case CAMBIO_ORA     -> ACCENT_ORA;
+                case CANCELLAZIONE  -> ACCENT_CANCELLAZIONE;
+                default             -> ACCENT_DEFAULT;
+            };
+        }
+
+        private static Border bordo(Color accent) {
+            return BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(accent, 2),
+                BorderFactory.createEmptyBorder(12, 14, 12, 14)
+            );
+        }
     }
 
     private JLabel emptyLabel(String text) {
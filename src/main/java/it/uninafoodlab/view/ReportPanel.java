@@ -3,21 +3,24 @@ package it.uninafoodlab.view;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.ToDoubleBiFunction;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
 import org.jfree.chart.*;
 import org.jfree.chart.plot.*;
+import org.jfree.chart.labels.StandardPieSectionLabelGenerator;
 import org.jfree.chart.renderer.category.BarRenderer;
+import org.jfree.chart.renderer.category.LineAndShapeRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
-import org.jfree.chart.axis.*;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
+import org.jfree.data.general.PieDataset;
 
 import it.uninafoodlab.dao.ReportDAO.ReportMensile;
+import it.uninafoodlab.dao.ReportDAO.SerieMensile;
 
 /**
  * Panel Report Mensile.
@@ -28,9 +31,22 @@ public class ReportPanel extends BasePanel {
     private JComboBox<Integer> yearCombo;
     private JComboBox<String>  monthCombo;
 
-    // ── Aree grafici (rimpiazzate ad ogni aggiornamento) ──
+    // ── Aree grafici: placeholder finché non arriva il primo report, poi il grafico ──
     private JPanel pieHolder;
     private JPanel barHolder;
+    private JPanel confrontoHolder;
+
+    // ── Grafici creati una volta sola: ad ogni aggiornamento cambiano solo i dataset ──
+    private final DefaultPieDataset<String> pieDataset = new DefaultPieDataset<>();
+    private final DefaultCategoryDataset    barDataset = new DefaultCategoryDataset();
+    private final DefaultCategoryDataset    confrontoDataset = new DefaultCategoryDataset();
+    private JFreeChart pieChart;
+    private JFreeChart barChart;
+    private JFreeChart confrontoChart;
+
+    // ── Confronto anno su anno: metrica mostrata e ultima serie ricevuta ──
+    private JComboBox<Metrica> metricaCombo;
+    private SerieMensile serie;
 
     // ── Stat-cards dinamiche ──
     private JLabel lblCorsi;
@@ -53,6 +69,38 @@ public class ReportPanel extends BasePanel {
         "Luglio","Agosto","Settembre","Ottobre","Novembre","Dicembre"
     };
 
+    /** Primo anno selezionabile nei filtri. */
+    public static final int PRIMO_ANNO = 2023;
+
+    /** Numero di anni (quello selezionato compreso) messi a confronto nel grafico annuale. */
+    public static final int ANNI_CONFRONTO = 3;
+
+    /**
+     * Metriche disponibili nel confronto anno su anno, lette dalla serie mensile.
+     */
+    private enum Metrica {
+        SESSIONI ("Sessioni totali",        (s, i) -> s.getSessioniOnline(i) + s.getSessioniPratiche(i)),
+        ONLINE   ("Sessioni online",        SerieMensile::getSessioniOnline),
+        PRATICHE ("Sessioni pratiche",      SerieMensile::getSessioniPratiche),
+        CORSI    ("Corsi attivi",           SerieMensile::getNumeroCorsi),
+        MEDIA    ("Media ricette/sessione", SerieMensile::getMediaRicette);
+
+        private final String etichetta;
+        private final ToDoubleBiFunction<SerieMensile, Integer> valore;
+
+        Metrica(String etichetta, ToDoubleBiFunction<SerieMensile, Integer> valore) {
+            this.etichetta = etichetta;
+            this.valore = valore;
+        }
+
+        @Override public String toString() { return etichetta; }
+    }
+
+    // Colori delle serie del confronto: l'anno selezionato è il più marcato
+    private static final Color[] COL_ANNI = {
+        new Color(189, 195, 199), new Color(127, 140, 141), UiUtil.UNINA_BLUE
+    };
+
     private static final Color COL_ONLINE   = new Color(41, 128, 185);
     private static final Color COL_PRATICHE = new Color(190, 75, 20);
     private static final Color COL_MEDIA    = new Color(39, 174, 96);
@@ -60,6 +108,12 @@ public class ReportPanel extends BasePanel {
     private static final Color COL_MIN      = new Color(100, 100, 100);
     private static final Color COL_CORSI    = UiUtil.UNINA_BLUE;
 
+    private static final String SEZ_ONLINE   = "Online";
+    private static final String SEZ_PRATICHE = "Pratiche";
+    private static final String SEZ_VUOTA    = "Nessuna sessione";
+    private static final String CARD_PLACEHOLDER = "placeholder";
+    private static final String CARD_GRAFICO     = "grafico";
+
     // ═══════════════════════════════════════════════════════════════
 
     public ReportPanel() {
@@ -67,8 +121,13 @@ public class ReportPanel extends BasePanel {
         setBackground(UiUtil.UNINA_GREY);
         setPadding(20);
 
+        JTabbedPane schede = new JTabbedPane();
+        schede.setFont(new Font("Arial", Font.PLAIN, 13));
+        schede.addTab("Mese",              buildChartArea());
+        schede.addTab("Confronto annuale", buildConfrontoArea());
+
         add(buildHeader(),      BorderLayout.NORTH);
-        add(buildChartArea(),   BorderLayout.CENTER);
+        add(schede,             BorderLayout.CENTER);
         add(buildStatCards(),   BorderLayout.SOUTH);
     }
 
@@ -90,12 +149,16 @@ public class ReportPanel extends BasePanel {
         monthCombo.setFont(new Font("Arial", Font.PLAIN, 13));
 
         int curYear = LocalDate.now().getYear();
-        Integer[] anni = new Integer[curYear - 2022];
-        for (int i = 0; i < anni.length; i++) anni[i] = 2023 + i;
+        Integer[] anni = new Integer[curYear - PRIMO_ANNO + 1];
+        for (int i = 0; i < anni.length; i++) anni[i] = PRIMO_ANNO + i;
         yearCombo = new JComboBox<>(anni);
         yearCombo.setSelectedItem(curYear);
         yearCombo.setFont(new Font("Arial", Font.PLAIN, 13));
 
+        // Cambiare mese o anno aggiorna subito il report: i periodi vicini sono già in cache
+        monthCombo.addActionListener(e -> fireRefresh());
+        yearCombo.addActionListener(e -> fireRefresh());
+
         JButton btn = new JButton("Aggiorna Report");
         btn.setBackground(UiUtil.UNINA_BLUE);
         btn.setForeground(Color.WHITE);
@@ -117,20 +180,44 @@ public class ReportPanel extends BasePanel {
 
     /**
      * Area centrale: torta a sinistra, barre ricette a destra.
-     * Entrambi usano placeholders iniziali.
+     * Entrambi mostrano un placeholder fino al primo aggiornamento.
      */
     private JPanel buildChartArea() {
         JPanel area = new JPanel(new GridLayout(1, 2, 14, 0));
         area.setBackground(UiUtil.UNINA_GREY);
 
-        pieHolder = placeholder("Sessioni Online vs Pratiche");
-        barHolder = placeholder("Statistiche Ricette per Sessione");
+        pieHolder = chartHolder(placeholder("Sessioni Online vs Pratiche"),      buildPieChart());
+        barHolder = chartHolder(placeholder("Statistiche Ricette per Sessione"), buildBarChart());
 
         area.add(pieHolder);
         area.add(barHolder);
         return area;
     }
 
+    /**
+     * Confronto anno su anno: una linea per anno sui dodici mesi, per la metrica scelta.
+     */
+    private JPanel buildConfrontoArea() {
+        JPanel area = new JPanel(new BorderLayout(0, 8));
+        area.setBackground(UiUtil.UNINA_GREY);
+
+        metricaCombo = new JComboBox<>(Metrica.values());
+        metricaCombo.setFont(new Font("Arial", Font.PLAIN, 13));
+        // Cambiare metrica non richiede nuovi dati: la serie contiene già tutte le metriche
+        metricaCombo.addActionListener(e -> updateConfrontoChart());
+
+        JPanel barra = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        barra.setBackground(UiUtil.UNINA_GREY);
+        barra.add(new JLabel("Metrica:"));
+        barra.add(metricaCombo);
+
+        confrontoHolder = chartHolder(placeholder("Confronto anno su anno"), buildConfrontoChart());
+
+        area.add(barra,           BorderLayout.NORTH);
+        area.add(confrontoHolder, BorderLayout.CENTER);
+        return area;
+    }
+
     /**
      * Riga di stat-cards in basso: ogni card mostra valore numerico +
      * mini barra-progresso proporzionale (visual context).
@@ -219,6 +306,13 @@ public class ReportPanel extends BasePanel {
         return card;
     }
 
+    private JPanel chartHolder(JPanel placeholder, ChartPanel chart) {
+        JPanel holder = new JPanel(new CardLayout());
+        holder.add(placeholder, CARD_PLACEHOLDER);
+        holder.add(chart,       CARD_GRAFICO);
+        return holder;
+    }
+
     private JPanel placeholder(String msg) {
         JPanel p = new JPanel(new GridBagLayout());
         p.setBackground(Color.WHITE);
@@ -240,11 +334,11 @@ public class ReportPanel extends BasePanel {
     /**
      * Aggiorna tutta la vista con i dati freschi dal controller.
      *
-     * @param report       statistiche mensili
-     * @param datiAnnuali  Map mese->int[]{online,pratiche} (non più usato qui, mantenuto per API)
-     * @param anno         anno selezionato
+     * @param report  statistiche mensili
+     * @param serie   metriche mese per mese degli anni a confronto (fino all'anno selezionato)
+     * @param anno    anno selezionato
      */
-    public void updateData(ReportMensile report, Map<Integer, int[]> datiAnnuali, int anno) {
+    public void updateData(ReportMensile report, SerieMensile serie, int anno) {
         int online   = report.getNumeroSessioniOnline();
         int pratiche = report.getNumeroSessioniPratiche();
         int corsi    = report.getNumeroCorsi();
@@ -270,12 +364,18 @@ public class ReportPanel extends BasePanel {
         setMiniBarPct(miniBarMin,   max > 0 ? (double) min / max : 0);
 
         // ── grafico torta sessioni ──
-        swapChart(pieHolder.getParent(), pieHolder, buildPieChart(report));
+        updatePieChart(online, pratiche);
 
         // ── grafico barre ricette ──
-        swapChart(barHolder.getParent(), barHolder, buildBarChart(report));
+        updateBarChart(media, max, min);
+
+        // ── confronto anno su anno ──
+        this.serie = serie;
+        updateConfrontoChart();
 
-        revalidate(); repaint();
+        ((CardLayout) pieHolder.getLayout()).show(pieHolder, CARD_GRAFICO);
+        ((CardLayout) barHolder.getLayout()).show(barHolder, CARD_GRAFICO);
+        ((CardLayout) confrontoHolder.getLayout()).show(confrontoHolder, CARD_GRAFICO);
     }
 
     private void setMiniBarPct(JPanel bar, double pct) {
@@ -283,21 +383,6 @@ public class ReportPanel extends BasePanel {
         bar.repaint();
     }
 
-    private void swapChart(Container parent, JPanel old, JPanel newChart) {
-        if (!(parent instanceof JPanel p)) return;
-        int idx = -1;
-        for (int i = 0; i < p.getComponentCount(); i++) {
-            if (p.getComponent(i) == old) { idx = i; break; }
-        }
-        if (idx < 0) return;
-        p.remove(old);
-        p.add(newChart, idx);
-        // aggiorna il riferimento al campo
-        if (old == pieHolder) pieHolder = newChart;
-        else                  barHolder = newChart;
-        p.revalidate(); p.repaint();
-    }
-
     public YearMonth getSelectedYearMonth() {
         return YearMonth.of((Integer) yearCombo.getSelectedItem(), monthCombo.getSelectedIndex() + 1);
     }
@@ -305,59 +390,43 @@ public class ReportPanel extends BasePanel {
 
     // ── Grafici ──────────────────────────────────────────────────────────────
 
-    @SuppressWarnings("unchecked")
-    private ChartPanel buildPieChart(ReportMensile report) {
-        int online   = report.getNumeroSessioniOnline();
-        int pratiche = report.getNumeroSessioniPratiche();
-        int totale   = online + pratiche;
-
-        DefaultPieDataset ds = new DefaultPieDataset();
-        if (totale == 0) {
-            ds.setValue("Nessuna sessione", 1);
-        } else {
-            if (online   > 0) ds.setValue("Online ("   + online   + ")", online);
-            if (pratiche > 0) ds.setValue("Pratiche (" + pratiche + ")", pratiche);
-        }
+    private ChartPanel buildPieChart() {
+        pieChart = ChartFactory.createPieChart("Distribuzione sessioni", pieDataset, true, true, false);
+        pieChart.setBackgroundPaint(Color.WHITE);
+        pieChart.getTitle().setFont(new Font("Arial", Font.BOLD, 13));
 
-        String mese = MESI[monthCombo.getSelectedIndex()];
-        JFreeChart chart = ChartFactory.createPieChart(
-            "Distribuzione sessioni – " + mese + " " + yearCombo.getSelectedItem(),
-            ds, true, true, false);
-        chart.setBackgroundPaint(Color.WHITE);
-        chart.getTitle().setFont(new Font("Arial", Font.BOLD, 13));
-
-        PiePlot plot = (PiePlot) chart.getPlot();
+        @SuppressWarnings("unchecked")
+        PiePlot<String> plot = (PiePlot<String>) pieChart.getPlot();
         plot.setBackgroundPaint(Color.WHITE);
         plot.setOutlineVisible(false);
         plot.setShadowPaint(null);
         plot.setLabelFont(new Font("Arial", Font.PLAIN, 12));
-        if (totale > 0) {
-            plot.setSectionPaint("Online ("   + online   + ")", COL_ONLINE);
-            plot.setSectionPaint("Pratiche (" + pratiche + ")", COL_PRATICHE);
-        } else {
-            plot.setSectionPaint("Nessuna sessione", new Color(210, 210, 210));
-        }
+        plot.setSectionPaint(SEZ_ONLINE,   COL_ONLINE);
+        plot.setSectionPaint(SEZ_PRATICHE, COL_PRATICHE);
+        plot.setSectionPaint(SEZ_VUOTA,    new Color(210, 210, 210));
+
+        // Chiavi fisse ("Online", "Pratiche"): il conteggio compare nell'etichetta, non nella chiave
+        StandardPieSectionLabelGenerator etichette = new StandardPieSectionLabelGenerator("{0} ({1})") {
+            @Override
+            @SuppressWarnings("rawtypes")   // firma raw del metodo di JFreeChart
+            public String generateSectionLabel(PieDataset dataset, Comparable key) {
+                return SEZ_VUOTA.equals(key) ? SEZ_VUOTA : super.generateSectionLabel(dataset, key);
+            }
+        };
+        plot.setLabelGenerator(etichette);
+        plot.setLegendLabelGenerator(etichette);
 
-        return freeChartPanel(chart);
+        return freeChartPanel(pieChart);
     }
 
-    private ChartPanel buildBarChart(ReportMensile report) {
-        double media = report.getMediaRicettePerSessione();
-        int    max   = report.getMaxRicettePerSessione();
-        int    min   = report.getMinRicettePerSessione();
-
-        DefaultCategoryDataset ds = new DefaultCategoryDataset();
-        ds.addValue(media, "Media", "Media");
-        ds.addValue(max,   "Max",   "Max");
-        ds.addValue(min,   "Min",   "Min");
-
-        JFreeChart chart = ChartFactory.createBarChart(
+    private ChartPanel buildBarChart() {
+        barChart = ChartFactory.createBarChart(
             "Ricette per sessione pratica", "", "N° Ricette",
-            ds, PlotOrientation.VERTICAL, true, true, false);
-        chart.setBackgroundPaint(Color.WHITE);
-        chart.getTitle().setFont(new Font("Arial", Font.BOLD, 13));
+            barDataset, PlotOrientation.VERTICAL, true, true, false);
+        barChart.setBackgroundPaint(Color.WHITE);
+        barChart.getTitle().setFont(new Font("Arial", Font.BOLD, 13));
 
-        CategoryPlot plot = chart.getCategoryPlot();
+        CategoryPlot plot = barChart.getCategoryPlot();
         plot.setBackgroundPaint(Color.WHITE);
         plot.setRangeGridlinePaint(new Color(220, 220, 220));
         plot.setOutlineVisible(false);
@@ -376,11 +445,97 @@ public class ReportPanel extends BasePanel {
         r.setDefaultItemLabelGenerator(
             new org.jfree.chart.labels.StandardCategoryItemLabelGenerator("{2}", new java.text.DecimalFormat("0.#")));
 
-        ValueAxis axis = plot.getRangeAxis();
-        axis.setLowerBound(0);
-        axis.setUpperBound(max + 1);
+        plot.getRangeAxis().setLowerBound(0);
+
+        return freeChartPanel(barChart);
+    }
+
+    private ChartPanel buildConfrontoChart() {
+        confrontoChart = ChartFactory.createLineChart(
+            "Confronto anno su anno", "", "",
+            confrontoDataset, PlotOrientation.VERTICAL, true, true, false);
+        confrontoChart.setBackgroundPaint(Color.WHITE);
+        confrontoChart.getTitle().setFont(new Font("Arial", Font.BOLD, 13));
+
+        CategoryPlot plot = confrontoChart.getCategoryPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setRangeGridlinePaint(new Color(220, 220, 220));
+        plot.setOutlineVisible(false);
+
+        LineAndShapeRenderer r = (LineAndShapeRenderer) plot.getRenderer();
+        r.setDefaultShapesVisible(true);
+        for (int i = 0; i < COL_ANNI.length; i++) {
+            r.setSeriesPaint(i, COL_ANNI[i]);
+            r.setSeriesStroke(i, new BasicStroke(i == COL_ANNI.length - 1 ? 2.5f : 1.5f));
+        }
+
+        plot.getRangeAxis().setLowerBound(0);
 
-        return freeChartPanel(chart);
+        return freeChartPanel(confrontoChart);
+    }
+
+    /**
+     * Ridisegna il confronto per la metrica scelta: una riga del dataset per anno,
+     * una colonna per mese. Gli anni sono inseriti dal più vecchio: l'anno selezionato
+     * è sempre l'ultima serie e prende il colore più marcato.
+     */
+    private void updateConfrontoChart() {
+        if (serie == null) return;
+        Metrica metrica = (Metrica) metricaCombo.getSelectedItem();
+
+        confrontoChart.setNotify(false);
+        confrontoDataset.setNotify(false);
+        try {
+            confrontoDataset.clear();
+            for (int anno = serie.getAnnoInizio(); anno <= serie.getAnnoFine(); anno++) {
+                for (int m = 1; m <= 12; m++) {
+                    int i = serie.indice(YearMonth.of(anno, m));
+                    confrontoDataset.addValue(metrica.valore.applyAsDouble(serie, i),
+                                              Integer.valueOf(anno), MESI[m - 1].substring(0, 3));
+                }
+            }
+            confrontoChart.getTitle().setText(metrica + " – " + serie.getAnnoInizio() + "-" + serie.getAnnoFine());
+        } finally {
+            confrontoDataset.setNotify(true);
+            confrontoChart.setNotify(true);
+        }
+    }
+
+    /**
+     * Aggiorna la torta. Le modifiche al dataset e al titolo sono raggruppate:
+     * il grafico riceve un solo evento di modifica e viene ridisegnato una volta.
+     */
+    private void updatePieChart(int online, int pratiche) {
+        pieChart.setNotify(false);
+        pieDataset.setNotify(false);
+        try {
+            pieDataset.clear();
+            if (online + pratiche == 0) {
+                pieDataset.setValue(SEZ_VUOTA, 1);
+            } else {
+                if (online   > 0) pieDataset.setValue(SEZ_ONLINE,   online);
+                if (pratiche > 0) pieDataset.setValue(SEZ_PRATICHE, pratiche);
+            }
+            String mese = MESI[monthCombo.getSelectedIndex()];
+            pieChart.getTitle().setText("Distribuzione sessioni – " + mese + " " + yearCombo.getSelectedItem());
+        } finally {
+            pieDataset.setNotify(true);
+            pieChart.setNotify(true);
+        }
+    }
+
+    private void updateBarChart(double media, int max, int min) {
+        barChart.setNotify(false);
+        barDataset.setNotify(false);
+        try {
+            barDataset.setValue(media, "Media", "Media");
+            barDataset.setValue(max,   "Max",   "Max");
+            barDataset.setValue(min,   "Min",   "Min");
+            barChart.getCategoryPlot().getRangeAxis().setUpperBound(max + 1);
+        } finally {
+            barDataset.setNotify(true);
+            barChart.setNotify(true);
+        }
     }
 
     private ChartPanel freeChartPanel(JFreeChart chart) {
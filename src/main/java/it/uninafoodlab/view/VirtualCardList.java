@@ -0,0 +1,347 @@
+package it.uninafoodlab.view;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import javax.swing.*;
+
+/**
+ * Lista scrollabile di card che disegna solo le righe visibili.
+ *
+ * Al posto di un pannello per elemento, le card sono disegnate da un unico
+ * componente riutilizzato (come le celle di una JList): il costo di layout e la memoria
+ * non crescono con il numero di elementi. I pulsanti presenti nella card sono solo
+ * disegnati; un clic su di essi viene tradotto nell'azione indicata dal loro actionCommand.
+ *
+ * A ogni modifica del modello la JList rimisura tutte le righe: la dimensione di ogni card
+ * viene quindi ricordata per elemento, e dopo una modifica passano dal renderer solo gli
+ * elementi nuovi o sostituiti. Per questo l'altezza di una card deve dipendere solo
+ * dall'elemento (non dalla larghezza della lista né dall'hover), e un elemento già in lista
+ * non va modificato: va sostituito con {@link #sostituisci(int, Object)}.
+ *
+ * @param <T> tipo degli elementi mostrati
+ */
+public class VirtualCardList<T> extends JScrollPane {
+
+    /**
+     * Aggiorna il componente riutilizzato con i dati di un elemento.
+     * Va restituito sempre lo stesso componente per lo stesso tipo di card.
+     */
+    @FunctionalInterface
+    public interface CardRenderer<T> {
+        JComponent aggiorna(T valore, boolean hover);
+    }
+
+    private final DefaultListModel<T> model = new DefaultListModel<>();
+    private final JList<T> lista;
+    private final Cella cella;
+    private final int spazio;
+
+    private JComponent vistaVuota;
+    private BiConsumer<T, String> onAzione;
+    private int hover = -1;
+
+    /**
+     * @param renderer componente che disegna le card
+     * @param spazio   spazio verticale (in pixel) tra una card e la successiva
+     */
+    public VirtualCardList(CardRenderer<T> renderer, int spazio) {
+        this.spazio = spazio;
+        this.cella = new Cella(renderer, spazio);
+
+        lista = new JList<>(model) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true;   // le card occupano sempre tutta la larghezza
+            }
+        };
+        lista.setCellRenderer(cella);
+        lista.setBackground(UiUtil.UNINA_GREY);
+        lista.setFocusable(false);
+        lista.setSelectionModel(new NessunaSelezione());
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override public void mouseMoved(MouseEvent e)   { aggiornaHover(e.getPoint()); }
+            @Override public void mouseExited(MouseEvent e)  { aggiornaHover(null); }
+            @Override public void mouseClicked(MouseEvent e) { click(e.getPoint()); }
+        };
+        lista.addMouseListener(mouse);
+        lista.addMouseMotionListener(mouse);
+
+        setViewportView(lista);
+        setBorder(null);
+        getViewport().setBackground(UiUtil.UNINA_GREY);
+        getVerticalScrollBar().setUnitIncrement(16);
+    }
+
+    // ==================== METODI PUBBLICI ====================
+
+    /**
+     * Altezza fissa delle card, spazio escluso. Con card tutte uguali evita di misurarle
+     * una per una a ogni cambio di contenuto.
+     */
+    public void setAltezzaFissa(int altezzaCard) {
+        lista.setFixedCellHeight(altezzaCard + spazio);
+    }
+
+    /** Componente mostrato al posto della lista quando non ci sono elementi. */
+    public void setVistaVuota(JComponent vista) {
+        this.vistaVuota = vista;
+        aggiornaVista();
+    }
+
+    /** Azione da eseguire al clic su un pulsante di una card: riceve l'elemento e l'actionCommand. */
+    public void setAzione(BiConsumer<T, String> azione) {
+        this.onAzione = azione;
+    }
+
+    /** Sostituisce gli elementi mostrati e torna in cima. */
+    public void setElementi(List<? extends T> elementi) {
+        hover = -1;
+        cella.conserva(elementi);
+        model.clear();
+        model.addAll(elementi);
+        aggiornaVista();
+        getVerticalScrollBar().setValue(0);
+    }
+
+    /** Aggiunge elementi in fondo senza toccare quelli già presenti. */
+    public void aggiungi(List<? extends T> elementi) {
+        if (elementi.isEmpty()) return;
+        model.addAll(elementi);
+        aggiornaVista();
+    }
+
+    /**
+     * Inserisce elementi in cima. Se la lista non è in cima, la vista resta sulle card
+     * che l'utente stava guardando.
+     */
+    public void inserisciInCima(List<? extends T> elementi) {
+        if (elementi.isEmpty()) return;
+        JScrollBar barra = getVerticalScrollBar();
+        int valore = barra.getValue();
+        int altezzaPrima = lista.getPreferredSize().height;
+
+        for (int i = elementi.size() - 1; i >= 0; i--) {
+            model.add(0, elementi.get(i));
+        }
+        if (hover >= 0) hover += elementi.size();
+        aggiornaVista();
+
+        if (valore > 0) {
+            lista.revalidate();
+            int spostamento = lista.getPreferredSize().height - altezzaPrima;
+            SwingUtilities.invokeLater(() -> barra.setValue(valore + spostamento));
+        }
+    }
+
+    /**
+     * Sostituisce l'elemento in posizione indicata: viene ridisegnata (e rimisurata) solo la sua card.
+     */
+    public void sostituisci(int indice, T valore) {
+        cella.dimensioni.remove(model.get(indice));
+        model.set(indice, valore);
+    }
+
+    /** Inserisce un elemento in posizione indicata senza spostare la vista. */
+    public void inserisci(int indice, T valore) {
+        model.add(indice, valore);
+        if (hover >= indice) hover++;
+        aggiornaVista();
+    }
+
+    /** Rimuove l'elemento in posizione indicata senza spostare la vista. */
+    public void rimuovi(int indice) {
+        cella.dimensioni.remove(model.get(indice));
+        model.remove(indice);
+        if (hover == indice) hover = -1;
+        else if (hover > indice) hover--;
+        aggiornaVista();
+    }
+
+    /**
+     * @return posizione del primo elemento che soddisfa la condizione, -1 se nessuno
+     */
+    public int indiceDi(Predicate<? super T> condizione) {
+        for (int i = 0; i < model.getSize(); i++) {
+            if (condizione.test(model.get(i))) return i;
+        }
+        return -1;
+    }
+
+    public T getElemento(int indice) {
+        return model.get(indice);
+    }
+
+    public int getNumeroElementi() {
+        return model.getSize();
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private void aggiornaVista() {
+        Component vista = model.isEmpty() && vistaVuota != null ? vistaVuota : lista;
+        if (getViewport().getView() != vista) {
+            setViewportView(vista);
+        }
+    }
+
+    private int indiceIn(Point p) {
+        if (p == null) return -1;
+        int i = lista.locationToIndex(p);
+        if (i < 0) return -1;
+        Rectangle r = lista.getCellBounds(i, i);
+        return r != null && r.contains(p) ? i : -1;
+    }
+
+    private void aggiornaHover(Point p) {
+        int i = indiceIn(p);
+        lista.setCursor(pulsanteIn(i, p) != null
+            ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)
+            : Cursor.getDefaultCursor());
+        if (i == hover) return;
+
+        ridisegna(hover);
+        hover = i;
+        ridisegna(hover);
+    }
+
+    private void ridisegna(int i) {
+        if (i < 0 || i >= model.getSize()) return;
+        Rectangle r = lista.getCellBounds(i, i);
+        if (r != null) lista.repaint(r);
+    }
+
+    private void click(Point p) {
+        int i = indiceIn(p);
+        AbstractButton b = pulsanteIn(i, p);
+        if (b != null && b.isEnabled() && onAzione != null) {
+            onAzione.accept(model.get(i), b.getActionCommand());
+        }
+    }
+
+    /**
+     * Individua il pulsante sotto il punto disponendo il componente riutilizzato
+     * come se fosse la cella i-esima.
+     */
+    private AbstractButton pulsanteIn(int i, Point p) {
+        if (i < 0) return null;
+        Rectangle r = lista.getCellBounds(i, i);
+
+        // Il renderer restituisce sempre la cella stessa
+        cella.getListCellRendererComponent(lista, model.get(i), i, false, false);
+        cella.applica();
+        cella.setBounds(0, 0, r.width, r.height);
+        disponi(cella);
+
+        Component sotto = SwingUtilities.getDeepestComponentAt(cella, p.x - r.x, p.y - r.y);
+        while (sotto != null && sotto != cella) {
+            if (sotto instanceof AbstractButton b) return b;
+            sotto = sotto.getParent();
+        }
+        return null;
+    }
+
+    /** doLayout ricorsivo: il componente della cella non ha peer e validate() non avrebbe effetto. */
+    private static void disponi(Component c) {
+        if (c instanceof Container k) {
+            k.doLayout();
+            for (Component figlio : k.getComponents()) disponi(figlio);
+        }
+    }
+
+    /**
+     * Contenitore riutilizzato per tutte le celle: ospita la card e lo spazio sotto di essa.
+     *
+     * La card viene riempita solo quando serve davvero (disposizione o disegno): se la JList
+     * chiede soltanto la dimensione di un elemento già misurato, risponde la cache.
+     */
+    private class Cella extends JPanel implements ListCellRenderer<T> {
+        private final CardRenderer<T> renderer;
+        // Per identità: conta l'istanza in lista, non il suo contenuto
+        private final Map<T, Dimension> dimensioni = new IdentityHashMap<>();
+
+        private T valore;
+        private int indice;
+        private boolean daApplicare = false;
+
+        Cella(CardRenderer<T> renderer, int spazio) {
+            super(new BorderLayout());
+            this.renderer = renderer;
+            setBackground(UiUtil.UNINA_GREY);
+            setBorder(BorderFactory.createEmptyBorder(0, 0, spazio, 0));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends T> list, T valore, int indice,
+                                                      boolean selezionato, boolean focus) {
+            this.valore = valore;
+            this.indice = indice;
+            this.daApplicare = true;
+            return this;
+        }
+
+        /** Dimentica le dimensioni degli elementi che non fanno parte della nuova lista. */
+        void conserva(List<? extends T> elementi) {
+            Map<T, Dimension> note = new IdentityHashMap<>();
+            for (T e : elementi) {
+                Dimension d = dimensioni.get(e);
+                if (d != null) note.put(e, d);
+            }
+            dimensioni.clear();
+            dimensioni.putAll(note);
+        }
+
+        /** Riempie la card con l'elemento indicato dall'ultima getListCellRendererComponent. */
+        void applica() {
+            if (!daApplicare) return;
+            daApplicare = false;
+            JComponent card = renderer.aggiorna(valore, indice == hover);
+            if (getComponentCount() == 0 || getComponent(0) != card) {
+                removeAll();
+                add(card, BorderLayout.CENTER);
+            }
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            Dimension d = valore != null ? dimensioni.get(valore) : null;
+            if (d == null) {
+                applica();
+                d = super.getPreferredSize();
+                if (valore != null) dimensioni.put(valore, d);
+            }
+            return new Dimension(d);
+        }
+
+        @Override
+        public void validate() {
+            applica();
+            super.validate();
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            applica();
+            super.paint(g);
+        }
+
+        // Le modifiche ai testi della card non devono propagare una rivalidazione alla finestra
+        @Override
+        public boolean isValidateRoot() {
+            return true;
+        }
+    }
+
+    /** Le card non sono selezionabili: il clic serve solo ai pulsanti. */
+    private static class NessunaSelezione extends DefaultListSelectionModel {
+        @Override public void setSelectionInterval(int da, int a) {}
+        @Override public void addSelectionInterval(int da, int a) {}
+    }
+}
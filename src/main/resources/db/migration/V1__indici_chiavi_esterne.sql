@@ -0,0 +1,28 @@
+-- ============================================================
+--  V1 — Indici sulle chiavi esterne
+--  PostgreSQL non indicizza automaticamente le colonne FK:
+--  senza questi indici ogni getByCorso/getByChef/getByIngrediente
+--  e ogni ON DELETE CASCADE richiede una scansione completa.
+-- ============================================================
+
+-- Corso → Chef
+CREATE INDEX IF NOT EXISTS idx_corso_chef                    ON Corso (ID_Chef);
+
+-- Sessioni → Corso (la seconda colonna serve ai filtri per data dei report)
+CREATE INDEX IF NOT EXISTS idx_sessioneonline_corso_data     ON SessioneOnline  (ID_Corso, Data);
+CREATE INDEX IF NOT EXISTS idx_sessionepratica_corso_data    ON SessionePratica (ID_Corso, Data);
+
+-- Ricetta → SessionePratica
+CREATE INDEX IF NOT EXISTS idx_ricetta_sessionepratica       ON Ricetta (ID_SessionePratica);
+
+-- Ricetta_Ingrediente → Ingrediente (ID_Ricetta è già coperto dalla chiave primaria)
+CREATE INDEX IF NOT EXISTS idx_ricettaingrediente_ingrediente ON Ricetta_Ingrediente (ID_Ingrediente);
+
+-- Iscrizione → Corso (ID_Studente è già coperto dalla chiave primaria)
+CREATE INDEX IF NOT EXISTS idx_iscrizione_corso              ON Iscrizione (ID_Corso);
+
+-- Notifica → Chef, ordinato come il feed delle notifiche
+CREATE INDEX IF NOT EXISTS idx_notifica_chef_data            ON Notifica (ID_Chef, DataCreazione DESC);
+
+-- Notifica → Corso (ON DELETE SET NULL)
+CREATE INDEX IF NOT EXISTS idx_notifica_corso                ON Notifica (ID_Corso);
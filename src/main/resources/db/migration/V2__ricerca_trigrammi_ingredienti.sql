@@ -0,0 +1,30 @@
+-- ============================================================
+--  V2 — Ricerca ingredienti per somiglianza
+--  LOWER(Nome) LIKE '%...%' non può usare l'indice UNIQUE(Nome):
+--  un indice GIN a trigrammi sul nome normalizzato serve sia
+--  l'operatore % (somiglianza) sia LIKE '%...%'.
+-- ============================================================
+
+-- Minuscole, senza accenti, un solo spazio tra le parole.
+-- Deve restare allineata a RicercaIngredienti.normalizza() lato Java.
+CREATE OR REPLACE FUNCTION f_normalizza_nome(testo TEXT) RETURNS TEXT
+LANGUAGE SQL IMMUTABLE PARALLEL SAFE AS $$
+    SELECT TRIM(REGEXP_REPLACE(
+               TRANSLATE(LOWER(testo),
+                         'àáâãäåèéêëìíîïòóôõöùúûüýÿçñ',
+                         'aaaaaaeeeeiiiiooooouuuuyycn'),
+               '[^a-z0-9]+', ' ', 'g'))
+$$;
+
+-- pg_trgm è un'estensione "trusted" (PostgreSQL 13+): basta il privilegio CREATE sul database.
+-- Se non è disponibile la migrazione prosegue: la ricerca in memoria resta comunque attiva.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    CREATE INDEX IF NOT EXISTS idx_ingrediente_nome_trgm
+        ON Ingrediente USING GIN (f_normalizza_nome(Nome) gin_trgm_ops);
+EXCEPTION
+    WHEN insufficient_privilege OR undefined_file THEN
+        RAISE WARNING 'pg_trgm non disponibile, indice a trigrammi non creato: %', SQLERRM;
+END
+$$;
@@ -0,0 +1,11 @@
+-- ============================================================
+--  V3 — Indice per il feed notifiche paginato
+--  La paginazione keyset ordina per (DataCreazione, ID_Notifica):
+--  con ID_Notifica nell'indice anche le notifiche con la stessa
+--  data vengono lette in ordine senza sort. Sostituisce l'indice
+--  (ID_Chef, DataCreazione DESC) della V1, di cui è un'estensione.
+-- ============================================================
+
+CREATE INDEX IF NOT EXISTS idx_notifica_feed ON Notifica (ID_Chef, DataCreazione DESC, ID_Notifica DESC);
+
+DROP INDEX IF EXISTS idx_notifica_chef_data;
@@ -0,0 +1,229 @@
+-- ============================================================
+--  V4 — Statistiche mensili per chef (rollup)
+--  Una riga per chef e mese con i valori del report mensile, così
+--  ReportDAO legge un mese in una riga e un anno in al più 12,
+--  invece di aggregare ogni volta sessioni e ricette.
+--
+--  La tabella è mantenuta dai trigger: ogni modifica a sessioni,
+--  ricette o corsi ricalcola solo i mesi (chef, mese) toccati.
+--  f_ricostruisci_chef_month_stats() la rigenera da zero dai dati
+--  grezzi; ReportDAO.verificaRollup() la usa se trova differenze.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS chef_month_stats (
+    ID_Chef           INTEGER   NOT NULL REFERENCES Chef(ID_Chef) ON DELETE CASCADE,
+    Mese              DATE      NOT NULL,   -- primo giorno del mese
+    SessioniOnline    INTEGER   NOT NULL,
+    SessioniPratiche  INTEGER   NOT NULL,
+    NumeroCorsi       INTEGER   NOT NULL,   -- corsi con almeno una sessione nel mese
+    RicetteSomma      INTEGER   NOT NULL,   -- ricette delle sessioni pratiche del mese
+    RicetteMin        INTEGER,              -- NULL se nel mese non ci sono sessioni pratiche
+    RicetteMax        INTEGER,
+    PRIMARY KEY (ID_Chef, Mese),
+    CONSTRAINT MeseAlPrimoGiorno CHECK (EXTRACT(DAY FROM Mese) = 1)
+);
+
+-- Statistiche calcolate dai dati grezzi: riferimento per la ricostruzione e la verifica
+CREATE OR REPLACE VIEW v_chef_month_stats_calcolate AS
+WITH Sessioni AS (
+    SELECT C.ID_Chef, date_trunc('month', SO.Data)::date AS Mese, SO.ID_Corso,
+           NULL::integer AS NumRicette
+    FROM SessioneOnline SO
+    JOIN Corso C ON C.ID_Corso = SO.ID_Corso
+    UNION ALL
+    SELECT C.ID_Chef, date_trunc('month', SP.Data)::date, SP.ID_Corso,
+           (SELECT COUNT(*)::integer FROM Ricetta R WHERE R.ID_SessionePratica = SP.ID_SessionePratica)
+    FROM SessionePratica SP
+    JOIN Corso C ON C.ID_Corso = SP.ID_Corso
+)
+SELECT ID_Chef, Mese,
+       COUNT(*) FILTER (WHERE NumRicette IS NULL)::integer      AS SessioniOnline,
+       COUNT(NumRicette)::integer                               AS SessioniPratiche,
+       COUNT(DISTINCT ID_Corso)::integer                        AS NumeroCorsi,
+       COALESCE(SUM(NumRicette), 0)::integer                    AS RicetteSomma,
+       MIN(NumRicette)                                          AS RicetteMin,
+       MAX(NumRicette)                                          AS RicetteMax
+FROM Sessioni
+GROUP BY ID_Chef, Mese;
+
+-- Ricalcola la riga di un solo mese di uno chef (la elimina se il mese è vuoto).
+-- I filtri sulle date sono intervalli semiaperti per usare gli indici su (ID_Corso, Data).
+-- L'advisory lock sullo chef serializza i ricalcoli concorrenti dello stesso chef:
+-- chi arriva dopo legge i dati già confermati da chi lo precedeva.
+CREATE OR REPLACE FUNCTION f_ricalcola_chef_mese(p_chef INTEGER, p_mese DATE) RETURNS VOID
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_inizio DATE := date_trunc('month', p_mese)::date;
+    v_fine   DATE := (date_trunc('month', p_mese) + INTERVAL '1 month')::date;
+BEGIN
+    IF p_chef IS NULL OR p_mese IS NULL THEN
+        RETURN;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(7320116, p_chef);
+
+    INSERT INTO chef_month_stats
+           (ID_Chef, Mese, SessioniOnline, SessioniPratiche, NumeroCorsi, RicetteSomma, RicetteMin, RicetteMax)
+    SELECT p_chef, v_inizio,
+           COUNT(*) FILTER (WHERE NumRicette IS NULL),
+           COUNT(NumRicette),
+           COUNT(DISTINCT ID_Corso),
+           COALESCE(SUM(NumRicette), 0),
+           MIN(NumRicette),
+           MAX(NumRicette)
+    FROM (
+        SELECT SO.ID_Corso, NULL::integer AS NumRicette
+        FROM SessioneOnline SO
+        JOIN Corso C ON C.ID_Corso = SO.ID_Corso
+        WHERE C.ID_Chef = p_chef AND SO.Data >= v_inizio AND SO.Data < v_fine
+        UNION ALL
+        SELECT SP.ID_Corso,
+               (SELECT COUNT(*)::integer FROM Ricetta R WHERE R.ID_SessionePratica = SP.ID_SessionePratica)
+        FROM SessionePratica SP
+        JOIN Corso C ON C.ID_Corso = SP.ID_Corso
+        WHERE C.ID_Chef = p_chef AND SP.Data >= v_inizio AND SP.Data < v_fine
+    ) Sessioni
+    HAVING COUNT(*) > 0
+    ON CONFLICT (ID_Chef, Mese) DO UPDATE SET
+        SessioniOnline   = EXCLUDED.SessioniOnline,
+        SessioniPratiche = EXCLUDED.SessioniPratiche,
+        NumeroCorsi      = EXCLUDED.NumeroCorsi,
+        RicetteSomma     = EXCLUDED.RicetteSomma,
+        RicetteMin       = EXCLUDED.RicetteMin,
+        RicetteMax       = EXCLUDED.RicetteMax;
+
+    IF NOT FOUND THEN
+        DELETE FROM chef_month_stats WHERE ID_Chef = p_chef AND Mese = v_inizio;
+    END IF;
+END
+$$;
+
+-- Rigenera la tabella dai dati grezzi, per uno chef o (p_chef NULL) per tutti.
+-- Restituisce il numero di righe scritte.
+CREATE OR REPLACE FUNCTION f_ricostruisci_chef_month_stats(p_chef INTEGER DEFAULT NULL) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_righe INTEGER;
+BEGIN
+    -- Blocca i ricalcoli dei trigger finché la ricostruzione non è confermata
+    LOCK TABLE chef_month_stats IN SHARE ROW EXCLUSIVE MODE;
+
+    DELETE FROM chef_month_stats WHERE p_chef IS NULL OR ID_Chef = p_chef;
+
+    INSERT INTO chef_month_stats
+           (ID_Chef, Mese, SessioniOnline, SessioniPratiche, NumeroCorsi, RicetteSomma, RicetteMin, RicetteMax)
+    SELECT ID_Chef, Mese, SessioniOnline, SessioniPratiche, NumeroCorsi, RicetteSomma, RicetteMin, RicetteMax
+    FROM v_chef_month_stats_calcolate
+    WHERE p_chef IS NULL OR ID_Chef = p_chef;
+
+    GET DIAGNOSTICS v_righe = ROW_COUNT;
+    RETURN v_righe;
+END
+$$;
+
+-- ── Trigger ──────────────────────────────────────────────────
+-- Trigger per istruzione con tabelle di transizione: un inserimento in batch
+-- di molte sessioni ricalcola ciascun mese toccato una volta sola.
+-- Le tabelle di transizione non ammettono più eventi per trigger: uno per evento.
+
+-- Sessioni online e pratiche: entrambe hanno ID_Corso e Data.
+-- Se il corso non esiste più (DELETE a cascata da Corso) il join non produce righe:
+-- in quel caso ricalcola il trigger su Corso.
+CREATE OR REPLACE FUNCTION f_trg_stats_sessioni() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM f_ricalcola_chef_mese(B.ID_Chef, B.Mese)
+        FROM (SELECT DISTINCT C.ID_Chef, date_trunc('month', O.Data)::date AS Mese
+              FROM vecchie O JOIN Corso C ON C.ID_Corso = O.ID_Corso) B;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'INSERT') THEN
+        PERFORM f_ricalcola_chef_mese(B.ID_Chef, B.Mese)
+        FROM (SELECT DISTINCT C.ID_Chef, date_trunc('month', N.Data)::date AS Mese
+              FROM nuove N JOIN Corso C ON C.ID_Corso = N.ID_Corso) B;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+-- Ricette: cambia il conteggio della sessione pratica a cui appartengono
+CREATE OR REPLACE FUNCTION f_trg_stats_ricette() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM f_ricalcola_chef_mese(B.ID_Chef, B.Mese)
+        FROM (SELECT DISTINCT C.ID_Chef, date_trunc('month', SP.Data)::date AS Mese
+              FROM vecchie O
+              JOIN SessionePratica SP ON SP.ID_SessionePratica = O.ID_SessionePratica
+              JOIN Corso C ON C.ID_Corso = SP.ID_Corso) B;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'INSERT') THEN
+        PERFORM f_ricalcola_chef_mese(B.ID_Chef, B.Mese)
+        FROM (SELECT DISTINCT C.ID_Chef, date_trunc('month', SP.Data)::date AS Mese
+              FROM nuove N
+              JOIN SessionePratica SP ON SP.ID_SessionePratica = N.ID_SessionePratica
+              JOIN Corso C ON C.ID_Corso = SP.ID_Corso) B;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+-- Corsi: cancellazione (le sessioni sono già state eliminate a cascata, perché i trigger
+-- RI_ConstraintTrigger_* precedono in ordine alfabetico quelli trg_*) o cambio di chef.
+CREATE OR REPLACE FUNCTION f_trg_stats_corso() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM f_ricalcola_chef_mese(OLD.ID_Chef, S.Mese)
+        FROM chef_month_stats S WHERE S.ID_Chef = OLD.ID_Chef;
+    ELSE
+        PERFORM f_ricalcola_chef_mese(Chef.ID, M.Mese)
+        FROM (SELECT DISTINCT date_trunc('month', Data)::date AS Mese
+              FROM (SELECT Data FROM SessioneOnline  WHERE ID_Corso = NEW.ID_Corso
+                    UNION ALL
+                    SELECT Data FROM SessionePratica WHERE ID_Corso = NEW.ID_Corso) D) M
+        CROSS JOIN (VALUES (OLD.ID_Chef), (NEW.ID_Chef)) AS Chef(ID);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_stats_sessioneonline_ins ON SessioneOnline;
+DROP TRIGGER IF EXISTS trg_stats_sessioneonline_upd ON SessioneOnline;
+DROP TRIGGER IF EXISTS trg_stats_sessioneonline_del ON SessioneOnline;
+CREATE TRIGGER trg_stats_sessioneonline_ins AFTER INSERT ON SessioneOnline
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+CREATE TRIGGER trg_stats_sessioneonline_upd AFTER UPDATE ON SessioneOnline
+    REFERENCING OLD TABLE AS vecchie NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+CREATE TRIGGER trg_stats_sessioneonline_del AFTER DELETE ON SessioneOnline
+    REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+
+DROP TRIGGER IF EXISTS trg_stats_sessionepratica_ins ON SessionePratica;
+DROP TRIGGER IF EXISTS trg_stats_sessionepratica_upd ON SessionePratica;
+DROP TRIGGER IF EXISTS trg_stats_sessionepratica_del ON SessionePratica;
+CREATE TRIGGER trg_stats_sessionepratica_ins AFTER INSERT ON SessionePratica
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+CREATE TRIGGER trg_stats_sessionepratica_upd AFTER UPDATE ON SessionePratica
+    REFERENCING OLD TABLE AS vecchie NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+CREATE TRIGGER trg_stats_sessionepratica_del AFTER DELETE ON SessionePratica
+    REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_sessioni();
+
+DROP TRIGGER IF EXISTS trg_stats_ricetta_ins ON Ricetta;
+DROP TRIGGER IF EXISTS trg_stats_ricetta_upd ON Ricetta;
+DROP TRIGGER IF EXISTS trg_stats_ricetta_del ON Ricetta;
+CREATE TRIGGER trg_stats_ricetta_ins AFTER INSERT ON Ricetta
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_ricette();
+CREATE TRIGGER trg_stats_ricetta_upd AFTER UPDATE ON Ricetta
+    REFERENCING OLD TABLE AS vecchie NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_ricette();
+CREATE TRIGGER trg_stats_ricetta_del AFTER DELETE ON Ricetta
+    REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION f_trg_stats_ricette();
+
+DROP TRIGGER IF EXISTS trg_stats_corso_del ON Corso;
+DROP TRIGGER IF EXISTS trg_stats_corso_chef ON Corso;
+CREATE TRIGGER trg_stats_corso_del AFTER DELETE ON Corso
+    FOR EACH ROW EXECUTE FUNCTION f_trg_stats_corso();
+CREATE TRIGGER trg_stats_corso_chef AFTER UPDATE OF ID_Chef ON Corso
+    FOR EACH ROW WHEN (OLD.ID_Chef IS DISTINCT FROM NEW.ID_Chef) EXECUTE FUNCTION f_trg_stats_corso();
+
+-- Popolamento iniziale
+SELECT f_ricostruisci_chef_month_stats(NULL);
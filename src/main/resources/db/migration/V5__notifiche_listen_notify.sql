@@ -0,0 +1,22 @@
+-- ============================================================
+--  V5 — Consegna push delle notifiche (LISTEN/NOTIFY)
+--  Ogni nuova notifica viene segnalata sul canale dello chef
+--  destinatario, notifiche_chef_<ID_Chef>, con l'ID della riga
+--  come payload. NOTIFY è transazionale: il segnale parte solo
+--  al commit, quando la riga è già visibile a chi la rilegge.
+--  Il trigger copre qualunque INSERT, anche fuori dall'applicazione.
+-- ============================================================
+
+CREATE OR REPLACE FUNCTION f_notifica_inserita() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_notify('notifiche_chef_' || NEW.ID_Chef, NEW.ID_Notifica::text);
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_notifica_inserita ON Notifica;
+
+CREATE TRIGGER trg_notifica_inserita
+    AFTER INSERT ON Notifica
+    FOR EACH ROW EXECUTE FUNCTION f_notifica_inserita();
@@ -0,0 +1,15 @@
+-- ============================================================
+--  V6 — Ricalcolo di chef_month_stats alla cancellazione di un corso
+--  In V4 il trigger AFTER DELETE su Corso contava sul fatto che
+--  le sessioni fossero già state eliminate a cascata, cioè che i
+--  trigger RI_ConstraintTrigger_* scattassero prima di trg_* per
+--  ordine alfabetico del nome. Qui diventa un constraint trigger
+--  differito: scatta al commit, quando le cascate sono sicuramente
+--  concluse, qualunque sia il nome dei trigger.
+-- ============================================================
+
+DROP TRIGGER IF EXISTS trg_stats_corso_del ON Corso;
+
+CREATE CONSTRAINT TRIGGER trg_stats_corso_del AFTER DELETE ON Corso
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION f_trg_stats_corso();
@@ -0,0 +1,155 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.model.domain.Ingrediente;
+import it.uninafoodlab.model.domain.Studente;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Confronta la conversione delle righe per nome di colonna (come facevano i vecchi
+ * createXFromResultSet) con quella per posizione di {@link MapperRighe}, sugli stessi
+ * ResultSet del driver PostgreSQL.
+ *
+ * Le righe sono generate con generate_series, quindi basta un database raggiungibile
+ * con le impostazioni di db.properties: le tabelle dell'applicazione non vengono lette.
+ * Con l'autocommit attivo il driver riceve tutto il risultato in executeQuery, per cui
+ * il tempo misurato è quello del solo ciclo di conversione, senza rete.
+ *
+ * Esecuzione (dalla radice del progetto):
+ * <pre>
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *        it.uninafoodlab.dao.BenchmarkMappatura [righe] [round]
+ * </pre>
+ * Stampa per ogni tabella la mediana dei round, in millisecondi, e il rapporto fra le due.
+ */
+public class BenchmarkMappatura {
+
+    private static final int ROUND_RISCALDAMENTO = 5;
+
+    private static final String SQL_INGREDIENTI =
+        "SELECT g AS ID_Ingrediente, 'Ingrediente ' || g AS Nome, " +
+        "       'Categoria ' || (g % 20) AS Categoria, 'g' AS UnitaMisura " +
+        "FROM generate_series(1, ?) g";
+
+    private static final String SQL_STUDENTI =
+        "SELECT g AS ID_Studente, 'Studente ' || g AS Nome, " +
+        "       'N86' || lpad(g::text, 6, '0') AS Matricola, 's' || g || '@studenti.unina.it' AS Email " +
+        "FROM generate_series(1, ?) g";
+
+    /**
+     * Conversione di tutte le righe di un ResultSet.
+     */
+    @FunctionalInterface
+    private interface Conversione {
+        List<?> converti(ResultSet rs) throws SQLException;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int righe = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int round = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+
+        // Il benchmark ha senso solo se le query generano le colonne nell'ordine dei mapper
+        verificaColonne(IngredienteDAO.MAPPER, "ID_Ingrediente, Nome, Categoria, UnitaMisura");
+        verificaColonne(StudenteDAO.MAPPER_ELENCO, "ID_Studente, Nome, Matricola, Email");
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                System.err.println("Database non raggiungibile: controllare db.properties");
+                return;
+            }
+            System.out.printf("%d righe, %d round (%d di riscaldamento)%n", righe, round, ROUND_RISCALDAMENTO);
+            confronta(conn, "Ingrediente", SQL_INGREDIENTI, righe, round,
+                BenchmarkMappatura::ingredientiPerNome, IngredienteDAO.MAPPER::mappaTutte);
+            confronta(conn, "Studente", SQL_STUDENTI, righe, round,
+                BenchmarkMappatura::studentiPerNome, StudenteDAO.MAPPER_ELENCO::mappaTutte);
+        }
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static void confronta(Connection conn, String tabella, String sql, int righe, int round,
+                                  Conversione perNome, Conversione perPosizione) throws SQLException {
+        long[] tempiNome = new long[round];
+        long[] tempiPosizione = new long[round];
+
+        for (int i = -ROUND_RISCALDAMENTO; i < round; i++) {
+            // Ordine alternato, per non favorire sistematicamente la seconda conversione
+            boolean nomePrima = (i & 1) == 0;
+            long nome = 0, posizione = 0;
+            if (nomePrima) nome = misura(conn, sql, righe, perNome);
+            posizione = misura(conn, sql, righe, perPosizione);
+            if (!nomePrima) nome = misura(conn, sql, righe, perNome);
+
+            if (i >= 0) {
+                tempiNome[i] = nome;
+                tempiPosizione[i] = posizione;
+            }
+        }
+
+        double msNome = mediana(tempiNome) / 1e6;
+        double msPosizione = mediana(tempiPosizione) / 1e6;
+        System.out.printf("%-12s per nome %8.2f ms | per posizione %8.2f ms | rapporto %.2fx%n",
+            tabella, msNome, msPosizione, msNome / msPosizione);
+    }
+
+    /**
+     * @return nanosecondi spesi nel solo ciclo di conversione
+     */
+    private static long misura(Connection conn, String sql, int righe, Conversione conversione) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, righe);
+            try (ResultSet rs = ps.executeQuery()) {
+                long inizio = System.nanoTime();
+                List<?> risultato = conversione.converti(rs);
+                long durata = System.nanoTime() - inizio;
+                if (risultato.size() != righe) {
+                    throw new IllegalStateException("Righe convertite: " + risultato.size() + " invece di " + righe);
+                }
+                return durata;
+            }
+        }
+    }
+
+    private static List<Ingrediente> ingredientiPerNome(ResultSet rs) throws SQLException {
+        List<Ingrediente> ingredienti = new ArrayList<>();
+        while (rs.next()) {
+            ingredienti.add(new Ingrediente(
+                rs.getInt("ID_Ingrediente"),
+                rs.getString("Nome"),
+                rs.getString("Categoria"),
+                rs.getString("UnitaMisura")));
+        }
+        return ingredienti;
+    }
+
+    private static List<Studente> studentiPerNome(ResultSet rs) throws SQLException {
+        List<Studente> studenti = new ArrayList<>();
+        while (rs.next()) {
+            studenti.add(new Studente(
+                rs.getInt("ID_Studente"),
+                rs.getString("Nome"),
+                rs.getString("Matricola"),
+                rs.getString("Email"),
+                null));
+        }
+        return studenti;
+    }
+
+    private static void verificaColonne(MapperRighe<?> mapper, String attese) {
+        if (!mapper.colonne().equals(attese)) {
+            throw new IllegalStateException("Colonne del mapper cambiate: " + mapper.colonne() + ", attese " + attese);
+        }
+    }
+
+    private static long mediana(long[] valori) {
+        long[] ordinati = valori.clone();
+        Arrays.sort(ordinati);
+        return ordinati[ordinati.length / 2];
+    }
+}
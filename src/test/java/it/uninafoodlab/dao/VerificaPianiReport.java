@@ -0,0 +1,169 @@
+package it.uninafoodlab.dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifica che le query dei report sui dati grezzi usino gli indici su (ID_Corso, Data)
+ * delle tabelle delle sessioni e su Corso(ID_Chef), senza Seq Scan sulle sessioni.
+ *
+ * Ogni query di ReportDAO viene spiegata con EXPLAIN (FORMAT JSON), con i parametri
+ * legati come fa il DAO. Su un database piccolo il planner preferirebbe comunque
+ * la scansione sequenziale, quindi la verifica gira con enable_seqscan = off: una
+ * Seq Scan che resta nel piano significa che nessun indice è utilizzabile per quel filtro.
+ *
+ * Legge i dati del database indicato in db.properties senza modificarli.
+ * Esecuzione (dalla radice del progetto):
+ * <pre>
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt) it.uninafoodlab.dao.VerificaPianiReport [idChef]
+ * </pre>
+ * Termina con codice 1 se un piano non usa gli indici attesi, 2 se il database non è raggiungibile.
+ */
+public class VerificaPianiReport {
+
+    private static final String IDX_ONLINE   = "idx_sessioneonline_corso_data";
+    private static final String IDX_PRATICHE = "idx_sessionepratica_corso_data";
+    private static final String IDX_CHEF     = "idx_corso_chef";
+
+    private static final Set<String> TABELLE_SESSIONI = Set.of("sessioneonline", "sessionepratica");
+
+    // Nodo del piano: tipo, tabella e indice stanno prima dei figli ("Plans")
+    private static final Pattern TIPO_NODO = Pattern.compile("\"Node Type\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern TABELLA   = Pattern.compile("\"Relation Name\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern INDICE    = Pattern.compile("\"Index Name\"\\s*:\\s*\"([^\"]+)\"");
+
+    /**
+     * Query da spiegare con gli indici che il suo piano deve contenere.
+     */
+    private record Caso(String nome, String sql, Set<String> indici) {}
+
+    private static final List<Caso> CASI = List.of(
+        new Caso("report mensile, query unica", ReportDAO.SQL_QUERY_UNICA,
+                 Set.of(IDX_ONLINE, IDX_PRATICHE, IDX_CHEF)),
+        new Caso("serie mensile", ReportDAO.SQL_SERIE_GREZZI,
+                 Set.of(IDX_ONLINE, IDX_PRATICHE, IDX_CHEF)),
+        new Caso("sessioni online per mese", ReportDAO.SQL_SESSIONI_ONLINE_PER_MESE,
+                 Set.of(IDX_ONLINE, IDX_CHEF)),
+        new Caso("sessioni pratiche per mese", ReportDAO.SQL_SESSIONI_PRATICHE_PER_MESE,
+                 Set.of(IDX_PRATICHE, IDX_CHEF)),
+        new Caso("corsi nel mese", ReportDAO.SQL_CORSI_NEL_MESE,
+                 Set.of(IDX_ONLINE, IDX_PRATICHE, IDX_CHEF)),
+        new Caso("sessioni online nel mese", ReportDAO.SQL_SESSIONI_ONLINE_NEL_MESE,
+                 Set.of(IDX_ONLINE, IDX_CHEF)),
+        new Caso("sessioni pratiche nel mese", ReportDAO.SQL_SESSIONI_PRATICHE_NEL_MESE,
+                 Set.of(IDX_PRATICHE, IDX_CHEF)),
+        new Caso("max/min ricette", ReportDAO.SQL_RICETTE_MAX_MIN,
+                 Set.of(IDX_PRATICHE, IDX_CHEF)),
+        new Caso("media ricette", ReportDAO.SQL_RICETTE_MEDIA,
+                 Set.of(IDX_PRATICHE, IDX_CHEF)));
+
+    public static void main(String[] args) throws SQLException {
+        if (!DatabaseConnection.testConnection()) {
+            System.err.println("Database non raggiungibile: controllare db.properties");
+            System.exit(2);
+        }
+        int idChef = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        Date inizio = Date.valueOf(LocalDate.now().withDayOfMonth(1));
+        Date fine   = Date.valueOf(LocalDate.now().withDayOfMonth(1).plusMonths(1));
+
+        int errori = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // SET LOCAL vale fino al rollback; la connessione torna al pool com'era
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET LOCAL enable_seqscan = off");
+            }
+            try {
+                for (Caso c : CASI) {
+                    errori += verifica(conn, c, idChef, inizio, fine);
+                }
+            } finally {
+                conn.rollback();
+            }
+        }
+
+        System.out.printf("%d query verificate, %d con piani non conformi%n", CASI.size(), errori);
+        if (errori > 0) System.exit(1);
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    /**
+     * @return 1 se il piano non usa tutti gli indici attesi o scandisce per intero una tabella delle sessioni
+     */
+    private static int verifica(Connection conn, Caso c, int idChef, Date inizio, Date fine) throws SQLException {
+        String piano = spiega(conn, c.sql(), idChef, inizio, fine);
+
+        Set<String> indiciUsati = new LinkedHashSet<>();
+        List<String> scansioniSessioni = new ArrayList<>();
+        for (String nodo : piano.split("(?=\"Node Type\")")) {
+            Matcher tipo = TIPO_NODO.matcher(nodo);
+            if (!tipo.find()) continue;
+            // Solo gli attributi del nodo, non quelli dei figli
+            String attributi = nodo.split("\"Plans\"", 2)[0];
+
+            Matcher indice = INDICE.matcher(attributi);
+            if (indice.find()) indiciUsati.add(indice.group(1));
+
+            Matcher tabella = TABELLA.matcher(attributi);
+            if ("Seq Scan".equals(tipo.group(1)) && tabella.find()
+                    && TABELLE_SESSIONI.contains(tabella.group(1).toLowerCase())) {
+                scansioniSessioni.add(tabella.group(1));
+            }
+        }
+
+        Set<String> mancanti = new LinkedHashSet<>(c.indici());
+        mancanti.removeAll(indiciUsati);
+        if (mancanti.isEmpty() && scansioniSessioni.isEmpty()) {
+            System.out.printf("OK   %s: %s%n", c.nome(), indiciUsati);
+            return 0;
+        }
+
+        System.err.printf("KO   %s: indici mancanti %s, Seq Scan su %s%n%s%n",
+            c.nome(), mancanti, scansioniSessioni, piano);
+        return 1;
+    }
+
+    /**
+     * Spiega la query legando i parametri per tipo: gli interi sono lo chef,
+     * le date si alternano fra inizio e fine, come nei metodi di ReportDAO.
+     */
+    private static String spiega(Connection conn, String sql, int idChef, Date inizio, Date fine) throws SQLException {
+        int[] tipi;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ParameterMetaData parametri = ps.getParameterMetaData();
+            tipi = new int[parametri.getParameterCount()];
+            for (int i = 0; i < tipi.length; i++) tipi[i] = parametri.getParameterType(i + 1);
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            int date = 0;
+            for (int i = 1; i <= tipi.length; i++) {
+                if (tipi[i - 1] == Types.DATE) {
+                    ps.setDate(i, date++ % 2 == 0 ? inizio : fine);
+                } else {
+                    ps.setInt(i, idChef);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder piano = new StringBuilder();
+                while (rs.next()) piano.append(rs.getString(1)).append('\n');
+                return piano.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package it.uninafoodlab.dao;
+
+import it.uninafoodlab.dao.ReportDAO.ReportMensile;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifica che il report mensile calcolato con la query unica (e, se disponibile,
+ * letto da chef_month_stats) coincida con quello delle query separate per metrica,
+ * per ogni chef e per ogni mese in cui lo chef ha almeno una sessione, più il mese
+ * precedente e quello successivo (mesi vuoti).
+ *
+ * Legge i dati del database indicato in db.properties senza modificarli.
+ * Esecuzione (dalla radice del progetto):
+ * <pre>
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt) it.uninafoodlab.dao.VerificaReportMensile
+ * </pre>
+ * Termina con codice 1 se trova differenze.
+ */
+public class VerificaReportMensile {
+
+    private static final double TOLLERANZA_MEDIA = 1e-9;
+
+    // Mesi con sessioni per ogni chef, allargati di un mese per parte
+    private static final String SQL_MESI =
+        "SELECT DISTINCT C.ID_Chef, (date_trunc('month', D.Data) + M.Scarto * INTERVAL '1 month')::date AS Mese " +
+        "FROM (SELECT ID_Corso, Data FROM SessioneOnline " +
+        "      UNION ALL " +
+        "      SELECT ID_Corso, Data FROM SessionePratica) D " +
+        "JOIN Corso C ON C.ID_Corso = D.ID_Corso " +
+        "CROSS JOIN (VALUES (-1), (0), (1)) AS M(Scarto) " +
+        "ORDER BY C.ID_Chef, Mese";
+
+    /**
+     * Mese di uno chef da confrontare.
+     */
+    private record Caso(int idChef, YearMonth mese) {}
+
+    public static void main(String[] args) throws SQLException {
+        if (!DatabaseConnection.testConnection()) {
+            System.err.println("Database non raggiungibile: controllare db.properties");
+            System.exit(2);
+        }
+        List<Caso> casi = leggiCasi();
+        int differenze = 0;
+
+        for (Caso c : casi) {
+            ReportMensile atteso = ReportDAO.getReportMensileQuerySeparate(c.idChef(), c.mese());
+            differenze += confronta(c, "query unica", atteso, ReportDAO.getReportMensileQueryUnica(c.idChef(), c.mese()));
+
+            ReportMensile rollup = ReportDAO.getReportMensileDaRollup(c.idChef(), c.mese());
+            if (rollup != null) {
+                differenze += confronta(c, "chef_month_stats", atteso, rollup);
+            }
+        }
+
+        System.out.printf("%d mesi confrontati, %d differenze%n", casi.size(), differenze);
+        if (differenze > 0) System.exit(1);
+    }
+
+    // ==================== METODI PRIVATI DI SUPPORTO ====================
+
+    private static List<Caso> leggiCasi() throws SQLException {
+        List<Caso> casi = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(SQL_MESI)) {
+            while (rs.next()) {
+                casi.add(new Caso(rs.getInt("ID_Chef"), YearMonth.from(rs.getDate("Mese").toLocalDate())));
+            }
+        }
+        return casi;
+    }
+
+    /**
+     * @return 1 se i due report sono diversi (o il secondo manca), 0 altrimenti
+     */
+    private static int confronta(Caso c, String origine, ReportMensile atteso, ReportMensile trovato) {
+        boolean uguali = trovato != null
+            && atteso.getNumeroCorsi()            == trovato.getNumeroCorsi()
+            && atteso.getNumeroSessioniOnline()   == trovato.getNumeroSessioniOnline()
+            && atteso.getNumeroSessioniPratiche() == trovato.getNumeroSessioniPratiche()
+            && atteso.getMaxRicettePerSessione()  == trovato.getMaxRicettePerSessione()
+            && atteso.getMinRicettePerSessione()  == trovato.getMinRicettePerSessione()
+            && Math.abs(atteso.getMediaRicettePerSessione() - trovato.getMediaRicettePerSessione()) < TOLLERANZA_MEDIA;
+        if (uguali) return 0;
+
+        System.err.printf("Chef %d, %s: %s diverso dalle query separate%n  atteso  %s%n  trovato %s%n",
+            c.idChef(), c.mese(), origine, descrivi(atteso), descrivi(trovato));
+        return 1;
+    }
+
+    private static String descrivi(ReportMensile r) {
+        if (r == null) return "null (errore)";
+        return String.format("corsi=%d, online=%d, pratiche=%d, max=%d, min=%d, media=%.4f",
+            r.getNumeroCorsi(), r.getNumeroSessioniOnline(), r.getNumeroSessioniPratiche(),
+            r.getMaxRicettePerSessione(), r.getMinRicettePerSessione(), r.getMediaRicettePerSessione());
+    }
+}